@@ -6,6 +6,8 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Setter
 @Getter
 @Configuration
@@ -13,4 +15,30 @@ import org.springframework.context.annotation.Configuration;
 @ConfigurationProperties(prefix = "card.encryptor")
 public class AppConfig {
     private String password;
+
+    private String fingerprintKey;
+
+    /**
+     * Общая соль (hex) ключа шифрования новых номеров карт; уникальность шифротекста обеспечивает случайный IV
+     */
+    private String keySalt;
+
+    private KeyCache keyCache = new KeyCache();
+
+    /**
+     * Настройки кэша производных ключей шифрования
+     */
+    @Setter
+    @Getter
+    public static class KeyCache {
+        /**
+         * Максимальное количество ключей в кэше
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * Время жизни ключа без обращений к нему
+         */
+        private Duration ttl = Duration.ofMinutes(30);
+    }
 }
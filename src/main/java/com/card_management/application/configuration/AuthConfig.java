@@ -0,0 +1,68 @@
+package com.card_management.application.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Настройки хеширования паролей и ограничения попыток входа
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "auth")
+public class AuthConfig {
+    /**
+     * Сложность BCrypt. Хеши меньшей сложности пересчитываются при следующем успешном входе
+     */
+    private int bcryptStrength = 10;
+
+    /**
+     * Количество потоков хеширования паролей
+     */
+    private int hashingThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /**
+     * Максимальное количество операций хеширования, ожидающих свободного потока
+     */
+    private int hashingQueueCapacity = 50;
+
+    /**
+     * Рекомендуемая пауза перед повтором запроса, отклоненного из-за перегрузки
+     */
+    private Duration overloadRetryAfter = Duration.ofSeconds(1);
+
+    /**
+     * Максимальное количество попыток входа подряд для одной учетной записи
+     */
+    private int accountAttempts = 10;
+
+    /**
+     * Интервал восстановления одной попытки для учетной записи
+     */
+    private Duration accountRefillInterval = Duration.ofSeconds(6);
+
+    /**
+     * Максимальное количество запросов входа и регистрации подряд с одного IP-адреса
+     */
+    private int ipAttempts = 50;
+
+    /**
+     * Интервал восстановления одного запроса для IP-адреса
+     */
+    private Duration ipRefillInterval = Duration.ofMillis(200);
+
+    /**
+     * Регулярное выражение адресов обратных прокси, которым доверяется X-Forwarded-For.
+     * Пустое значение — заголовок игнорируется, адресом клиента считается адрес соединения
+     */
+    private String trustedProxies = "";
+
+    /**
+     * Максимальное количество отслеживаемых учетных записей и IP-адресов
+     */
+    private long maximumTrackedKeys = 100_000;
+}
@@ -0,0 +1,32 @@
+package com.card_management.application.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Настройки ключей идемпотентности запросов на создание транзакций
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "transaction.idempotency")
+public class IdempotencyConfig {
+    /**
+     * Максимальное количество ответов в кэше повторов
+     */
+    private long maximumSize = 100_000;
+
+    /**
+     * Время хранения ответа в кэше повторов
+     */
+    private Duration cacheTtl = Duration.ofMinutes(10);
+
+    /**
+     * Срок хранения ключей в базе данных
+     */
+    private Duration retention = Duration.ofHours(24);
+}
@@ -0,0 +1,47 @@
+package com.card_management.application.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Настройки группового приема запросов на создание транзакций
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "transaction.ingestion")
+public class IngestionConfig {
+    /**
+     * Включен ли групповой прием. Если выключен, каждая транзакция создается в собственной транзакции БД
+     */
+    private boolean enabled = false;
+
+    /**
+     * Количество разделов очереди по карте списания, на каждый раздел - один поток записи
+     */
+    private int partitions = 4;
+
+    /**
+     * Максимальное количество ожидающих запросов в одном разделе
+     */
+    private int queueCapacity = 1_000;
+
+    /**
+     * Максимальное количество запросов, фиксируемых одной транзакцией БД
+     */
+    private int maxBatchSize = 100;
+
+    /**
+     * Максимальное время ожидания наполнения пакета после первого запроса
+     */
+    private Duration maxLinger = Duration.ofMillis(5);
+
+    /**
+     * Максимальное время ожидания результата запроса. Запрос, не дождавшийся пакета, отклоняется как при перегрузке
+     */
+    private Duration resultTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,64 @@
+package com.card_management.application.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Настройки локального журнала асинхронно применяемых транзакций
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "transaction.journal")
+public class JournalConfig {
+    /**
+     * Включен ли журнал. Если выключен, асинхронные запросы выполняются синхронно
+     */
+    private boolean enabled = false;
+
+    /**
+     * Каталог сегментов журнала
+     */
+    private Path directory = Path.of("journal");
+
+    /**
+     * Размер одного сегмента журнала в байтах
+     */
+    private int segmentSize = 64 * 1024 * 1024;
+
+    /**
+     * Интервал сброса журнала на диск: все записи, добавленные за интервал, сбрасываются одним fsync
+     */
+    private Duration flushInterval = Duration.ofMillis(2);
+
+    /**
+     * Максимальное количество записей журнала, применяемых к БД одной транзакцией
+     */
+    private int applyBatchSize = 500;
+
+    /**
+     * Максимальное количество принятых, но еще не примененных к БД записей.
+     * При превышении новые запросы отклоняются с кодом 429
+     */
+    private int maxPending = 100_000;
+
+    /**
+     * Пауза перед повторным применением пакета, если БД недоступна. С каждым повтором удваивается
+     */
+    private Duration retryInterval = Duration.ofSeconds(5);
+
+    /**
+     * Максимальная пауза между повторами применения пакета
+     */
+    private Duration maxRetryInterval = Duration.ofMinutes(1);
+
+    /**
+     * Время хранения в БД причин отклонения записей журнала
+     */
+    private Duration rejectionRetention = Duration.ofDays(7);
+}
@@ -0,0 +1,20 @@
+package com.card_management.application.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Настройки кэша проверенных JWT
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "jwt.cache")
+public class JwtCacheConfig {
+    /**
+     * Максимальное количество проверенных токенов в кэше
+     */
+    private long maximumSize = 100_000;
+}
@@ -1,10 +1,16 @@
 package com.card_management.application.configuration;
 
 import com.card_management.technical.util.JwtAuthenticationFilter;
+import com.card_management.users_api.security.BoundedPasswordEncoder;
 import com.card_management.users_api.security.CustomUserDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.apache.catalina.filters.RemoteIpFilter;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -29,10 +35,13 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .authorizeHttpRequests(auth -> auth
+                        // асинхронная досылка ответа (потоковые выгрузки) уже авторизована исходным запросом
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/swagger-ui/**").permitAll()
                         .requestMatchers("/v3/api-docs/**").permitAll()
                         .requestMatchers("/auth/**").permitAll()
                         .requestMatchers("/users/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .csrf(csrf -> csrf.disable())
@@ -45,13 +54,32 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Адрес клиента из X-Forwarded-For подставляется только для запросов от доверенных прокси,
+     * поэтому клиент не может подменить адрес, по которому ограничиваются попытки входа
+     */
+    @Bean
+    public FilterRegistrationBean<RemoteIpFilter> remoteIpFilter(AuthConfig authConfig) {
+        var filter = new RemoteIpFilter();
+        filter.setInternalProxies(authConfig.getTrustedProxies());
+        var registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
         return config.getAuthenticationManager();
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(AuthConfig authConfig, MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(authConfig.getBcryptStrength()),
+                authConfig.getHashingThreads(),
+                authConfig.getHashingQueueCapacity(),
+                authConfig.getOverloadRetryAfter(),
+                meterRegistry
+        );
     }
 }
@@ -0,0 +1,27 @@
+package com.card_management.application.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша общего количества элементов постраничных списков
+ */
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "listing.totals")
+public class TotalsConfig {
+    /**
+     * Максимальное количество фильтров в кэше
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Время, в течение которого закэшированное количество считается актуальным
+     */
+    private Duration ttl = Duration.ofMinutes(1);
+}
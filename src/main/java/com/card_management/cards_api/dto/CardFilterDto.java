@@ -4,6 +4,7 @@ import com.card_management.cards_api.enumeration.CardSortFields;
 import com.card_management.cards_api.enumeration.CardStatus;
 import com.card_management.technical.validation.ValidFormatDate;
 import com.card_management.technical.enumeration.SortDirection;
+import com.card_management.technical.enumeration.TotalsMode;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
@@ -27,6 +28,19 @@ public class CardFilterDto {
     @Positive(message = "Введите положительное значение")
     private Integer size;
 
+    @Schema(
+            description = "Курсор следующей страницы из предыдущего ответа (режим курсора, page не учитывается). "
+                    + "Пустая строка - первая страница в режиме курсора",
+            example = "aWR8QVNDfDQyfDQy"
+    )
+    private String after;
+
+    @Schema(description = "Режим подсчета общего количества элементов, по умолчанию EXACT",
+            example = "NONE",
+            implementation = TotalsMode.class
+    )
+    private String totals;
+
     @Schema(description = "Поле для сортировки",
             example = "id",
             implementation = CardSortFields.class
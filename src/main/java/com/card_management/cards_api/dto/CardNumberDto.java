@@ -0,0 +1,28 @@
+package com.card_management.cards_api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Setter
+@Getter
+@NoArgsConstructor
+@Schema(description = "DTO для поиска карты по полному номеру")
+public class CardNumberDto {
+
+    @Schema(
+            description = "Номер банковской карты (16 цифр)",
+            example = "1234567812345678",
+            requiredMode = Schema.RequiredMode.REQUIRED,
+            minLength = 16,
+            maxLength = 16
+    )
+    @NotNull(message = "Номер карты обязателен")
+    @NotBlank(message = "Номер карты не должен быть пустым")
+    @Size(min = 16, max = 16, message = "Номер карты должен содержать ровно 16 цифр")
+    private String cardNumber;
+}
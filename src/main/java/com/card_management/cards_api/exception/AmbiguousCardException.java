@@ -0,0 +1,7 @@
+package com.card_management.cards_api.exception;
+
+public class AmbiguousCardException extends RuntimeException {
+    public AmbiguousCardException(String message) {
+        super(message);
+    }
+}
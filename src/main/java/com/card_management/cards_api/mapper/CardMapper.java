@@ -5,8 +5,12 @@ import com.card_management.cards_api.dto.CardDto;
 import com.card_management.cards_api.model.Card;
 import com.card_management.technical.util.CardUtils;
 import com.card_management.users_api.mapper.UserMapper;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
 import org.mapstruct.*;
 
+import java.util.List;
+
 @Mapper(
         nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE,
         componentModel = MappingConstants.ComponentModel.SPRING,
@@ -14,12 +18,43 @@ import org.mapstruct.*;
         nullValueCheckStrategy = NullValueCheckStrategy.ALWAYS,
         uses = {UserMapper.class,
                 CardUtils.class
-        }
+        },
+        imports = CardUtils.class
 )
 public abstract class CardMapper {
 
+    /**
+     * Связи, которые читает {@link #map(Card)}, - те же, что в графе {@link Card#DTO_GRAPH}.
+     * Карты для этого преобразования загружаются вместе с ними одним запросом
+     */
+    public static final String[] DTO_FETCHES = {"owner"};
+
+    /**
+     * Колонки {@link CardDto} в порядке его конструктора - для выборки списков сразу в DTO,
+     * без загрузки сущностей. Должны соответствовать {@link #map(Card)}
+     * @param root корень запроса по картам
+     * @return колонки DTO
+     */
+    public static List<Selection<?>> dtoColumns(Root<Card> root) {
+        return List.of(
+                root.get("id"),
+                root.get("uuid"),
+                root.get("maskNumber"),
+                root.join("owner").get("uuid"),
+                root.get("validityPeriodMonth"),
+                root.get("validityPeriodYear"),
+                root.get("status"),
+                root.get("balance"),
+                root.get("createdAt"),
+                root.get("updatedAt")
+        );
+    }
+
     @Mapping(target = "owner", source = "ownerId")
     @Mapping(source = "cardNumber", target = "maskNumber", qualifiedByName = "maskCardNumber")
+    @Mapping(source = "cardNumber", target = "lastFourDigits", qualifiedByName = "lastFourDigits")
+    @Mapping(target = "expirationDate", expression = "java(CardUtils.expirationDate("
+            + "dto.getValidityPeriodMonth(), dto.getValidityPeriodYear()))")
     public abstract Card map(CardCreateDto dto);
 
     @Mapping(target = "ownerUuid", source = "owner.uuid")
@@ -13,6 +13,7 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -25,9 +26,15 @@ import java.util.UUID;
 @Setter
 @Entity
 @Table(name = "cards")
+@NamedEntityGraph(name = Card.DTO_GRAPH, attributeNodes = @NamedAttributeNode("owner"))
 @EntityListeners(AuditingEntityListener.class)
 @NoArgsConstructor
 public class Card {
+    /**
+     * Граф загрузки для {@link com.card_management.cards_api.dto.CardDto}: карта с владельцем
+     */
+    public static final String DTO_GRAPH = "Card.dto";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id", nullable = false, updatable = false, unique = true)
@@ -46,17 +53,35 @@ public class Card {
     @Column(nullable = false, name = "encrypted_card_number")
     private String encryptedCardNumber;
 
+    /**
+     * Отпечаток номера карты (HMAC-SHA256) для поиска без расшифровки
+     */
+    @Column(name = "number_fingerprint", unique = true)
+    private String numberFingerprint;
+
+    /**
+     * Номер карты совпал с уже зарегистрированной картой при заполнении отпечатков, отпечаток не заполнен
+     */
+    @Column(name = "fingerprint_conflict", nullable = false)
+    private boolean fingerprintConflict;
+
     /**
      * Замаскированный номер карты в формате 0000****0000
      */
     @Column(name = "mask_number")
     private String maskNumber;
 
+    /**
+     * Последние четыре цифры номера карты
+     */
+    @Column(name = "last_four_digits")
+    private String lastFourDigits;
+
     /**
      * Владелец карты
      */
     @NotNull
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id")
     private User owner;
 
@@ -74,6 +99,12 @@ public class Card {
     @Column(name = "validity_period_year")
     private Integer validityPeriodYear;
 
+    /**
+     * Последний день действия карты, вычисляется из месяца и года окончания действия
+     */
+    @Column(name = "expiration_date")
+    private LocalDate expirationDate;
+
     /**
      * Статус карты
      */
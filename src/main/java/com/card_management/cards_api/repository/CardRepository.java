@@ -1,12 +1,23 @@
 package com.card_management.cards_api.repository;
 
-import com.card_management.cards_api.enumeration.CardStatus;
 import com.card_management.cards_api.model.Card;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Интерфейс-репозиторий для карт
@@ -14,42 +25,151 @@ import java.util.List;
 @Repository
 public interface CardRepository extends JpaRepository<Card, Long>,
         JpaSpecificationExecutor<Card> {
+    /**
+     * Страница карт вместе с владельцами
+     * @param pageable объект, содержащий информацию о пагинации и сортировке.
+     * @return список карт в виде объекта Page
+     */
+    @Override
+    @EntityGraph(Card.DTO_GRAPH)
+    Page<Card> findAll(Pageable pageable);
+
+    /**
+     * Страница карт, подходящих под фильтр, вместе с владельцами
+     * @param spec фильтр
+     * @param pageable объект, содержащий информацию о пагинации и сортировке.
+     * @return список карт в виде объекта Page
+     */
+    @Override
+    @EntityGraph(Card.DTO_GRAPH)
+    Page<Card> findAll(Specification<Card> spec, Pageable pageable);
+
+    /**
+     * Поиск карты по ID вместе с владельцем
+     * @param id ID карты
+     * @return карта, если найдена
+     */
+    @Override
+    @EntityGraph(Card.DTO_GRAPH)
+    Optional<Card> findById(Long id);
+
     /**
      * Поиск всех карт принадлежащих пользователю
      * @param userId ID пользователя
      * @return список карт
      */
+    @EntityGraph(Card.DTO_GRAPH)
     List<Card> findByOwnerId(Long userId);
 
     /**
-     * Поиск всех карт с определенным статусом
-     * @param status статус карты
-     * @return список карт
+     * Поиск карты пользователя по последним четырем цифрам номера
+     * @param ownerId ID пользователя
+     * @param lastFourDigits последние четыре цифры номера карты
+     * @return карта, если найдена
+     */
+    Optional<Card> findFirstByOwnerIdAndLastFourDigits(Long ownerId, String lastFourDigits);
+
+    /**
+     * Не более двух карт пользователя с заданными последними четырьмя цифрами номера:
+     * достаточно, чтобы отличить единственную карту от неоднозначного выбора
+     * @param ownerId ID пользователя
+     * @param lastFourDigits последние четыре цифры номера карты
+     * @return найденные карты по возрастанию ID
+     */
+    List<Card> findTop2ByOwnerIdAndLastFourDigitsOrderByIdAsc(Long ownerId, String lastFourDigits);
+
+    /**
+     * Поиск карты по отпечатку номера
+     * @param numberFingerprint отпечаток номера карты
+     * @return карта, если найдена
+     */
+    @EntityGraph(Card.DTO_GRAPH)
+    Optional<Card> findByNumberFingerprint(String numberFingerprint);
+
+    /**
+     * Поиск карты пользователя по отпечатку номера
+     * @param numberFingerprint отпечаток номера карты
+     * @param ownerId ID владельца
+     * @return карта, если найдена
+     */
+    Optional<Card> findByNumberFingerprintAndOwnerId(String numberFingerprint, Long ownerId);
+
+    /**
+     * Поиск карт пользователя по отпечаткам номеров с блокировкой строк до конца транзакции.
+     * Строки блокируются в порядке возрастания ID, как и при одиночных переводах.
+     * @param ownerId ID владельца
+     * @param numberFingerprints отпечатки номеров карт
+     * @return найденные карты
+     */
+    @Query(value = "SELECT * FROM {h-schema}cards "
+            + "WHERE owner_id = :ownerId AND number_fingerprint IN (:numberFingerprints) "
+            + "ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Card> lockByOwnerIdAndNumberFingerprints(
+            @Param("ownerId") Long ownerId,
+            @Param("numberFingerprints") Collection<String> numberFingerprints);
+
+    /**
+     * Блокирует строку карты до конца транзакции и возвращает ее баланс
+     * @param id ID карты
+     * @return баланс карты, если карта найдена
+     */
+    @Query(value = "SELECT balance FROM {h-schema}cards WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Integer> lockBalanceById(@Param("id") Long id);
+
+    /**
+     * Порция карт без отпечатка номера и без конфликта номеров с ID больше заданного, упорядоченная по ID
+     * @param id ID последней обработанной карты
+     * @param pageable размер порции
+     * @return порция карт
+     */
+    Slice<Card> findByNumberFingerprintIsNullAndFingerprintConflictFalseAndIdGreaterThanOrderByIdAsc(
+            Long id, Pageable pageable);
+
+    /**
+     * Помечает карту, номер которой совпал с уже зарегистрированной картой
+     * @param id ID карты
+     * @return количество обновленных карт
+     */
+    @Transactional
+    @Modifying
+    @Query("update Card c set c.fingerprintConflict = true where c.id = :id")
+    int markFingerprintConflict(@Param("id") Long id);
+
+    /**
+     * Списание с баланса карты одним условным UPDATE: строка меняется, только если средств достаточно
+     * @param id ID карты
+     * @param amount сумма списания
+     * @return количество измененных строк (0 - средств недостаточно или карта не найдена)
      */
-    List<Card> findByStatus(CardStatus status);
+    @Modifying
+    @Query("update Card c set c.balance = c.balance - :amount, c.updatedAt = local datetime "
+            + "where c.id = :id and c.balance >= :amount")
+    int debitBalance(@Param("id") Long id, @Param("amount") Integer amount);
 
     /**
-     * Находит карту по полному номеру, сравнивая с маскированными номерами в БД.
-     * Сравнивает первые 4 и последние 4 цифры полного номера с маскированным номером
-     * в формате "4444****5555".
-     *
-     * @param fullCardNumber полный 16-значный номер карты для поиска
-     * @return найденная карта или null, если не найдена
-     * @see #findByMaskNumberLike(String)
+     * Зачисление на баланс карты одним UPDATE
+     * @param id ID карты
+     * @param amount сумма зачисления
+     * @return количество измененных строк (0 - карта не найдена)
      */
-    default Card findByMaskedNumber(String fullCardNumber) {
-        String first4 = fullCardNumber.substring(0, 4);
-        String last4 = fullCardNumber.substring(12);
-        String maskPattern = first4 + "%" + last4;
-        return findByMaskNumberLike(maskPattern);
-    }
+    @Modifying
+    @Query("update Card c set c.balance = c.balance + :amount, c.updatedAt = local datetime where c.id = :id")
+    int creditBalance(@Param("id") Long id, @Param("amount") Integer amount);
 
     /**
-     * Находит карту по частичному совпадению маскированного номера.
-     * Используется внутренне методом findByMaskedNumber.
-     *
-     * @param maskPattern шаблон для поиска (например, "4444%5555")
-     * @return найденная карта или null, если не найдена
+     * Переводит в статус EXPIRED очередную порцию активных карт с истекшим сроком действия одним UPDATE.
+     * Порция выбирается по частичному индексу активных карт, поэтому затрагиваются только просроченные карты.
+     * Каждая порция выполняется в отдельной транзакции.
+     * @param today текущая дата
+     * @param chunkSize максимальное количество карт в порции
+     * @return количество обновленных карт, меньше {@code chunkSize} - если просроченных карт не осталось
      */
-    Card findByMaskNumberLike(String maskPattern);
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE {h-schema}cards "
+            + "SET status = 'EXPIRED', updated_at = CURRENT_TIMESTAMP "
+            + "WHERE id IN (SELECT id FROM {h-schema}cards "
+            + "WHERE status = 'ACTIVE' AND expiration_date < :today "
+            + "ORDER BY expiration_date LIMIT :chunkSize)", nativeQuery = true)
+    int expireCards(@Param("today") LocalDate today, @Param("chunkSize") int chunkSize);
 }
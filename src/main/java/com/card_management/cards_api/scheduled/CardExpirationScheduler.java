@@ -1,38 +1,37 @@
 package com.card_management.cards_api.scheduled;
 
-import com.card_management.cards_api.enumeration.CardStatus;
-import com.card_management.cards_api.model.Card;
 import com.card_management.cards_api.repository.CardRepository;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.scheduling.annotation.Scheduled;
 
-import java.time.YearMonth;
-import java.util.List;
+import java.time.LocalDate;
 
+/**
+ * Переводит карты с истекшим сроком действия в статус EXPIRED.
+ * Обновление выполняется порциями и затрагивает только просроченные карты.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class CardExpirationScheduler {
+
+    private static final int CHUNK_SIZE = 10_000;
+
     private final CardRepository cardRepository;
 
     @Scheduled(cron = "0 0 4 * * ?")
-    @Transactional
     public void checkAndUpdateExpiredCards() {
-        List<Card> activeCards = cardRepository.findByStatus(CardStatus.ACTIVE);
-
-        activeCards.stream()
-                .filter(card -> isExpired(card))
-                .forEach(card -> {
-                    card.setStatus(CardStatus.EXPIRED);
-                    cardRepository.save(card);
-                });
-    }
-
-    private boolean isExpired(Card card) {
-        YearMonth currentYearMonth = YearMonth.now();
-        int fullYear = 2000 + card.getValidityPeriodYear();
-        YearMonth cardYearMonth = YearMonth.of(fullYear, card.getValidityPeriodMonth());
-        return cardYearMonth.isBefore(currentYearMonth);
+        var startedAt = System.nanoTime();
+        var today = LocalDate.now();
+        var total = 0;
+        int updated;
+        do {
+            updated = cardRepository.expireCards(today, CHUNK_SIZE);
+            total += updated;
+        } while (updated == CHUNK_SIZE);
+        log.info("Просроченные карты переведены в статус EXPIRED: {} карт за {} мс",
+                total, (System.nanoTime() - startedAt) / 1_000_000);
     }
 }
@@ -0,0 +1,76 @@
+package com.card_management.cards_api.scheduled;
+
+import com.card_management.application.configuration.AppConfig;
+import com.card_management.cards_api.model.Card;
+import com.card_management.cards_api.repository.CardRepository;
+import com.card_management.technical.util.CardFingerprintGenerator;
+import com.card_management.technical.util.factory.CardEncryptorFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+/**
+ * Заполняет отпечатки номеров для карт, созданных до появления колонки number_fingerprint.
+ * Выполняется один раз при старте приложения; после заполнения всех карт сводится к одному запросу.
+ * Карта, номер которой совпал с уже зарегистрированной картой, помечается как конфликтная
+ * и при следующих запусках не перебирается.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CardFingerprintBackfill {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final CardRepository cardRepository;
+
+    private final CardEncryptorFactory cardEncryptorFactory;
+
+    private final CardFingerprintGenerator cardFingerprintGenerator;
+
+    private final AppConfig appConfig;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillNumberFingerprints() {
+        var lastId = 0L;
+        var updated = 0;
+        var chunk = nextChunk(lastId);
+        while (chunk.hasContent()) {
+            for (var card : chunk) {
+                lastId = card.getId();
+                if (fillFingerprint(card)) {
+                    updated++;
+                }
+            }
+            chunk = nextChunk(lastId);
+        }
+        if (updated > 0) {
+            log.info("Заполнены отпечатки номеров для {} карт", updated);
+        }
+    }
+
+    private Slice<Card> nextChunk(long lastId) {
+        return cardRepository.findByNumberFingerprintIsNullAndFingerprintConflictFalseAndIdGreaterThanOrderByIdAsc(
+                lastId, PageRequest.of(0, CHUNK_SIZE));
+    }
+
+    private boolean fillFingerprint(Card card) {
+        var encryptor = cardEncryptorFactory.create(appConfig.getPassword(), card.getSaltNumberCard());
+        var cardNumber = encryptor.decryptCardNumber(card.getEncryptedCardNumber());
+        card.setNumberFingerprint(cardFingerprintGenerator.generate(cardNumber));
+        try {
+            cardRepository.save(card);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Карта с ID {} дублирует номер уже зарегистрированной карты {}, карта помечена как конфликтная",
+                    card.getId(), card.getMaskNumber());
+            cardRepository.markFingerprintConflict(card.getId());
+            return false;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.card_management.cards_api.service;
 import com.card_management.application.configuration.AppConfig;
 import com.card_management.cards_api.dto.*;
 import com.card_management.cards_api.enumeration.CardStatus;
+import com.card_management.cards_api.exception.AmbiguousCardException;
 import com.card_management.cards_api.exception.BlockedCardException;
 import com.card_management.cards_api.exception.DuplicateCardException;
 import com.card_management.cards_api.mapper.CardMapper;
@@ -10,19 +11,34 @@ import com.card_management.cards_api.model.Card;
 import com.card_management.cards_api.repository.CardRepository;
 import com.card_management.cards_api.specification.CardSpecifications;
 import com.card_management.controllers.common.CardValidator;
+import com.card_management.ledger_api.service.LedgerService;
+import com.card_management.technical.enumeration.ExportFormat;
+import com.card_management.technical.enumeration.TotalsMode;
 import com.card_management.technical.exception.ResourceNotFoundException;
+import com.card_management.technical.util.CardFingerprintGenerator;
+import com.card_management.technical.util.CardUtils;
+import com.card_management.technical.util.DataExporter;
+import com.card_management.technical.util.DtoProjector;
+import com.card_management.technical.util.KeysetUtils;
+import com.card_management.technical.util.TotalsCounter;
 import com.card_management.technical.util.factory.CardEncryptorFactory;
 import com.card_management.users_api.repository.UserRepository;
 import com.card_management.users_api.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.security.crypto.keygen.KeyGenerators;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.card_management.technical.util.PaginationUtils.createPageable;
 
@@ -45,15 +61,37 @@ public class CardService {
 
     private final CardValidator cardValidator;
 
-    public CardEnvelopDto getCards(int page, int size, String sort) {
+    private final CardFingerprintGenerator cardFingerprintGenerator;
+
+    private final TotalsCounter totalsCounter;
+
+    private final DataExporter dataExporter;
+
+    private final LedgerService ledgerService;
+
+    private final DtoProjector dtoProjector;
+
+    @Transactional(readOnly = true)
+    public CardEnvelopDto getCards(int page, int size, String sort, String after, String totals) {
         cardValidator.validSortFields(sort);
+        var totalsMode = TotalsMode.of(totals);
         var pageRequest = PageRequest.of(page -1, size, Sort.by(sort));
-        var cardPage = cardRepository.findAll(pageRequest);
-        var cardDto = cardPage.stream()
-                .map(cardMapper::map)
-                .toList();
+        if (after != null) {
+            return findCardsAfter(null, after, pageRequest);
+        }
+        if (totalsMode != TotalsMode.EXACT) {
+            return findCardsSlice(null, null, null, pageRequest, totalsMode);
+        }
+        var cardPage = dtoProjector.findPage(
+                Card.class,
+                null,
+                pageRequest,
+                CardDto.class,
+                CardMapper::dtoColumns,
+                cardRepository::count
+        );
         return new CardEnvelopDto(
-                cardDto,
+                cardPage.getContent(),
                 cardPage.getTotalElements(),
                 cardPage.getTotalPages()
         );
@@ -70,14 +108,22 @@ public class CardService {
         userRepository.findById(cardDto.getOwnerId())
                 .orElseThrow(() -> new ResourceNotFoundException("Пользователь с ID " + cardDto.getOwnerId()
                         + " не найден"));
-        checkDuplicateCard(cardDto.getCardNumber());
+        var fingerprint = cardFingerprintGenerator.generate(cardDto.getCardNumber());
+        checkDuplicateCard(fingerprint);
         var card = cardMapper.map(cardDto);
-        var salt = KeyGenerators.string().generateKey();
+        card.setNumberFingerprint(fingerprint);
+        var salt = appConfig.getKeySalt();
         var encryptor = cardEncryptorFactory.create(appConfig.getPassword(), salt);
         var encryptedNumber = encryptor.encryptCardNumber(cardDto.getCardNumber());
         card.setEncryptedCardNumber(encryptedNumber);
         card.setSaltNumberCard(salt);
-        cardRepository.save(card);
+        try {
+            cardRepository.save(card);
+        } catch (DataIntegrityViolationException e) {
+            // такую же карту успели зарегистрировать параллельно после проверки отпечатка
+            throw new DuplicateCardException("Карта зарегистрирована в системе. Номер: " + card.getMaskNumber());
+        }
+        ledgerService.openSnapshot(card);
         return cardMapper.map(card);
     }
 
@@ -88,16 +134,24 @@ public class CardService {
     }
 
     public void setCardStatus(Long userId, String cardLastFourDigits, String status) {
-        var userCard = cardRepository.findByOwnerId(userId)
-                .stream()
-                .filter(card -> getCardLastFourDigits(card).equals(cardLastFourDigits))
-                .findFirst()
-                .orElseThrow(() -> new ResourceNotFoundException("Карта с последними четырьмя цифрами "
-                        + cardLastFourDigits + " не найдена."));
+        var userCard = findUserCardByLastFourDigits(userId, cardLastFourDigits);
         userCard.setStatus(CardStatus.valueOf(status));
         cardRepository.save(userCard);
     }
 
+    public Card findUserCardByLastFourDigits(Long userId, String cardLastFourDigits) {
+        var cards = cardRepository.findTop2ByOwnerIdAndLastFourDigitsOrderByIdAsc(userId, cardLastFourDigits);
+        if (cards.isEmpty()) {
+            throw new ResourceNotFoundException("Карта с последними четырьмя цифрами "
+                    + cardLastFourDigits + " не найдена.");
+        }
+        if (cards.size() > 1) {
+            throw new AmbiguousCardException("У пользователя несколько карт с последними четырьмя цифрами "
+                    + cardLastFourDigits + ", укажите карту однозначно.");
+        }
+        return cards.get(0);
+    }
+
     public CardEnvelopDto filterCardsForAdmin(CardAdminFilterDto adminFilterDto) {
         if (adminFilterDto.getOwnerId() == null) {
             return filterCards(adminFilterDto.getCardFilterDto(), null);
@@ -106,6 +160,7 @@ public class CardService {
         return filterCards(adminFilterDto.getCardFilterDto(), user.getId());
     }
 
+    @Transactional(readOnly = true)
     public CardEnvelopDto filterCards(CardFilterDto filterDto, Long ownerId) {
         var pageable = createPageable(
                 filterDto,
@@ -116,37 +171,119 @@ public class CardService {
                 "balance",
                 "DESC"
         );
-        var cardPage = cardRepository.findAll(
-                CardSpecifications.withFilter(filterDto, ownerId), pageable
+        var totalsMode = TotalsMode.of(filterDto.getTotals());
+        if (filterDto.getAfter() != null) {
+            return findCardsAfter(CardSpecifications.withFilter(filterDto, ownerId), filterDto.getAfter(), pageable);
+        }
+        if (totalsMode != TotalsMode.EXACT) {
+            return findCardsSlice(
+                    CardSpecifications.withFilter(filterDto, ownerId), filterDto, ownerId, pageable, totalsMode);
+        }
+        var filter = CardSpecifications.withFilter(filterDto, ownerId);
+        var cardPage = dtoProjector.findPage(
+                Card.class,
+                filter,
+                pageable,
+                CardDto.class,
+                CardMapper::dtoColumns,
+                () -> cardRepository.count(filter)
         );
-        var cardDtoList = cardPage.stream()
-                .map(cardMapper::map)
-                .toList();
         return new CardEnvelopDto(
-                cardDtoList,
+                cardPage.getContent(),
                 cardPage.getTotalElements(),
                 cardPage.getTotalPages()
         );
     }
 
-    private void checkDuplicateCard(String numberCard) {
-        var duplicateMaybe = cardRepository.findByMaskedNumber(numberCard);
-        if (duplicateMaybe != null) {
-            var fullNumberDuplicateCard = decryptCardNumber(duplicateMaybe);
-            if (fullNumberDuplicateCard.equals(numberCard)) {
-                throw new DuplicateCardException("Карта зарегистрирована в системе. Номер: "
-                        + duplicateMaybe.getMaskNumber());
-            }
+    public StreamingResponseBody exportCardsForAdmin(CardAdminFilterDto adminFilterDto, ExportFormat format) {
+        if (adminFilterDto.getOwnerId() == null) {
+            return exportCards(adminFilterDto.getCardFilterDto(), null, format);
         }
+        var user = userService.findById(adminFilterDto.getOwnerId());
+        return exportCards(adminFilterDto.getCardFilterDto(), user.getId(), format);
+    }
+
+    /**
+     * Потоковая выгрузка всех карт, подходящих под фильтр, одним запросом.
+     * Параметры страницы из фильтра не учитываются, сортировка по умолчанию - по ID.
+     * @param filterDto фильтр карт
+     * @param ownerId ID владельца, {@code null} - карты всех пользователей
+     * @param format формат выгрузки
+     * @return тело ответа с выгрузкой
+     */
+    public StreamingResponseBody exportCards(CardFilterDto filterDto, Long ownerId, ExportFormat format) {
+        var sort = createPageable(
+                filterDto,
+                CardFilterDto::getSortBy,
+                CardFilterDto::getSortDirection,
+                CardFilterDto::getPage,
+                CardFilterDto::getSize,
+                "id",
+                "ASC"
+        ).getSort();
+        return dataExporter.export(
+                Card.class,
+                CardSpecifications.withFilter(filterDto, ownerId),
+                sort,
+                cardMapper::map,
+                CardDto.class,
+                format,
+                CardMapper.DTO_FETCHES
+        );
+    }
+
+    private CardEnvelopDto findCardsAfter(Specification<Card> filter, String after, Pageable pageable) {
+        var cardPage = KeysetUtils.findPage(cardRepository, filter, after, pageable, CardMapper.DTO_FETCHES);
+        var cardDtoList = cardPage.content().stream()
+                .map(cardMapper::map)
+                .toList();
+        return new CardEnvelopDto(cardDtoList, null, null, cardPage.nextCursor(), null);
+    }
+
+    private CardEnvelopDto findCardsSlice(
+            Specification<Card> filter,
+            CardFilterDto filterDto,
+            Long ownerId,
+            Pageable pageable,
+            TotalsMode totalsMode
+    ) {
+        var cardSlice = dtoProjector.findSlice(Card.class, filter, pageable, CardDto.class, CardMapper::dtoColumns);
+        var total = totalsCounter.count(totalsMode, "cards", filterDto, ownerId, () -> cardRepository.count(filter));
+        return new CardEnvelopDto(
+                cardSlice.getContent(),
+                total,
+                TotalsCounter.totalPages(total, pageable.getPageSize()),
+                null,
+                cardSlice.hasNext()
+        );
+    }
+
+    public CardDto findByNumber(String numberCard) {
+        var card = cardRepository.findByNumberFingerprint(cardFingerprintGenerator.generate(numberCard))
+                .orElseThrow(() -> new ResourceNotFoundException("Карта с номером "
+                        + CardUtils.maskCardNumber(numberCard) + " не найдена"));
+        return cardMapper.map(card);
+    }
+
+    private void checkDuplicateCard(String fingerprint) {
+        cardRepository.findByNumberFingerprint(fingerprint)
+                .ifPresent(duplicate -> {
+                    throw new DuplicateCardException("Карта зарегистрирована в системе. Номер: "
+                            + duplicate.getMaskNumber());
+                });
     }
 
+    @Transactional(readOnly = true)
     public List<CardDto> getUserCards(Long userId) {
         userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Пользователь с ID " + userId + " не найден"));
-        var listCards = cardRepository.findByOwnerId(userId);
-        return listCards.stream()
-                .map(cardMapper::map)
-                .toList();
+        return dtoProjector.findAll(
+                Card.class,
+                CardSpecifications.byOwner(userId),
+                Sort.unsorted(),
+                CardDto.class,
+                CardMapper::dtoColumns
+        );
     }
 
     public void setBlockedStatusForCard(Long userId, String cardLastFourDigits) {
@@ -154,17 +291,40 @@ public class CardService {
     }
 
     public Card findMatchByNumberCard(String numberCard, Long userId) {
-        return cardRepository.findByOwnerId(userId)
-                .stream()
-                .filter(card -> decryptCardNumber(card).equals(numberCard))
-                .findFirst()
+        return cardRepository.findByNumberFingerprintAndOwnerId(cardFingerprintGenerator.generate(numberCard), userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Карта с номером " + numberCard
                 + " не принадлежит пользователю с ID " + userId));
     }
 
-    private String decryptCardNumber(Card card) {
-        var decoder = cardEncryptorFactory.create(appConfig.getPassword(), card.getSaltNumberCard());
-        return decoder.decryptCardNumber(card.getEncryptedCardNumber());
+    /**
+     * Находит карты пользователя по номерам одним запросом и блокирует их до конца транзакции
+     * @param numbers номера карт
+     * @param userId ID пользователя
+     * @return карты по номерам, номера чужих и несуществующих карт отсутствуют
+     */
+    public Map<String, Card> lockUserCardsByNumbers(Collection<String> numbers, Long userId) {
+        var numbersByFingerprint = new HashMap<String, String>();
+        numbers.forEach(number -> numbersByFingerprint.put(cardFingerprintGenerator.generate(number), number));
+        var cards = new HashMap<String, Card>();
+        cardRepository.lockByOwnerIdAndNumberFingerprints(userId, numbersByFingerprint.keySet())
+                .forEach(card -> cards.put(numbersByFingerprint.get(card.getNumberFingerprint()), card));
+        return cards;
+    }
+
+    /**
+     * Атомарно списывает сумму с карты
+     * @return false, если средств на карте недостаточно
+     */
+    public boolean debitBalance(Card card, Integer amount) {
+        return cardRepository.debitBalance(card.getId(), amount) > 0;
+    }
+
+    /**
+     * Атомарно зачисляет сумму на карту
+     * @return false, если карта уже удалена
+     */
+    public boolean creditBalance(Card card, Integer amount) {
+        return cardRepository.creditBalance(card.getId(), amount) > 0;
     }
 
     public void checkCardStatus(Card card) {
@@ -173,12 +333,4 @@ public class CardService {
                     + " Номер карты: " + card.getMaskNumber());
         }
     }
-
-    public String getCardLastFourDigits(Card card) {
-        var maskedNumberCard = card.getMaskNumber();
-        if (maskedNumberCard == null) {
-            throw new RuntimeException("Отсутствует номер карты");
-        }
-        return maskedNumberCard.substring(maskedNumberCard.length() - 4);
-    }
 }
@@ -26,9 +26,9 @@ public class CardSpecifications {
             }
 
             if (filter.getMaskNumberLastFour() != null) {
-                predicates.add(criteriaBuilder.like(
-                        root.get("maskNumber"),
-                        "%" + filter.getMaskNumberLastFour()
+                predicates.add(criteriaBuilder.equal(
+                        root.get("lastFourDigits"),
+                        filter.getMaskNumberLastFour()
                 ));
             }
 
@@ -138,4 +138,11 @@ public class CardSpecifications {
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    public static Specification<Card> byOwner(Long ownerId) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.equal(
+                root.get("owner").get("id"),
+                ownerId
+        );
+    }
 }
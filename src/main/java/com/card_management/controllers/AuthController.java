@@ -4,6 +4,7 @@ import com.card_management.technical.exception.record.ErrorResponse;
 import com.card_management.technical.util.JwtUtil;
 import com.card_management.users_api.dto.AuthRequest;
 import com.card_management.users_api.dto.UserCreateDto;
+import com.card_management.users_api.security.LoginThrottle;
 import com.card_management.users_api.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,6 +13,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -30,6 +32,7 @@ public class AuthController {
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
     private final UserService userService;
+    private final LoginThrottle loginThrottle;
 
     @Operation(
             summary = "Регистрация нового пользователя",
@@ -42,14 +45,18 @@ public class AuthController {
                             example = "Пользователь с Email user@example.com зарегистрирован."))
             ),
             @ApiResponse(responseCode = "400", description = "Ошибка валидации или дубликат email",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "429", description = "Слишком много запросов или сервис перегружен",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     @PostMapping("/register")
     @ResponseStatus(HttpStatus.CREATED)
     public ResponseEntity<String> register(
             @Parameter(description = "Данные для создания пользователя", required = true)
-            @Valid @RequestBody UserCreateDto userDto
+            @Valid @RequestBody UserCreateDto userDto,
+            @Parameter(hidden = true) HttpServletRequest httpRequest
     ) {
+        loginThrottle.acquireIp(httpRequest.getRemoteAddr());
         var user = userService.create(userDto);
         return ResponseEntity
                 .status(HttpStatus.CREATED)
@@ -66,13 +73,17 @@ public class AuthController {
             @ApiResponse(responseCode = "400", description = "Ошибка валидации",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "403", description = "Неверные учетные данные",
-                    content = @Content(schema = @Schema(hidden = true)))
+                    content = @Content(schema = @Schema(hidden = true))),
+            @ApiResponse(responseCode = "429", description = "Слишком много попыток входа или сервис перегружен",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     @PostMapping("/login")
     public ResponseEntity<String> login(
             @Parameter(description = "Учетные данные пользователя", required = true)
-            @Valid @RequestBody AuthRequest request
+            @Valid @RequestBody AuthRequest request,
+            @Parameter(hidden = true) HttpServletRequest httpRequest
     ) {
+        loginThrottle.acquireLogin(request.getEmail(), httpRequest.getRemoteAddr());
         var authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
         var token = jwtUtil.generateToken((UserDetails) authentication.getPrincipal());
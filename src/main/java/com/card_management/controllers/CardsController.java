@@ -3,6 +3,7 @@ package com.card_management.controllers;
 import com.card_management.cards_api.dto.*;
 import com.card_management.cards_api.service.CardService;
 import com.card_management.controllers.common.CardValidator;
+import com.card_management.technical.enumeration.ExportFormat;
 import com.card_management.technical.exception.record.ErrorResponse;
 import com.card_management.users_api.security.CustomUserDetails;
 import io.swagger.v3.oas.annotations.Operation;
@@ -17,12 +18,15 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -53,9 +57,14 @@ public class CardsController {
     public ResponseEntity<CardEnvelopDto> getCards(
             @Parameter(description = "Номер страницы", example = "1") @RequestParam(defaultValue = "1") int page,
             @Parameter(description = "Размер страницы", example = "10") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Поле сортировки", example = "id") @RequestParam(defaultValue = "id") String sort
+            @Parameter(description = "Поле сортировки", example = "id") @RequestParam(defaultValue = "id") String sort,
+            @Parameter(description = "Курсор следующей страницы (режим курсора, page не учитывается), "
+                    + "пустое значение - первая страница")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Режим подсчета общего количества: EXACT, ESTIMATED или NONE", example = "EXACT")
+            @RequestParam(defaultValue = "EXACT") String totals
     ) {
-        CardEnvelopDto cardEnvelopDto = cardService.getCards(page, size, sort);
+        CardEnvelopDto cardEnvelopDto = cardService.getCards(page, size, sort, after, totals);
         return ResponseEntity.ok(cardEnvelopDto);
     }
 
@@ -81,6 +90,29 @@ public class CardsController {
         return ResponseEntity.ok(card);
     }
 
+    @Operation(
+            summary = "Найти карту по номеру",
+            description = "Возвращает карту по её полному номеру. Только для ADMIN.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Карта найдена",
+                    content = @Content(schema = @Schema(implementation = CardDto.class))),
+            @ApiResponse(responseCode = "400", description = "Ошибка валидации",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Карта не найдена",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+                    content = @Content(schema = @Schema(hidden = true)))
+    })
+    @PostMapping(path = "/findByNumber")
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CardDto> findByNumber(@Valid @RequestBody CardNumberDto cardNumberDto) {
+        var card = cardService.findByNumber(cardNumberDto.getCardNumber());
+        return ResponseEntity.ok(card);
+    }
+
     @Operation(
             summary = "Создать новую карту",
             description = "Создает карту. Только для ADMIN.",
@@ -236,6 +268,37 @@ public class CardsController {
         return ResponseEntity.ok(cards);
     }
 
+    @Operation(
+            summary = "Выгрузка карт (ADMIN)",
+            description = "Потоково выгружает все карты, подходящие под фильтр, в формате NDJSON или CSV. "
+                    + "Параметры страницы из фильтра не учитываются. Только для ADMIN.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Выгрузка сформирована",
+                    content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")}),
+            @ApiResponse(responseCode = "400", description = "Ошибка валидации",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+                    content = @Content(schema = @Schema(hidden = true)))
+    })
+    @PostMapping(path = "/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportCards(
+            @Valid @RequestBody CardAdminFilterDto filterDto,
+            @Parameter(description = "Формат выгрузки: NDJSON или CSV", example = "NDJSON")
+            @RequestParam(defaultValue = "NDJSON") String format
+    ) {
+        cardValidator.validateFilterCard(filterDto.getCardFilterDto());
+        var exportFormat = ExportFormat.of(format);
+        var body = cardService.exportCardsForAdmin(filterDto, exportFormat);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=cards." + exportFormat.getExtension())
+                .body(body);
+    }
+
     @Operation(
             summary = "Фильтрация моих карт",
             description = "Фильтрует карты текущего пользователя по заданным параметрам. Только для USER.",
@@ -63,9 +63,16 @@ public class LimitsController {
             @RequestParam(defaultValue = "10") int size,
 
             @Parameter(description = "Поле для сортировки", example = "id")
-            @RequestParam(defaultValue = "id") String sort
+            @RequestParam(defaultValue = "id") String sort,
+
+            @Parameter(description = "Курсор следующей страницы (режим курсора, page не учитывается), "
+                    + "пустое значение - первая страница")
+            @RequestParam(required = false) String after,
+
+            @Parameter(description = "Режим подсчета общего количества: EXACT, ESTIMATED или NONE", example = "EXACT")
+            @RequestParam(defaultValue = "EXACT") String totals
     ) {
-        LimitEnvelopDto limitEnvelopDto = limitService.getLimits(page, size, sort);
+        LimitEnvelopDto limitEnvelopDto = limitService.getLimits(page, size, sort, after, totals);
         return ResponseEntity.ok(limitEnvelopDto);
     }
 
@@ -1,8 +1,13 @@
 package com.card_management.controllers;
 
 import com.card_management.controllers.common.TransactionValidator;
+import com.card_management.ledger_api.dto.CardBalanceDto;
+import com.card_management.technical.enumeration.ExportFormat;
 import com.card_management.technical.exception.record.ErrorResponse;
 import com.card_management.transaction_api.dto.*;
+import com.card_management.transaction_api.service.TransactionBatchService;
+import com.card_management.transaction_api.service.TransactionIdempotencyService;
+import com.card_management.transaction_api.service.TransactionJournalService;
 import com.card_management.transaction_api.service.TransactionService;
 import com.card_management.users_api.security.CustomUserDetails;
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,14 +19,23 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
 
 @RestController
 @Validated
@@ -31,6 +45,13 @@ import org.springframework.web.bind.annotation.*;
 public class TransactionsController {
 
     private final TransactionService transactionService;
+
+    private final TransactionIdempotencyService transactionIdempotencyService;
+
+    private final TransactionBatchService transactionBatchService;
+
+    private final TransactionJournalService transactionJournalService;
+
     private final TransactionValidator transactionValidator;
 
     @Operation(
@@ -50,9 +71,15 @@ public class TransactionsController {
     public ResponseEntity<TransactionEnvelopDto> getTransactions(
             @Parameter(description = "Номер страницы", example = "1") @RequestParam(defaultValue = "1") int page,
             @Parameter(description = "Размер страницы", example = "10") @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Поле сортировки", example = "id") @RequestParam(defaultValue = "id") String sort
+            @Parameter(description = "Поле сортировки", example = "id") @RequestParam(defaultValue = "id") String sort,
+            @Parameter(description = "Курсор следующей страницы (режим курсора, page не учитывается), "
+                    + "пустое значение - первая страница")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Режим подсчета общего количества: EXACT, ESTIMATED или NONE", example = "EXACT")
+            @RequestParam(defaultValue = "EXACT") String totals
     ) {
-        TransactionEnvelopDto transactionEnvelopDto = transactionService.getTransactions(page, size, sort);
+        TransactionEnvelopDto transactionEnvelopDto =
+                transactionService.getTransactions(page, size, sort, after, totals);
         return ResponseEntity.ok(transactionEnvelopDto);
     }
 
@@ -112,6 +139,9 @@ public class TransactionsController {
                     content = @Content(schema = @Schema(implementation = TransactionDto.class))),
             @ApiResponse(responseCode = "400", description = "Ошибка валидации",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "422",
+                    description = "Ключ идемпотентности уже использован для запроса с другими параметрами",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "403", description = "Доступ запрещен",
                     content = @Content(schema = @Schema(hidden = true)))
     })
@@ -120,13 +150,95 @@ public class TransactionsController {
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<TransactionDto> create(
             @Parameter(hidden = true) @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Parameter(description = "Ключ идемпотентности: повтор запроса с тем же ключом "
+                    + "возвращает исходную транзакцию", example = "3f1c2b9e-6a7d-4f1e-9c1a-2b7d5e8f0a12")
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody TransactionCreateDto transactionData
     ) {
         transactionValidator.validateCreateTransaction(transactionData);
-        var transaction = transactionService.create(transactionData, userDetails.getId());
+        var transaction = transactionIdempotencyService.create(
+                transactionData, userDetails.getId(), idempotencyKey);
         return ResponseEntity.status(HttpStatus.CREATED).body(transaction);
     }
 
+    @Operation(
+            summary = "Создать пакет транзакций",
+            description = "Создает до 1000 транзакций в одной транзакции БД. Операции, не прошедшие проверки, "
+                    + "отклоняются по отдельности, результат возвращается по каждой операции. Только для USER.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Пакет обработан",
+                    content = @Content(schema = @Schema(implementation = TransactionBatchResultDto.class))),
+            @ApiResponse(responseCode = "400", description = "Ошибка валидации",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+                    content = @Content(schema = @Schema(hidden = true)))
+    })
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<TransactionBatchResultDto> createBatch(
+            @Parameter(hidden = true) @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Valid @RequestBody TransactionBatchCreateDto batchData
+    ) {
+        var result = transactionBatchService.createBatch(batchData.getTransactions(), userDetails.getId());
+        return ResponseEntity.ok(result);
+    }
+
+    @Operation(
+            summary = "Принять транзакцию на асинхронное создание",
+            description = "Записывает транзакцию в журнал и подтверждает прием после сброса журнала на диск. "
+                    + "Проверки баланса и лимитов выполняются при применении к БД, результат доступен "
+                    + "по UUID транзакции. Только для USER.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Транзакция принята",
+                    content = @Content(schema = @Schema(implementation = TransactionJournalStatusDto.class))),
+            @ApiResponse(responseCode = "400", description = "Ошибка валидации",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "429", description = "Журнал переполнен, повторите запрос позже",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+                    content = @Content(schema = @Schema(hidden = true)))
+    })
+    @PostMapping("/async")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<TransactionJournalStatusDto> submit(
+            @Parameter(hidden = true) @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Valid @RequestBody TransactionCreateDto transactionData
+    ) {
+        transactionValidator.validateCreateTransaction(transactionData);
+        var status = transactionJournalService.submit(transactionData, userDetails.getId());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+    }
+
+    @Operation(
+            summary = "Получить состояние асинхронной транзакции",
+            description = "Возвращает состояние транзакции, принятой на асинхронное создание: "
+                    + "ожидает применения, создана или отклонена. Только для USER.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Состояние транзакции получено",
+                    content = @Content(schema = @Schema(implementation = TransactionJournalStatusDto.class))),
+            @ApiResponse(responseCode = "404", description = "Транзакция не найдена",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+                    content = @Content(schema = @Schema(hidden = true)))
+    })
+    @GetMapping("/async/{uuid}")
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<TransactionJournalStatusDto> getAsyncStatus(
+            @Parameter(hidden = true) @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Parameter(description = "UUID транзакции") @PathVariable UUID uuid
+    ) {
+        return ResponseEntity.ok(transactionJournalService.getStatus(uuid, userDetails.getId()));
+    }
+
     @Operation(
             summary = "Удалить транзакцию",
             description = "Удаляет транзакцию по ID. Только для ADMIN.",
@@ -238,6 +350,82 @@ public class TransactionsController {
         return ResponseEntity.ok(transactionEnvelopDto);
     }
 
+    @Operation(
+            summary = "Получить баланс карты на момент времени (для текущего пользователя)",
+            description = "Возвращает баланс карты по последним 4 цифрам на указанный момент, рассчитанный "
+                    + "по ближайшему снимку баланса и проводкам после него. Только для USER.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Баланс получен",
+                    content = @Content(schema = @Schema(implementation = CardBalanceDto.class))),
+            @ApiResponse(responseCode = "400", description = "Ошибка валидации",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Карта не найдена или баланс на момент недоступен",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+                    content = @Content(schema = @Schema(hidden = true)))
+    })
+    @GetMapping("/my/byCard/{cardLastFourDigits}/balance")
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<CardBalanceDto> getUserCardBalance(
+            @Parameter(hidden = true) @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Parameter(description = "Последние 4 цифры карты", example = "1234")
+            @PathVariable
+            @Pattern(regexp = "\\d{4}", message = "Введите последние четыре цифры карты.")
+            String cardLastFourDigits,
+            @Parameter(description = "Момент времени, по умолчанию - текущий", example = "2026-10-18T12:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at
+    ) {
+        return ResponseEntity.ok(transactionService.getUserCardBalanceAt(userDetails.getId(), cardLastFourDigits, at));
+    }
+
+    @Operation(
+            summary = "История операций по карте (для текущего пользователя)",
+            description = "Возвращает входящие и исходящие транзакции карты от новых к старым. "
+                    + "Следующая страница запрашивается по курсору nextCursor. Только для USER.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "История получена",
+                    content = @Content(schema = @Schema(implementation = TransactionHistoryDto.class))),
+            @ApiResponse(responseCode = "400", description = "Ошибка валидации",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+                    content = @Content(schema = @Schema(hidden = true))),
+            @ApiResponse(responseCode = "404", description = "Карта не найдена",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping("/my/byCard/{cardLastFourDigits}/history")
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<TransactionHistoryDto> getUserCardHistory(
+            @Parameter(hidden = true) @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Parameter(description = "Последние 4 цифры карты", example = "1234")
+            @PathVariable
+            @Pattern(regexp = "\\d{4}", message = "Введите последние четыре цифры карты.")
+            String cardLastFourDigits,
+            @Parameter(description = "Курсор следующей страницы из предыдущего ответа")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Размер страницы", example = "10")
+            @RequestParam(defaultValue = "10")
+            @Min(value = 1, message = "Размер страницы должен быть от 1 до 100.")
+            @Max(value = 100, message = "Размер страницы должен быть от 1 до 100.")
+            int size,
+            @Parameter(description = "Вернуть общее количество транзакций по карте", example = "false")
+            @RequestParam(defaultValue = "false") boolean withTotal
+    ) {
+        TransactionHistoryDto transactionHistoryDto = transactionService.getUserCardHistory(
+                userDetails.getId(),
+                cardLastFourDigits,
+                after,
+                size,
+                withTotal
+        );
+        return ResponseEntity.ok(transactionHistoryDto);
+    }
+
     @Operation(
             summary = "Фильтрация транзакций (для ADMIN)",
             description = "Фильтрует список транзакций по заданным параметрам. Только для ADMIN.",
@@ -262,6 +450,37 @@ public class TransactionsController {
         return ResponseEntity.ok(transactions);
     }
 
+    @Operation(
+            summary = "Выгрузка транзакций (ADMIN)",
+            description = "Потоково выгружает все транзакции, подходящие под фильтр, в формате NDJSON или CSV. "
+                    + "Параметры страницы из фильтра не учитываются. Только для ADMIN.",
+            security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Выгрузка сформирована",
+                    content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")}),
+            @ApiResponse(responseCode = "400", description = "Ошибка валидации",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен",
+                    content = @Content(schema = @Schema(hidden = true)))
+    })
+    @PostMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @Valid @RequestBody TransactionAdminFilterDto filterDto,
+            @Parameter(description = "Формат выгрузки: NDJSON или CSV", example = "NDJSON")
+            @RequestParam(defaultValue = "NDJSON") String format
+    ) {
+        transactionValidator.validateFilterTransaction(filterDto.getTransactionFilterDto());
+        var exportFormat = ExportFormat.of(format);
+        var body = transactionService.exportTransactionsForAdmin(filterDto, exportFormat);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=transactions." + exportFormat.getExtension())
+                .body(body);
+    }
+
     @Operation(
             summary = "Фильтрация транзакций текущего пользователя",
             description = "Фильтрует список транзакций текущего пользователя. Только для USER.",
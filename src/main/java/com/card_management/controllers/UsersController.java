@@ -45,9 +45,14 @@ public class UsersController {
     public ResponseEntity<UserEnvelopDto> index(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "id") String sort
+            @RequestParam(defaultValue = "id") String sort,
+            @Parameter(description = "Курсор следующей страницы (режим курсора, page не учитывается), "
+                    + "пустое значение - первая страница")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Режим подсчета общего количества: EXACT, ESTIMATED или NONE", example = "EXACT")
+            @RequestParam(defaultValue = "EXACT") String totals
     ) {
-        UserEnvelopDto userEnvelopDto = userService.getUsers(page, size, sort);
+        UserEnvelopDto userEnvelopDto = userService.getUsers(page, size, sort, after, totals);
         return ResponseEntity.ok(userEnvelopDto);
     }
 
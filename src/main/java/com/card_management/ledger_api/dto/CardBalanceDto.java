@@ -0,0 +1,24 @@
+package com.card_management.ledger_api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@Schema(description = "Баланс карты на момент времени")
+public class CardBalanceDto {
+
+    @Schema(description = "Маскированный номер карты", example = "4486****4030")
+    private String maskNumber;
+
+    @Schema(description = "Баланс карты", example = "3500")
+    private Integer balance;
+
+    @Schema(description = "Момент времени, на который рассчитан баланс", example = "2026-10-18T12:00:00")
+    private LocalDateTime at;
+}
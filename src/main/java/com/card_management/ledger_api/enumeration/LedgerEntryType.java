@@ -0,0 +1,18 @@
+package com.card_management.ledger_api.enumeration;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Сторона проводки по карте
+ */
+@Getter
+@RequiredArgsConstructor
+@Schema(enumAsRef = true, description = "Сторона проводки по карте")
+public enum LedgerEntryType {
+    DEBIT("Списание с карты"),
+    CREDIT("Зачисление на карту");
+
+    private final String description;
+}
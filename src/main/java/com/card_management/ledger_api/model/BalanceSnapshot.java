@@ -0,0 +1,59 @@
+package com.card_management.ledger_api.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Снимок баланса карты: баланс с учетом всех проводок карты до {@code lastEntryId} включительно
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "balance_snapshots")
+@NoArgsConstructor
+public class BalanceSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false, updatable = false, unique = true)
+    private Long id;
+
+    /**
+     * ID карты
+     */
+    @NotNull
+    @Column(name = "card_id", nullable = false, updatable = false)
+    private Long cardId;
+
+    /**
+     * Баланс карты на момент снимка
+     */
+    @NotNull
+    @Column(name = "balance", nullable = false, updatable = false)
+    private Integer balance;
+
+    /**
+     * ID последней проводки карты, учтенной в снимке, 0 - проводок еще не было
+     */
+    @NotNull
+    @Column(name = "last_entry_id", nullable = false, updatable = false)
+    private Long lastEntryId;
+
+    /**
+     * Дата и время снимка
+     */
+    @NotNull
+    @Column(name = "taken_at", nullable = false, updatable = false)
+    private LocalDateTime takenAt;
+
+    public BalanceSnapshot(Long cardId, Integer balance, Long lastEntryId, LocalDateTime takenAt) {
+        this.cardId = cardId;
+        this.balance = balance;
+        this.lastEntryId = lastEntryId;
+        this.takenAt = takenAt;
+    }
+}
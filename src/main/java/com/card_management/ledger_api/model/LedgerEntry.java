@@ -0,0 +1,71 @@
+package com.card_management.ledger_api.model;
+
+import com.card_management.ledger_api.enumeration.LedgerEntryType;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проводка по карте. Проводки только добавляются: каждая транзакция порождает списание с карты источника
+ * и, если есть карта получателя, зачисление на нее.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "ledger_entries")
+@NoArgsConstructor
+public class LedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false, updatable = false, unique = true)
+    private Long id;
+
+    /**
+     * ID транзакции, по которой сделана проводка
+     */
+    @NotNull
+    @Column(name = "transaction_id", nullable = false, updatable = false)
+    private Long transactionId;
+
+    /**
+     * ID карты
+     */
+    @NotNull
+    @Column(name = "card_id", nullable = false, updatable = false)
+    private Long cardId;
+
+    /**
+     * Сторона проводки
+     */
+    @NotNull
+    @Column(name = "entry_type", nullable = false, updatable = false)
+    @Enumerated(EnumType.STRING)
+    private LedgerEntryType entryType;
+
+    /**
+     * Сумма проводки, всегда положительная
+     */
+    @NotNull
+    @Column(name = "amount", nullable = false, updatable = false)
+    private Integer amount;
+
+    /**
+     * Дата и время проводки, совпадает с датой создания транзакции
+     */
+    @NotNull
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public LedgerEntry(Long transactionId, Long cardId, LedgerEntryType entryType, Integer amount,
+                       LocalDateTime createdAt) {
+        this.transactionId = transactionId;
+        this.cardId = cardId;
+        this.entryType = entryType;
+        this.amount = amount;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,25 @@
+package com.card_management.ledger_api.repository;
+
+import com.card_management.ledger_api.model.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Интерфейс-репозиторий для снимков балансов карт
+ */
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+    /**
+     * Последний снимок баланса карты, сделанный не позже указанного момента
+     * @param cardId ID карты
+     * @param takenAt момент времени
+     * @return снимок, если найден
+     */
+    Optional<BalanceSnapshot> findFirstByCardIdAndTakenAtLessThanEqualOrderByTakenAtDescIdDesc(
+            Long cardId,
+            LocalDateTime takenAt
+    );
+}
@@ -0,0 +1,60 @@
+package com.card_management.ledger_api.repository;
+
+import com.card_management.ledger_api.model.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Интерфейс-репозиторий для проводок по картам
+ */
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+    /**
+     * Изменение баланса карты по проводкам после снимка, сделанным не позже указанного момента.
+     * Читает только проводки после снимка по индексу (card_id, id)
+     * @param cardId ID карты
+     * @param afterId ID последней проводки, учтенной в снимке
+     * @param until момент, на который считается баланс
+     * @return сумма зачислений за вычетом списаний
+     */
+    @Query("select coalesce(sum(case when e.entryType = com.card_management.ledger_api.enumeration.LedgerEntryType.DEBIT "
+            + "then -e.amount else e.amount end), 0) from LedgerEntry e "
+            + "where e.cardId = :cardId and e.id > :afterId and e.createdAt <= :until")
+    long sumChanges(
+            @Param("cardId") Long cardId,
+            @Param("afterId") Long afterId,
+            @Param("until") LocalDateTime until
+    );
+
+    /**
+     * ID последней проводки карты
+     * @param cardId ID карты
+     * @return ID проводки, 0 - проводок нет
+     */
+    @Query("select coalesce(max(e.id), 0) from LedgerEntry e where e.cardId = :cardId")
+    long findLastIdByCardId(@Param("cardId") Long cardId);
+
+    /**
+     * Карты, по которым были проводки после последнего снимка этой карты, по возрастанию ID.
+     * Последняя проводка и последний снимок сравниваются для каждой карты отдельно по индексам
+     * (card_id, id) и (card_id, last_entry_id), поэтому карта не пропускается, если проводки разных карт
+     * фиксировались не в порядке ID или снимок другой карты учел более позднюю проводку
+     * @param afterCardId ID карты, после которой продолжается выборка
+     * @param limit максимальное количество карт
+     * @return ID карт
+     */
+    @Query(value = "SELECT c.id FROM {h-schema}cards c "
+            + "WHERE c.id > :afterCardId AND EXISTS (SELECT 1 FROM {h-schema}ledger_entries e "
+            + "WHERE e.card_id = c.id AND e.id > (SELECT COALESCE(MAX(s.last_entry_id), 0) "
+            + "FROM {h-schema}balance_snapshots s WHERE s.card_id = c.id)) "
+            + "ORDER BY c.id LIMIT :limit", nativeQuery = true)
+    List<Long> findCardIdsWithEntriesAfterSnapshot(
+            @Param("afterCardId") Long afterCardId,
+            @Param("limit") int limit
+    );
+}
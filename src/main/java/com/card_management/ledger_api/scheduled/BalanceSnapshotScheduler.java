@@ -0,0 +1,46 @@
+package com.card_management.ledger_api.scheduled;
+
+import com.card_management.ledger_api.repository.LedgerEntryRepository;
+import com.card_management.ledger_api.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Снимает балансы карт, по которым были проводки после последнего снимка карты,
+ * чтобы расчет баланса на дату читал не больше проводок, чем накапливается между запусками.
+ * Карты обрабатываются порциями, снимок каждой карты сохраняется в отдельной транзакции БД.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceSnapshotScheduler {
+
+    private static final int CHUNK_SIZE = 1_000;
+
+    private final LedgerService ledgerService;
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+
+    @Scheduled(cron = "0 15 * * * ?")
+    public void takeSnapshots() {
+        var startedAt = System.nanoTime();
+        var afterCardId = 0L;
+        var total = 0;
+        List<Long> cardIds;
+        do {
+            cardIds = ledgerEntryRepository.findCardIdsWithEntriesAfterSnapshot(afterCardId, CHUNK_SIZE);
+            for (var cardId : cardIds) {
+                if (ledgerService.takeSnapshot(cardId)) {
+                    total++;
+                }
+                afterCardId = cardId;
+            }
+        } while (cardIds.size() == CHUNK_SIZE);
+        log.info("Сохранены снимки балансов карт: {} карт за {} мс",
+                total, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+}
@@ -0,0 +1,148 @@
+package com.card_management.ledger_api.service;
+
+import com.card_management.cards_api.model.Card;
+import com.card_management.cards_api.repository.CardRepository;
+import com.card_management.ledger_api.enumeration.LedgerEntryType;
+import com.card_management.ledger_api.model.BalanceSnapshot;
+import com.card_management.ledger_api.model.LedgerEntry;
+import com.card_management.ledger_api.repository.BalanceSnapshotRepository;
+import com.card_management.ledger_api.repository.LedgerEntryRepository;
+import com.card_management.technical.exception.ResourceNotFoundException;
+import com.card_management.transaction_api.model.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Журнал проводок по картам и снимки балансов.
+ * Проводки пишутся в той же транзакции БД, что и изменение баланса карты, поэтому баланс карты
+ * на любой момент равен балансу ближайшего предыдущего снимка плюс проводки после него.
+ * Проводки не удаляются вместе с транзакцией: удаление транзакции не меняет балансы карт.
+ */
+@Service
+public class LedgerService {
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+
+    private final CardRepository cardRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String insertSql;
+
+    public LedgerService(
+            LedgerEntryRepository ledgerEntryRepository,
+            BalanceSnapshotRepository balanceSnapshotRepository,
+            CardRepository cardRepository,
+            JdbcTemplate jdbcTemplate,
+            @Value("${spring.jpa.properties.hibernate.default_schema:}") String schema
+    ) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.cardRepository = cardRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        var prefix = schema.isBlank() ? "" : schema + ".";
+        this.insertSql = "INSERT INTO " + prefix + "ledger_entries "
+                + "(transaction_id, card_id, entry_type, amount, created_at) "
+                + "SELECT id, ?, ?, ?, ? FROM " + prefix + "transactions WHERE uuid = ?";
+    }
+
+    /**
+     * Записывает проводки сохраненной транзакции в текущей транзакции БД
+     * @param transaction транзакция
+     */
+    public void record(Transaction transaction) {
+        ledgerEntryRepository.saveAll(entries(transaction).stream()
+                .map(row -> new LedgerEntry(
+                        transaction.getId(), row.cardId(), row.entryType(), row.amount(), row.createdAt()))
+                .toList());
+    }
+
+    /**
+     * Записывает проводки транзакций, вставленных пакетом JDBC без получения ID.
+     * Транзакции находятся по UUID
+     * @param transactions транзакции
+     * @param batchSize размер пакета JDBC
+     */
+    public void recordAll(List<Transaction> transactions, int batchSize) {
+        var rows = new ArrayList<EntryRow>();
+        transactions.forEach(transaction -> rows.addAll(entries(transaction)));
+        jdbcTemplate.batchUpdate(insertSql, rows, batchSize, (statement, row) -> {
+            statement.setLong(1, row.cardId());
+            statement.setString(2, row.entryType().name());
+            statement.setInt(3, row.amount());
+            statement.setTimestamp(4, Timestamp.valueOf(row.createdAt()));
+            statement.setObject(5, row.transactionUuid());
+        });
+    }
+
+    /**
+     * Сохраняет начальный снимок баланса новой карты
+     * @param card сохраненная карта
+     */
+    public void openSnapshot(Card card) {
+        var takenAt = card.getCreatedAt() != null ? card.getCreatedAt() : LocalDateTime.now();
+        balanceSnapshotRepository.save(new BalanceSnapshot(card.getId(), card.getBalance(), 0L, takenAt));
+    }
+
+    /**
+     * Сохраняет снимок текущего баланса карты. Строка карты блокируется,
+     * чтобы баланс и последняя учтенная проводка относились к одному моменту
+     * @param cardId ID карты
+     * @return false, если карта уже удалена
+     */
+    @Transactional
+    public boolean takeSnapshot(Long cardId) {
+        var balance = cardRepository.lockBalanceById(cardId);
+        if (balance.isEmpty()) {
+            return false;
+        }
+        var lastEntryId = ledgerEntryRepository.findLastIdByCardId(cardId);
+        balanceSnapshotRepository.save(new BalanceSnapshot(cardId, balance.get(), lastEntryId, LocalDateTime.now()));
+        return true;
+    }
+
+    /**
+     * Вычисляет баланс карты на указанный момент по ближайшему предыдущему снимку и проводкам после него
+     * @param card карта
+     * @param at момент времени
+     * @return баланс карты
+     */
+    public int getBalanceAt(Card card, LocalDateTime at) {
+        var snapshot = balanceSnapshotRepository
+                .findFirstByCardIdAndTakenAtLessThanEqualOrderByTakenAtDescIdDesc(card.getId(), at)
+                .orElseThrow(() -> new ResourceNotFoundException("Баланс карты " + card.getMaskNumber()
+                        + " на " + at + " недоступен"));
+        return Math.toIntExact(snapshot.getBalance()
+                + ledgerEntryRepository.sumChanges(card.getId(), snapshot.getLastEntryId(), at));
+    }
+
+    private static List<EntryRow> entries(Transaction transaction) {
+        var rows = new ArrayList<EntryRow>(2);
+        rows.add(new EntryRow(transaction.getUuid(), transaction.getSource().getId(), LedgerEntryType.DEBIT,
+                transaction.getAmount(), transaction.getCreatedAt()));
+        if (transaction.getDestination() != null) {
+            rows.add(new EntryRow(transaction.getUuid(), transaction.getDestination().getId(), LedgerEntryType.CREDIT,
+                    transaction.getAmount(), transaction.getCreatedAt()));
+        }
+        return rows;
+    }
+
+    private record EntryRow(
+            UUID transactionUuid,
+            Long cardId,
+            LedgerEntryType entryType,
+            Integer amount,
+            LocalDateTime createdAt
+    ) {
+    }
+}
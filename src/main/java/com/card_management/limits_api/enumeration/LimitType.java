@@ -4,6 +4,8 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
+import java.time.LocalDate;
+
 /**
  * Тип лимита
  */
@@ -15,4 +17,18 @@ public enum LimitType {
     MONTHLY("Месячный лимит");
 
     private final String description;
+
+    /**
+     * Возвращает номер периода лимита, в который попадает дата:
+     * для суточного лимита - номер дня от эпохи, для месячного - год * 12 + номер месяца.
+     * Номера периодов растут монотонно, поэтому новый период не требует сброса счетчиков.
+     * @param date дата
+     * @return номер периода
+     */
+    public int periodOf(LocalDate date) {
+        return switch (this) {
+            case DAILY -> Math.toIntExact(date.toEpochDay());
+            case MONTHLY -> date.getYear() * 12 + date.getMonthValue() - 1;
+        };
+    }
 }
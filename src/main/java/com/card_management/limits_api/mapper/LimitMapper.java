@@ -6,6 +6,8 @@ import com.card_management.limits_api.model.Limit;
 import com.card_management.users_api.mapper.UserMapper;
 import org.mapstruct.*;
 
+import java.time.LocalDate;
+
 @Mapper(
         nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE,
         componentModel = MappingConstants.ComponentModel.SPRING,
@@ -15,6 +17,12 @@ import org.mapstruct.*;
 )
 public abstract class LimitMapper {
 
+    /**
+     * Связи, которые читает {@link #map(Limit)}, - те же, что в графе {@link Limit#DTO_GRAPH}.
+     * Лимиты для этого преобразования загружаются вместе с ними одним запросом
+     */
+    public static final String[] DTO_FETCHES = {"user"};
+
     @Mapping(target = "user", source = "userId")
     public abstract Limit map(LimitCreateDto dto);
 
@@ -25,7 +33,7 @@ public abstract class LimitMapper {
     @AfterMapping
     protected void calculateBalance(Limit model, @MappingTarget LimitDto dto) {
         if (model != null) {
-            var balance = model.getLimitAmount() - (model.getCurrentExpensesAmount());
+            var balance = model.getLimitAmount() - model.expensesOn(LocalDate.now());
             dto.setBalances(balance);
         }
     }
@@ -23,10 +23,22 @@ import java.util.UUID;
 @Getter
 @Setter
 @Entity
-@Table(name = "limits")
+@Table(
+        name = "limits",
+        uniqueConstraints = @UniqueConstraint(
+                name = "idx_limits_user_id_transaction_type_limit_type",
+                columnNames = {"user_id", "transaction_type", "limit_type"}
+        )
+)
+@NamedEntityGraph(name = Limit.DTO_GRAPH, attributeNodes = @NamedAttributeNode("user"))
 @EntityListeners(AuditingEntityListener.class)
 @NoArgsConstructor
 public class Limit {
+    /**
+     * Граф загрузки для {@link com.card_management.limits_api.dto.LimitDto}: лимит с пользователем
+     */
+    public static final String DTO_GRAPH = "Limit.dto";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id", nullable = false, updatable = false, unique = true)
@@ -43,7 +55,7 @@ public class Limit {
      * Пользователь для которого устанавливаются лимиты
      */
     @NotNull
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
@@ -71,7 +83,7 @@ public class Limit {
     private Integer limitAmount;
 
     /**
-     * Сумма текущих расходов по картам
+     * Сумма расходов по картам за период {@link #expensesPeriod}
      */
     @Column(name = "current_expenses_amount")
     private Integer currentExpensesAmount = 0;
@@ -82,6 +94,12 @@ public class Limit {
     @Column(name = "date_last_transaction")
     private LocalDate dateLastTransaction = null;
 
+    /**
+     * Номер периода, к которому относятся текущие расходы (см. {@link LimitType#periodOf})
+     */
+    @Column(name = "expenses_period")
+    private Integer expensesPeriod;
+
     /**
      * Обновленная сумма лимита
      */
@@ -107,4 +125,27 @@ public class Limit {
     @LastModifiedDate
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    /**
+     * Возвращает сумму расходов за период лимита, в который попадает дата.
+     * Расходы прошлого периода не учитываются.
+     * @param date дата
+     * @return сумма расходов
+     */
+    public int expensesOn(LocalDate date) {
+        return expensesPeriod != null && expensesPeriod == limitType.periodOf(date) && currentExpensesAmount != null
+                ? currentExpensesAmount
+                : 0;
+    }
+
+    /**
+     * Учитывает сумму операции в расходах текущего периода лимита
+     * @param amount сумма операции
+     * @param date дата операции
+     */
+    public void addExpenses(int amount, LocalDate date) {
+        currentExpensesAmount = expensesOn(date) + amount;
+        expensesPeriod = limitType.periodOf(date);
+        dateLastTransaction = date;
+    }
 }
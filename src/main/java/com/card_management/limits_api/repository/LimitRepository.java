@@ -3,16 +3,45 @@ package com.card_management.limits_api.repository;
 import com.card_management.limits_api.enumeration.LimitType;
 import com.card_management.limits_api.model.Limit;
 import com.card_management.transaction_api.enumeration.TransactionType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Интерфейс-репозиторий для лимитов
  */
 @Repository
-public interface LimitRepository extends JpaRepository<Limit, Long> {
+public interface LimitRepository extends JpaRepository<Limit, Long>,
+        JpaSpecificationExecutor<Limit> {
+    /**
+     * Страница лимитов вместе с пользователями
+     * @param pageable объект, содержащий информацию о пагинации и сортировке.
+     * @return список лимитов в виде объекта Page
+     */
+    @Override
+    @EntityGraph(Limit.DTO_GRAPH)
+    Page<Limit> findAll(Pageable pageable);
+
+    /**
+     * Поиск лимита по ID вместе с пользователем
+     * @param id ID лимита
+     * @return лимит, если найден
+     */
+    @Override
+    @EntityGraph(Limit.DTO_GRAPH)
+    Optional<Limit> findById(Long id);
+
     /**
      * Проверяет наличие активного лимита у пользователя по типу лимита и типу транзакции
      * @param userId ID пользователя
@@ -42,25 +71,76 @@ public interface LimitRepository extends JpaRepository<Limit, Long> {
      * @param userId ID пользователя
      * @return список лимитов
      */
+    @EntityGraph(Limit.DTO_GRAPH)
     List<Limit> getLimitsByUserId(Long userId);
 
     /**
-     * Находит и возвращает список лимитов по указанному типу лимита.
-     * @param limitType тип лимита, по которому необходимо выполнить поиск.
-     *                  Не должен быть равен {@code null}.
-     * @return список объектов лимитов, соответствующих заданному типу лимита.
-     *         Если лимиты не найдены, возвращается пустой список.
+     * Применяет ожидающие обновления к очередной порции лимитов указанного типа одним UPDATE,
+     * не загружая сущности в контекст персистентности. Каждая порция выполняется в отдельной транзакции.
+     * @param limitType тип лимита
+     * @param chunkSize максимальное количество лимитов в порции
+     * @return количество обновленных лимитов, меньше {@code chunkSize} - если обновления закончились
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE {h-schema}limits "
+            + "SET limit_amount = COALESCE(pending_limit_amount, limit_amount), "
+            + "has_pending_update = FALSE, "
+            + "updated_at = CURRENT_TIMESTAMP "
+            + "WHERE id IN (SELECT id FROM {h-schema}limits "
+            + "WHERE has_pending_update = TRUE AND limit_type = :limitType "
+            + "LIMIT :chunkSize)", nativeQuery = true)
+    int applyPendingUpdates(@Param("limitType") String limitType, @Param("chunkSize") int chunkSize);
+
+    /**
+     * Получает все лимиты пользователя, действующие для типа транзакции (суточный и месячный)
+     * @param userId ID пользователя
+     * @param transactionType тип транзакции
+     * @return список лимитов, пустой - если лимиты не назначены
      */
-    List<Limit> findByLimitType(LimitType limitType);
+    List<Limit> findByUserIdAndTransactionType(Long userId, TransactionType transactionType);
 
     /**
-     * Находит все сущности Limit, соответствующие указанному типу лимита и статусу ожидающего обновления.
-     * @param limitType тип лимита для поиска (не может быть {@code null})
-     * @param hasPendingUpdate флаг статуса ожидающего обновления:
-     *        {@code true} - для лимитов с ожидающими обновлениями,
-     *        {@code false} - для лимитов без ожидающих обновлений
-     * @return список найденных сущностей Limit.
-     *         Возвращает пустой список, если совпадений не найдено.
+     * Получает все лимиты пользователя с блокировкой строк до конца транзакции
+     * @param userId ID пользователя
+     * @return список лимитов в порядке возрастания ID
+     */
+    @Query(value = "SELECT * FROM {h-schema}limits WHERE user_id = :userId ORDER BY id FOR UPDATE",
+            nativeQuery = true)
+    List<Limit> lockByUserId(@Param("userId") Long userId);
+
+    /**
+     * Резервирует сумму во всех лимитах пользователя для типа транзакции одним условным UPDATE.
+     * Расходы хранятся вместе с номером периода: если он не совпадает с текущим периодом лимита,
+     * расходы отсчитываются с нуля, поэтому сбрасывать счетчики в начале периода не нужно.
+     * Строки, в которые сумма не укладывается, не меняются.
+     * @param userId ID пользователя
+     * @param transactionType тип транзакции
+     * @param amount сумма операции
+     * @param dailyType тип суточного лимита
+     * @param dailyPeriod номер текущего суточного периода
+     * @param monthlyPeriod номер текущего месячного периода
+     * @param today текущая дата
+     * @return количество лимитов, в которые сумма уложилась и была учтена
      */
-    List<Limit> findByLimitTypeAndHasPendingUpdate(LimitType limitType, boolean hasPendingUpdate);
+    @Modifying
+    @Query("update Limit l set "
+            + "l.currentExpensesAmount = (case when l.expensesPeriod = "
+            + "(case when l.limitType = :dailyType then :dailyPeriod else :monthlyPeriod end) "
+            + "then l.currentExpensesAmount else 0 end) + :amount, "
+            + "l.expensesPeriod = (case when l.limitType = :dailyType then :dailyPeriod else :monthlyPeriod end), "
+            + "l.dateLastTransaction = :today, "
+            + "l.updatedAt = local datetime "
+            + "where l.user.id = :userId and l.transactionType = :transactionType "
+            + "and (case when l.expensesPeriod = "
+            + "(case when l.limitType = :dailyType then :dailyPeriod else :monthlyPeriod end) "
+            + "then l.currentExpensesAmount else 0 end) + :amount <= l.limitAmount")
+    int reserve(
+            @Param("userId") Long userId,
+            @Param("transactionType") TransactionType transactionType,
+            @Param("amount") Integer amount,
+            @Param("dailyType") LimitType dailyType,
+            @Param("dailyPeriod") Integer dailyPeriod,
+            @Param("monthlyPeriod") Integer monthlyPeriod,
+            @Param("today") LocalDate today);
 }
@@ -1,54 +1,33 @@
 package com.card_management.limits_api.scheduled;
 
 import com.card_management.limits_api.enumeration.LimitType;
-import com.card_management.limits_api.model.Limit;
-import com.card_management.limits_api.repository.LimitRepository;
 import com.card_management.limits_api.service.LimitService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class LimitScheduler {
 
     private final LimitService limitService;
 
-    private final LimitRepository limitRepository;
-
-    @Scheduled(cron = "0 0 0 * * ?")
-    public void resetDailyLimits() {
-        limitService.resetLimitsByType(LimitType.DAILY);
-    }
-
-    @Scheduled(cron = "0 0 0 1 * ?")
-    public void resetMonthlyLimits() {
-        limitService.resetLimitsByType(LimitType.MONTHLY);
-    }
-
     @Scheduled(cron = "0 1 0 * * ?")
     public void applyDailyLimitUpdates() {
-        List<Limit> dailyLimits = limitRepository
-                .findByLimitTypeAndHasPendingUpdate(LimitType.DAILY, true);
-        applyPendingUpdates(dailyLimits);
+        applyPendingUpdates(LimitType.DAILY);
     }
 
     @Scheduled(cron = "0 1 0 1 * ?")
     public void applyMonthlyLimitUpdates() {
-        List<Limit> monthlyLimits = limitRepository
-                .findByLimitTypeAndHasPendingUpdate(LimitType.MONTHLY, true);
-        applyPendingUpdates(monthlyLimits);
+        applyPendingUpdates(LimitType.MONTHLY);
     }
 
-    private void applyPendingUpdates(List<Limit> limits) {
-        for (Limit limit : limits) {
-            if (limit.getPendingLimitAmount() != null) {
-                limit.setLimitAmount(limit.getPendingLimitAmount());
-            }
-            limit.setHasPendingUpdate(false);
-            limitRepository.save(limit);
-        }
+    private void applyPendingUpdates(LimitType limitType) {
+        var startedAt = System.nanoTime();
+        var updated = limitService.applyPendingUpdates(limitType);
+        log.info("Применены ожидающие обновления лимитов {}: {} строк за {} мс",
+                limitType, updated, (System.nanoTime() - startedAt) / 1_000_000);
     }
 }
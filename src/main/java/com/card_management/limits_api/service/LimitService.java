@@ -11,8 +11,12 @@ import com.card_management.limits_api.mapper.LimitMapper;
 import com.card_management.limits_api.model.Limit;
 import com.card_management.limits_api.repository.LimitRepository;
 import com.card_management.technical.enumeration.FieldEnumerable;
+import com.card_management.technical.enumeration.TotalsMode;
 import com.card_management.technical.exception.FieldsValidationException;
 import com.card_management.technical.exception.ResourceNotFoundException;
+import com.card_management.technical.util.KeysetUtils;
+import com.card_management.technical.util.SliceFinder;
+import com.card_management.technical.util.TotalsCounter;
 import com.card_management.transaction_api.enumeration.TransactionType;
 import com.card_management.users_api.model.User;
 import com.card_management.users_api.repository.UserRepository;
@@ -28,17 +32,50 @@ import java.util.List;
 @RequiredArgsConstructor
 public class LimitService {
 
+    public static final int PENDING_UPDATES_CHUNK_SIZE = 10_000;
+
     private final LimitRepository limitRepository;
 
     private final LimitMapper limitMapper;
 
     private final UserRepository userRepository;
 
-    public LimitEnvelopDto getLimits(int page, int size, String sort) {
+    private final TotalsCounter totalsCounter;
+
+    private final SliceFinder sliceFinder;
+
+    public LimitEnvelopDto getLimits(int page, int size, String sort, String after, String totals) {
         if (!FieldEnumerable.containsField(LimitSortFields.class, sort)) {
             throw new FieldsValidationException("Недопустимое поле сортировки: " + sort);
         }
+        var totalsMode = TotalsMode.of(totals);
         var pageRequest = PageRequest.of(page - 1, size, Sort.by(sort));
+        if (after != null) {
+            var keysetPage = KeysetUtils.findPage(
+                    limitRepository, null, after, pageRequest, LimitMapper.DTO_FETCHES);
+            return new LimitEnvelopDto(
+                    keysetPage.content().stream()
+                            .map(limitMapper::map)
+                            .toList(),
+                    null,
+                    null,
+                    keysetPage.nextCursor(),
+                    null
+            );
+        }
+        if (totalsMode != TotalsMode.EXACT) {
+            var limitSlice = sliceFinder.findSlice(Limit.class, null, pageRequest, LimitMapper.DTO_FETCHES);
+            var total = totalsCounter.count(totalsMode, "limits", null, null, limitRepository::count);
+            return new LimitEnvelopDto(
+                    limitSlice.stream()
+                            .map(limitMapper::map)
+                            .toList(),
+                    total,
+                    TotalsCounter.totalPages(total, size),
+                    null,
+                    limitSlice.hasNext()
+            );
+        }
         var limitPage = limitRepository.findAll(pageRequest);
         var limitDto = limitPage.stream()
                 .map(limitMapper::map)
@@ -88,6 +125,22 @@ public class LimitService {
         return "Лимит будет применен в новый расчетный период.";
     }
 
+    /**
+     * Применяет ожидающие обновления ко всем лимитам указанного типа порциями
+     * по {@value #PENDING_UPDATES_CHUNK_SIZE} строк.
+     * @param limitType тип лимита
+     * @return количество обновленных лимитов
+     */
+    public int applyPendingUpdates(LimitType limitType) {
+        var total = 0;
+        int updated;
+        do {
+            updated = limitRepository.applyPendingUpdates(limitType.name(), PENDING_UPDATES_CHUNK_SIZE);
+            total += updated;
+        } while (updated == PENDING_UPDATES_CHUNK_SIZE);
+        return total;
+    }
+
     public void delete(Long id) {
         var limit = limitRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Лимит с ID " + id + " не найден"));
@@ -103,49 +156,67 @@ public class LimitService {
                 .toList();
     }
 
-    public void resetLimitsByType(LimitType limitType) {
-        List<Limit> limits = limitRepository.findByLimitType(limitType);
-
-        for (Limit limit : limits) {
-            limit.setCurrentExpensesAmount(0);
-            limit.setDateLastTransaction(null);
-            limitRepository.save(limit);
+    /**
+     * Атомарно учитывает сумму операции во всех лимитах пользователя для типа транзакции:
+     * одним запросом читает лимиты и одним UPDATE проверяет и резервирует сумму.
+     * Отсутствующий лимит операцию не ограничивает. Вызывается внутри транзакции:
+     * при превышении любого лимита исключение откатывает уже учтенные суммы.
+     * @param userId ID пользователя
+     * @param transactionType тип транзакции
+     * @param amount сумма операции
+     */
+    public void reserve(Long userId, TransactionType transactionType, Integer amount) {
+        var limits = limitRepository.findByUserIdAndTransactionType(userId, transactionType);
+        if (limits.isEmpty()) {
+            return;
         }
-    }
-
-    public void canTransaction(Limit limit, Integer amount) {
-        checkAndResetLimits(limit);
-        boolean transactionOk = (limit.getCurrentExpensesAmount() + amount) <= limit.getLimitAmount();
-        if (!transactionOk) {
-            throw new ExceedingLimitException("Превышен " + limit.getLimitType().getDescription() +
-                    " на " + limit.getTransactionType().getDescription());
+        var today = LocalDate.now();
+        var reserved = limitRepository.reserve(userId, transactionType, amount, LimitType.DAILY,
+                LimitType.DAILY.periodOf(today), LimitType.MONTHLY.periodOf(today), today);
+        if (reserved < limits.size()) {
+            var exceeded = limits.stream()
+                    .filter(limit -> limit.expensesOn(today) + amount > limit.getLimitAmount())
+                    .findFirst()
+                    .orElse(limits.get(0));
+            throw exceedingLimit(exceeded);
         }
     }
 
-    public void registerTransaction(Limit limit, Integer amount) {
-        checkAndResetLimits(limit);
-        limit.setCurrentExpensesAmount(limit.getCurrentExpensesAmount() + amount);
-        limit.setDateLastTransaction(LocalDate.now());
-        limitRepository.save(limit);
+    /**
+     * Блокирует все лимиты пользователя до конца транзакции для пакетной обработки операций
+     * @param userId ID пользователя
+     * @return список лимитов
+     */
+    public List<Limit> lockUserLimits(Long userId) {
+        return limitRepository.lockByUserId(userId);
     }
 
-    private void checkAndResetLimits(Limit limit) {
-        LocalDate currentDate = LocalDate.now();
+    /**
+     * Проверяет по заблокированным лимитам, что сумма операции укладывается во все лимиты
+     * пользователя для типа транзакции. Лимиты не изменяются.
+     * @param limits заблокированные лимиты пользователя
+     * @param transactionType тип транзакции
+     * @param amount сумма операции
+     * @param today текущая дата
+     * @return лимиты, в которых нужно учесть сумму операции
+     */
+    public List<Limit> checkAvailable(List<Limit> limits, TransactionType transactionType, Integer amount,
+                                      LocalDate today) {
+        var applicable = limits.stream()
+                .filter(limit -> limit.getTransactionType() == transactionType)
+                .toList();
+        applicable.stream()
+                .filter(limit -> limit.expensesOn(today) + amount > limit.getLimitAmount())
+                .findFirst()
+                .ifPresent(exceeded -> {
+                    throw exceedingLimit(exceeded);
+                });
+        return applicable;
+    }
 
-        if (limit.getLimitType().toString().equals("DAILY")) {
-            if (limit.getDateLastTransaction() == null || !limit.getDateLastTransaction().equals(currentDate)) {
-                limit.setCurrentExpensesAmount(0);
-                limit.setDateLastTransaction(null);
-            }
-        }
-        if (limit.getLimitType().toString().equals("MONTHLY")) {
-            if (limit.getDateLastTransaction() == null
-                    || !limit.getDateLastTransaction().getMonth().equals(currentDate.getMonth())
-            ) {
-                limit.setCurrentExpensesAmount(0);
-                limit.setDateLastTransaction(null);
-            }
-        }
+    private ExceedingLimitException exceedingLimit(Limit limit) {
+        return new ExceedingLimitException("Превышен " + limit.getLimitType().getDescription() +
+                " на " + limit.getTransactionType().getDescription());
     }
 
     public void setDefaultLimits(User user) {
@@ -0,0 +1,36 @@
+package com.card_management.technical.enumeration;
+
+import com.card_management.technical.exception.FieldsValidationException;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.EnumUtils;
+
+/**
+ * Допустимые форматы потоковой выгрузки
+ */
+@Getter
+@RequiredArgsConstructor
+@Schema(description = "Допустимые форматы потоковой выгрузки")
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+
+    private final String extension;
+
+    /**
+     * Возвращает формат по имени без учета регистра
+     * @param format имя формата
+     * @return формат выгрузки
+     * @throws FieldsValidationException если формат не существует
+     */
+    public static ExportFormat of(String format) {
+        var exportFormat = EnumUtils.getEnumIgnoreCase(ExportFormat.class, format);
+        if (exportFormat == null) {
+            throw new FieldsValidationException("Недопустимый формат выгрузки: " + format);
+        }
+        return exportFormat;
+    }
+}
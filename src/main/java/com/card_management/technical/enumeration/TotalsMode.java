@@ -0,0 +1,39 @@
+package com.card_management.technical.enumeration;
+
+import com.card_management.technical.exception.FieldsValidationException;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.EnumUtils;
+
+/**
+ * Допустимые режимы подсчета общего количества элементов в постраничных списках
+ */
+@Getter
+@RequiredArgsConstructor
+@Schema(description = "Допустимые режимы подсчета общего количества элементов")
+public enum TotalsMode {
+    EXACT("Точное количество, подсчитывается на каждый запрос"),
+    ESTIMATED("Оценка: статистика PostgreSQL для списков без фильтра, "
+            + "иначе точное количество, закэшированное по фильтру"),
+    NONE("Без подсчета, возвращается только признак наличия следующей страницы");
+
+    private final String field;
+
+    /**
+     * Возвращает режим по имени без учета регистра
+     * @param totals имя режима, {@code null} или пустая строка - {@link #EXACT}
+     * @return режим подсчета
+     * @throws FieldsValidationException если режим не существует
+     */
+    public static TotalsMode of(String totals) {
+        if (totals == null || totals.isBlank()) {
+            return EXACT;
+        }
+        var mode = EnumUtils.getEnumIgnoreCase(TotalsMode.class, totals);
+        if (mode == null) {
+            throw new FieldsValidationException("Недопустимый режим подсчета: " + totals);
+        }
+        return mode;
+    }
+}
@@ -1,5 +1,6 @@
 package com.card_management.technical.handler;
 
+import com.card_management.cards_api.exception.AmbiguousCardException;
 import com.card_management.cards_api.exception.BlockedCardException;
 import com.card_management.cards_api.exception.DuplicateCardException;
 import com.card_management.limits_api.exception.DuplicateLimitException;
@@ -8,7 +9,10 @@ import com.card_management.technical.exception.FieldsValidationException;
 import com.card_management.technical.exception.ResourceNotFoundException;
 import com.card_management.technical.exception.record.ErrorResponse;
 import com.card_management.technical.exception.record.FieldErrorDto;
+import com.card_management.transaction_api.exception.IdempotencyKeyReuseException;
+import com.card_management.transaction_api.exception.IngestionOverloadedException;
 import com.card_management.transaction_api.exception.InsufficientFundsForTransactionException;
+import com.card_management.users_api.exception.AuthenticationThrottledException;
 import com.card_management.users_api.exception.DuplicateEmailException;
 import jakarta.validation.ConstraintViolationException;
 import org.springframework.http.HttpHeaders;
@@ -84,6 +88,29 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return buildErrorResponse(ex, HttpStatus.PAYMENT_REQUIRED);
     }
 
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyReuseException(IdempotencyKeyReuseException ex) {
+        return buildErrorResponse(ex, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @ExceptionHandler(IngestionOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleIngestionOverloadedException(IngestionOverloadedException ex) {
+        List<FieldErrorDto> errors = List.of(new FieldErrorDto(null, ex.getMessage()));
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponse(errors));
+    }
+
+    @ExceptionHandler(AuthenticationThrottledException.class)
+    public ResponseEntity<ErrorResponse> handleAuthenticationThrottledException(
+            AuthenticationThrottledException ex
+    ) {
+        List<FieldErrorDto> errors = List.of(new FieldErrorDto(null, ex.getMessage()));
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ErrorResponse(errors));
+    }
+
     @ExceptionHandler(BlockedCardException.class)
     public ResponseEntity<ErrorResponse> handleBlockedCardException(BlockedCardException ex) {
         return buildErrorResponse(ex, HttpStatus.FORBIDDEN);
@@ -99,6 +126,11 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return buildErrorResponse(ex, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(AmbiguousCardException.class)
+    public ResponseEntity<ErrorResponse> handleAmbiguousCardException(AmbiguousCardException ex) {
+        return buildErrorResponse(ex, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex) {
         return buildErrorResponse(ex, HttpStatus.BAD_REQUEST);
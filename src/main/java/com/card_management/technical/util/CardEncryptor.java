@@ -1,20 +1,87 @@
 package com.card_management.technical.util;
 
-import org.springframework.security.crypto.encrypt.Encryptors;
-import org.springframework.security.crypto.encrypt.TextEncryptor;
+import org.springframework.security.crypto.codec.Hex;
+import org.springframework.security.crypto.keygen.BytesKeyGenerator;
+import org.springframework.security.crypto.keygen.KeyGenerators;
 
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+/**
+ * Шифратор номеров карт: AES-256-CBC со случайным IV на каждое шифрование, формат совместим
+ * с {@code Encryptors.text(password, salt)} (hex от IV и шифротекста).
+ * Ключ выводится PBKDF2 один раз при создании шифратора. Экземпляры потокобезопасны и не синхронизируются:
+ * каждый поток использует собственный {@link Cipher}, инициализируемый ключом шифратора на время операции.
+ */
 public class CardEncryptor {
-    private final TextEncryptor encryptor;
 
+    private static final String KEY_ALGORITHM = "PBKDF2WithHmacSHA1";
+
+    private static final String CIPHER_ALGORITHM = "AES/CBC/PKCS5Padding";
+
+    private static final int KEY_ITERATIONS = 1024;
+
+    private static final int KEY_LENGTH = 256;
+
+    private static final int IV_LENGTH = 16;
+
+    private static final BytesKeyGenerator IV_GENERATOR = KeyGenerators.secureRandom(IV_LENGTH);
+
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(CardEncryptor::newCipher);
+
+    private final SecretKey key;
+
+    /**
+     * Выводит ключ шифрования
+     * @param password пароль шифрования
+     * @param salt соль в hex
+     */
     public CardEncryptor(String password, String salt) {
-        this.encryptor = Encryptors.text(password, salt);
+        try {
+            var keySpec = new PBEKeySpec(password.toCharArray(), Hex.decode(salt), KEY_ITERATIONS, KEY_LENGTH);
+            var secret = SecretKeyFactory.getInstance(KEY_ALGORITHM).generateSecret(keySpec);
+            this.key = new SecretKeySpec(secret.getEncoded(), "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Не удалось вывести ключ шифрования", e);
+        }
     }
 
     public String encryptCardNumber(String cardNumber) {
-        return encryptor.encrypt(cardNumber);
+        var iv = IV_GENERATOR.generateKey();
+        var encrypted = doFinal(Cipher.ENCRYPT_MODE, iv, cardNumber.getBytes(StandardCharsets.UTF_8), 0);
+        var result = Arrays.copyOf(iv, iv.length + encrypted.length);
+        System.arraycopy(encrypted, 0, result, iv.length, encrypted.length);
+        return new String(Hex.encode(result));
     }
 
     public String decryptCardNumber(String encryptedCardNumber) {
-        return encryptor.decrypt(encryptedCardNumber);
+        var bytes = Hex.decode(encryptedCardNumber);
+        var iv = Arrays.copyOf(bytes, IV_LENGTH);
+        return new String(doFinal(Cipher.DECRYPT_MODE, iv, bytes, IV_LENGTH), StandardCharsets.UTF_8);
+    }
+
+    private byte[] doFinal(int mode, byte[] iv, byte[] input, int offset) {
+        var cipher = CIPHER.get();
+        try {
+            cipher.init(mode, key, new IvParameterSpec(iv));
+            return cipher.doFinal(input, offset, input.length - offset);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Не удалось выполнить " + CIPHER_ALGORITHM, e);
+        }
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(CIPHER_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Не удалось инициализировать " + CIPHER_ALGORITHM, e);
+        }
     }
 }
@@ -0,0 +1,49 @@
+package com.card_management.technical.util;
+
+import com.card_management.application.configuration.AppConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.crypto.codec.Hex;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * Вычисляет отпечаток (blind index) номера карты - HMAC-SHA256 на отдельном ключе.
+ * Отпечаток детерминирован, поэтому по нему можно искать карту индексом без расшифровки номеров.
+ */
+@Component
+@RequiredArgsConstructor
+public class CardFingerprintGenerator {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final AppConfig appConfig;
+
+    private SecretKeySpec key;
+
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(this::newMac);
+
+    @PostConstruct
+    public void init() {
+        key = new SecretKeySpec(appConfig.getFingerprintKey().getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    public String generate(String cardNumber) {
+        var digest = mac.get().doFinal(cardNumber.getBytes(StandardCharsets.UTF_8));
+        return new String(Hex.encode(digest));
+    }
+
+    private Mac newMac() {
+        try {
+            var instance = Mac.getInstance(ALGORITHM);
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Не удалось инициализировать " + ALGORITHM, e);
+        }
+    }
+}
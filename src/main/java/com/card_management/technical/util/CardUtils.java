@@ -2,9 +2,41 @@ package com.card_management.technical.util;
 
 import org.mapstruct.Named;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.regex.Pattern;
+
 public class CardUtils {
+
+    private static final Pattern CARD_NUMBER = Pattern.compile("\\b\\d{13,19}\\b");
+
     @Named("maskCardNumber")
     public static String maskCardNumber(String cardNumber) {
         return cardNumber.substring(0, 4) + "****" + cardNumber.substring(cardNumber.length() - 4);
     }
+
+    /**
+     * Маскирует номера карт в тексте, например в сообщении об ошибке
+     * @param text текст
+     * @return текст с номерами карт в формате 0000****0000
+     */
+    @Named("maskCardNumbers")
+    public static String maskCardNumbers(String text) {
+        return CARD_NUMBER.matcher(text).replaceAll(match -> maskCardNumber(match.group()));
+    }
+
+    @Named("lastFourDigits")
+    public static String lastFourDigits(String cardNumber) {
+        return cardNumber.substring(cardNumber.length() - 4);
+    }
+
+    /**
+     * Возвращает последний день действия карты по месяцу и двузначному году окончания срока
+     * @param validityPeriodMonth месяц окончания действия карты
+     * @param validityPeriodYear год окончания действия карты (две последние цифры)
+     * @return дата, после которой карта считается просроченной
+     */
+    public static LocalDate expirationDate(Integer validityPeriodMonth, Integer validityPeriodYear) {
+        return YearMonth.of(2000 + validityPeriodYear, validityPeriodMonth).atEndOfMonth();
+    }
 }
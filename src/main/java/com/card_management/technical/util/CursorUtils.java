@@ -0,0 +1,74 @@
+package com.card_management.technical.util;
+
+import com.card_management.technical.exception.FieldsValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+/**
+ * Курсоры для постраничной выборки по ключу. Курсор - позиция последней выданной записи:
+ * части позиции через разделитель, закодированные в base64url.
+ * Курсор истории операций - позиция по ключу (created_at, id) от новых записей к старым.
+ */
+public class CursorUtils {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Позиция перед самой новой записью: с нее начинается первая страница
+     */
+    public static final Cursor FIRST = new Cursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    public static String encode(LocalDateTime createdAt, Long id) {
+        return encodeParts(createdAt.toString(), String.valueOf(id));
+    }
+
+    /**
+     * Декодирует курсор, полученный клиентом со страницей
+     * @param cursor курсор; {@code null} или пустая строка - первая страница
+     * @return позиция, после которой выбираются записи
+     */
+    public static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        var parts = decodeParts(cursor, 2);
+        try {
+            return new Cursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+            throw new FieldsValidationException("Некорректный курсор страницы: " + cursor);
+        }
+    }
+
+    /**
+     * Кодирует части позиции в курсор. Разделитель допустим только в последней части
+     * @param parts части позиции
+     * @return курсор
+     */
+    public static String encodeParts(String... parts) {
+        var value = String.join(SEPARATOR, parts);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Декодирует части позиции из курсора
+     * @param cursor курсор
+     * @param limit максимальное количество частей, последняя часть берется до конца курсора
+     * @return части позиции
+     * @throws FieldsValidationException если курсор не в base64url
+     */
+    public static String[] decodeParts(String cursor, int limit) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(Pattern.quote(SEPARATOR), limit);
+        } catch (IllegalArgumentException e) {
+            throw new FieldsValidationException("Некорректный курсор страницы: " + cursor);
+        }
+    }
+
+    public record Cursor(LocalDateTime createdAt, Long id) {
+    }
+}
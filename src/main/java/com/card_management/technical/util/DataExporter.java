@@ -0,0 +1,167 @@
+package com.card_management.technical.util;
+
+import com.card_management.technical.enumeration.ExportFormat;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.FetchParent;
+import jakarta.persistence.criteria.JoinType;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Потоковая выгрузка сущностей по спецификации в NDJSON или CSV.
+ * Все записи читаются одним запросом через однонаправленный поток результатов с размером выборки
+ * {@link #FETCH_SIZE} и сразу пишутся в ответ, без промежуточного списка. Контекст персистентности
+ * очищается каждые {@link #FETCH_SIZE} записей, поэтому расход памяти не зависит от объема выгрузки.
+ */
+@Component
+@RequiredArgsConstructor
+public class DataExporter {
+
+    public static final int FETCH_SIZE = 1_000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final TypeReference<Map<String, Object>> ROW_TYPE = new TypeReference<>() { };
+
+    private final EntityManager entityManager;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Формирует тело ответа с выгрузкой. Запрос выполняется при записи ответа в отдельной транзакции только для чтения.
+     * @param entityType класс сущности
+     * @param filter фильтр, {@code null} - без фильтра
+     * @param sort сортировка
+     * @param mapper преобразование сущности в DTO
+     * @param dtoType класс DTO, его свойства задают колонки CSV
+     * @param format формат выгрузки
+     * @param fetches связи, загружаемые тем же запросом (вложенные - через точку, например {@code source.owner})
+     * @return тело ответа
+     */
+    public <T, D> StreamingResponseBody export(
+            Class<T> entityType,
+            Specification<T> filter,
+            Sort sort,
+            Function<T, D> mapper,
+            Class<D> dtoType,
+            ExportFormat format,
+            String... fetches
+    ) {
+        var columns = format == ExportFormat.CSV ? columns(dtoType) : List.<String>of();
+        return outputStream -> {
+            var writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+            if (format == ExportFormat.CSV) {
+                writer.write(columns.stream()
+                        .map(DataExporter::escapeCsv)
+                        .collect(Collectors.joining(",")));
+                writer.write('\n');
+            }
+            var transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+            transactionTemplate.executeWithoutResult(status -> {
+                try (var rows = query(entityType, filter, sort, fetches)) {
+                    var iterator = rows.iterator();
+                    var count = 0;
+                    while (iterator.hasNext()) {
+                        var dto = mapper.apply(iterator.next());
+                        if (format == ExportFormat.CSV) {
+                            writeCsv(writer, columns, dto);
+                        } else {
+                            writer.write(objectMapper.writeValueAsString(dto));
+                            writer.write('\n');
+                        }
+                        if (++count % FETCH_SIZE == 0) {
+                            entityManager.clear();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+    }
+
+    private <T> Stream<T> query(
+            Class<T> entityType,
+            Specification<T> filter,
+            Sort sort,
+            String... fetches
+    ) {
+        var criteriaBuilder = entityManager.getCriteriaBuilder();
+        var query = criteriaBuilder.createQuery(entityType);
+        var root = query.from(entityType);
+        for (var fetch : fetches) {
+            FetchParent<?, ?> parent = root;
+            for (var attribute : fetch.split("\\.")) {
+                parent = parent.fetch(attribute, JoinType.LEFT);
+            }
+        }
+        if (filter != null) {
+            var predicate = filter.toPredicate(root, query, criteriaBuilder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private List<String> columns(Class<?> dtoType) {
+        return objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(dtoType))
+                .findProperties()
+                .stream()
+                .map(BeanPropertyDefinition::getName)
+                .toList();
+    }
+
+    private void writeCsv(Writer writer, List<String> columns, Object dto) throws IOException {
+        var row = objectMapper.convertValue(dto, ROW_TYPE);
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            var value = row.get(columns.get(i));
+            if (value != null) {
+                writer.write(escapeCsv(Objects.toString(value)));
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,127 @@
+package com.card_management.technical.util;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.FlushMode;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Выборка списков сразу в DTO конструкторным выражением ({@code select new ...}) по спецификации.
+ * Читаются только колонки, которые отдает DTO; сущности не создаются и не попадают в контекст
+ * персистентности, поэтому для строк не хранятся снимки состояния для проверки изменений.
+ * Вызывается в транзакции только для чтения, запрос выполняется без сброса контекста ({@link FlushMode#MANUAL}).
+ */
+@Component
+@RequiredArgsConstructor
+public class DtoProjector {
+
+    private final EntityManager entityManager;
+
+    /**
+     * Выбирает страницу DTO с подсчетом общего количества.
+     * Подсчет не выполняется, если количество известно по самой странице (первая неполная страница и т.п.)
+     * @param entityType класс сущности
+     * @param filter фильтр, {@code null} - без фильтра
+     * @param pageable номер, размер страницы и сортировка
+     * @param dtoType класс DTO, конструктор принимает колонки в порядке {@code columns}
+     * @param columns колонки DTO относительно корня запроса
+     * @param count подсчет общего количества
+     * @return страница DTO
+     */
+    public <T, D> Page<D> findPage(
+            Class<T> entityType,
+            Specification<T> filter,
+            Pageable pageable,
+            Class<D> dtoType,
+            Function<Root<T>, List<Selection<?>>> columns,
+            LongSupplier count
+    ) {
+        var content = query(entityType, filter, pageable.getSort(), dtoType, columns)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, count);
+    }
+
+    /**
+     * Выбирает страницу DTO без подсчета общего количества.
+     * Запрашивается на одну запись больше размера страницы, по ней определяется наличие следующей страницы.
+     * @param entityType класс сущности
+     * @param filter фильтр, {@code null} - без фильтра
+     * @param pageable номер, размер страницы и сортировка
+     * @param dtoType класс DTO, конструктор принимает колонки в порядке {@code columns}
+     * @param columns колонки DTO относительно корня запроса
+     * @return страница с признаком наличия следующей
+     */
+    public <T, D> Slice<D> findSlice(
+            Class<T> entityType,
+            Specification<T> filter,
+            Pageable pageable,
+            Class<D> dtoType,
+            Function<Root<T>, List<Selection<?>>> columns
+    ) {
+        var content = query(entityType, filter, pageable.getSort(), dtoType, columns)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        var hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    /**
+     * Выбирает все DTO, подходящие под фильтр
+     * @param entityType класс сущности
+     * @param filter фильтр, {@code null} - без фильтра
+     * @param sort сортировка
+     * @param dtoType класс DTO, конструктор принимает колонки в порядке {@code columns}
+     * @param columns колонки DTO относительно корня запроса
+     * @return список DTO
+     */
+    public <T, D> List<D> findAll(
+            Class<T> entityType,
+            Specification<T> filter,
+            Sort sort,
+            Class<D> dtoType,
+            Function<Root<T>, List<Selection<?>>> columns
+    ) {
+        return query(entityType, filter, sort, dtoType, columns).getResultList();
+    }
+
+    private <T, D> TypedQuery<D> query(
+            Class<T> entityType,
+            Specification<T> filter,
+            Sort sort,
+            Class<D> dtoType,
+            Function<Root<T>, List<Selection<?>>> columns
+    ) {
+        var criteriaBuilder = entityManager.getCriteriaBuilder();
+        var query = criteriaBuilder.createQuery(dtoType);
+        var root = query.from(entityType);
+        query.select(criteriaBuilder.construct(dtoType, columns.apply(root).toArray(Selection<?>[]::new)));
+        if (filter != null) {
+            var predicate = filter.toPredicate(root, query, criteriaBuilder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+    }
+}
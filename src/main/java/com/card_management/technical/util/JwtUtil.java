@@ -1,8 +1,16 @@
 package com.card_management.technical.util;
 
+import com.card_management.application.configuration.JwtCacheConfig;
 import com.card_management.users_api.security.CustomUserDetails;
+import com.card_management.users_api.security.TokenDenyList;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
@@ -10,59 +18,183 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+/**
+ * Выдача и проверка JWT.
+ * Проверенные токены кэшируются по SHA-256 дайджесту до истечения их срока действия:
+ * повторный запрос с тем же токеном не проверяет подпись и не разбирает JSON.
+ * Отзыв проверяется по списку в памяти при каждом запросе, в том числе для токенов из кэша.
+ */
 @Component
 public class JwtUtil {
 
+    /**
+     * Срок жизни токена
+     */
+    public static final long TOKEN_TTL_MILLIS = 86_400_000;
+
+    private static final String AUTHORITIES_CLAIM = "authorities";
+
+    private static final String USER_ID_CLAIM = "userId";
+
+    private static final String VERSION_CLAIM = "ver";
+
+    private final TokenDenyList tokenDenyList;
+
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    private final Timer cachedTimer;
+
+    private final Timer verifiedTimer;
+
     @Value("${jwt.secret}")
     private String secret;
 
     private Key signingKey;
 
+    private JwtParser parser;
+
+    public JwtUtil(TokenDenyList tokenDenyList, JwtCacheConfig jwtCacheConfig, MeterRegistry meterRegistry) {
+        this.tokenDenyList = tokenDenyList;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(jwtCacheConfig.getMaximumSize())
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(
+                                Math.max(0, token.expiresAt() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, token, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified");
+        this.cachedTimer = authenticationTimer(meterRegistry, "hit");
+        this.verifiedTimer = authenticationTimer(meterRegistry, "miss");
+    }
+
     @PostConstruct
     public void init() {
         signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     public String generateToken(UserDetails userDetails) {
         List<String> authorities = userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toList());
+        var userId = ((CustomUserDetails) userDetails).getId();
 
         return Jwts.builder()
                 .setSubject(userDetails.getUsername())
-                .claim("authorities", authorities)
-                .claim("userId", ((CustomUserDetails) userDetails).getId())
+                .claim(AUTHORITIES_CLAIM, authorities)
+                .claim(USER_ID_CLAIM, userId)
+                .claim(VERSION_CLAIM, tokenDenyList.currentVersion(userId))
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + 86400000))
+                .setExpiration(new Date(System.currentTimeMillis() + TOKEN_TTL_MILLIS))
                 .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String extractUsername(String token) {
-        return parseToken(token).getBody().getSubject();
+    /**
+     * Проверяет токен и восстанавливает пользователя из его утверждений.
+     * Токен из кэша проверяется только на отзыв, новый токен разбирается один раз
+     * с проверкой подписи и срока действия и помещается в кэш
+     * @param token токен
+     * @return пользователь, если токен действителен и не отозван
+     */
+    public Optional<CustomUserDetails> authenticate(String token) {
+        var startedAt = System.nanoTime();
+        var key = digest(token);
+        var verifiedToken = verifiedTokens.getIfPresent(key);
+        var timer = cachedTimer;
+        if (verifiedToken == null) {
+            timer = verifiedTimer;
+            verifiedToken = verify(token);
+            if (verifiedToken == null) {
+                return Optional.empty();
+            }
+            verifiedTokens.put(key, verifiedToken);
+        }
+        try {
+            var userDetails = verifiedToken.userDetails();
+            if (tokenDenyList.isRevoked(userDetails.getId(), verifiedToken.version())) {
+                return Optional.empty();
+            }
+            return Optional.of(userDetails);
+        } finally {
+            timer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
     }
 
-    public boolean validateToken(String token, UserDetails userDetails) {
+    private VerifiedToken verify(String token) {
+        Claims claims;
         try {
-            Claims claims = parseToken(token).getBody();
-            String username = claims.getSubject();
-            Date expiration = claims.getExpiration();
-
-            return username.equals(userDetails.getUsername()) && expiration.after(new Date());
+            claims = parser.parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
+        }
+        var userId = claims.get(USER_ID_CLAIM, Number.class);
+        var authorities = claims.get(AUTHORITIES_CLAIM, List.class);
+        if (claims.getSubject() == null || userId == null || authorities == null || claims.getExpiration() == null) {
+            return null;
         }
+        var version = claims.get(VERSION_CLAIM, Number.class);
+        List<String> authorityNames = ((List<?>) authorities).stream()
+                .map(String::valueOf)
+                .toList();
+        return new VerifiedToken(
+                CustomUserDetails.fromClaims(userId.longValue(), claims.getSubject(), authorityNames),
+                version != null ? version.longValue() : 0,
+                claims.getExpiration().getTime()
+        );
     }
 
-    private Jws<Claims> parseToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(signingKey)
-                .build()
-                .parseClaimsJws(token);
+    private static String digest(String token) {
+        try {
+            var hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Алгоритм SHA-256 недоступен", e);
+        }
+    }
+
+    private static Timer authenticationTimer(MeterRegistry meterRegistry, String cache) {
+        return Timer.builder("jwt.authentication")
+                .description("Время проверки JWT")
+                .tag("cache", cache)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Проверенный токен
+     * @param userDetails пользователь из утверждений токена
+     * @param version версия токенов пользователя на момент выдачи
+     * @param expiresAt время истечения токена, мс
+     */
+    private record VerifiedToken(CustomUserDetails userDetails, long version, long expiresAt) {
     }
 }
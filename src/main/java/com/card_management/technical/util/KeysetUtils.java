@@ -0,0 +1,201 @@
+package com.card_management.technical.util;
+
+import com.card_management.technical.exception.FieldsValidationException;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.mapping.PropertyReferenceException;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Постраничная выборка по ключу (keyset): вместо OFFSET и COUNT(*) следующая страница
+ * начинается после значения поля сортировки и ID последней записи предыдущей страницы.
+ * Время выборки не зависит от номера страницы. Записи с пустым полем сортировки выдаются
+ * после всех остальных в порядке ID, независимо от того, куда пустые значения ставит СУБД.
+ */
+public class KeysetUtils {
+
+    private static final String ID = "id";
+
+    /**
+     * Выбирает страницу по курсору с учетом фильтра, поля и направления сортировки из {@code pageable}.
+     * Номер страницы из {@code pageable} не используется.
+     * @param repository репозиторий сущности
+     * @param filter фильтр, {@code null} - без фильтра
+     * @param after курсор из предыдущей страницы, пустая строка - первая страница
+     * @param pageable размер страницы и сортировка по одному полю
+     * @param fetches связи, загружаемые тем же запросом
+     * @return страница и курсор следующей страницы
+     */
+    public static <T> KeysetPage<T> findPage(
+            JpaSpecificationExecutor<T> repository,
+            Specification<T> filter,
+            String after,
+            Pageable pageable,
+            String... fetches
+    ) {
+        var size = pageable.getPageSize();
+        var order = pageable.getSort().stream()
+                .findFirst()
+                .orElse(Sort.Order.asc(ID));
+        var field = order.getProperty();
+        var direction = order.getDirection();
+        var cursor = decode(after, field, direction);
+        var byId = Sort.by(direction, ID);
+
+        List<T> rows;
+        try {
+            if (ID.equals(field)) {
+                rows = find(repository, Specification.where(filter).and(seekId(cursor, direction)),
+                        byId, size + 1, fetches);
+            } else {
+                rows = new ArrayList<>(size + 1);
+                if (cursor == null || cursor.value() != null) {
+                    rows.addAll(find(repository, Specification.where(filter).and(seek(cursor, field, direction)),
+                            Sort.by(direction, field).and(byId), size + 1, fetches));
+                }
+                if (rows.size() <= size) {
+                    var nullCursor = cursor != null && cursor.value() == null ? cursor : null;
+                    var nullRows = Specification.where(filter).and(seekNull(nullCursor, field, direction));
+                    rows.addAll(find(repository, nullRows, byId, size + 1 - rows.size(), fetches));
+                }
+            }
+        } catch (IllegalArgumentException | InvalidDataAccessApiUsageException | PropertyReferenceException
+                 | ConversionException | DateTimeException e) {
+            throw new FieldsValidationException("Поле сортировки " + field
+                    + " не поддерживает постраничный вывод по курсору");
+        }
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+        var content = rows.subList(0, size);
+        return new KeysetPage<>(content, encode(content.get(size - 1), field, direction));
+    }
+
+    private static <T> List<T> find(
+            JpaSpecificationExecutor<T> repository,
+            Specification<T> specification,
+            Sort sort,
+            int limit,
+            String... fetches
+    ) {
+        return repository.findBy(specification, query -> query.project(fetches).sortBy(sort).limit(limit).all());
+    }
+
+    private static <T> Specification<T> seekId(Cursor cursor, Sort.Direction direction) {
+        return (root, query, criteriaBuilder) -> cursor == null
+                ? null
+                : afterId(criteriaBuilder, root.get(ID), cursor, direction);
+    }
+
+    /**
+     * Записи с заполненным полем сортировки после курсора
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Specification<T> seek(Cursor cursor, String field, Sort.Direction direction) {
+        return (root, query, criteriaBuilder) -> {
+            Path<Comparable> path = root.get(field);
+            var notNull = criteriaBuilder.isNotNull(path);
+            if (cursor == null) {
+                return notNull;
+            }
+            var value = (Comparable) parse(cursor.value(), path.getJavaType());
+            var tieBreak = criteriaBuilder.and(
+                    criteriaBuilder.equal(path, value),
+                    afterId(criteriaBuilder, root.get(ID), cursor, direction)
+            );
+            var after = direction.isAscending()
+                    ? criteriaBuilder.greaterThan(path, value)
+                    : criteriaBuilder.lessThan(path, value);
+            return criteriaBuilder.and(notNull, criteriaBuilder.or(after, tieBreak));
+        };
+    }
+
+    /**
+     * Записи с пустым полем сортировки после курсора, {@code null} - с начала
+     */
+    private static <T> Specification<T> seekNull(Cursor cursor, String field, Sort.Direction direction) {
+        return (root, query, criteriaBuilder) -> {
+            var isNull = criteriaBuilder.isNull(root.get(field));
+            if (cursor == null) {
+                return isNull;
+            }
+            return criteriaBuilder.and(isNull, afterId(criteriaBuilder, root.get(ID), cursor, direction));
+        };
+    }
+
+    private static Predicate afterId(
+            CriteriaBuilder criteriaBuilder,
+            Path<Long> id,
+            Cursor cursor,
+            Sort.Direction direction
+    ) {
+        return direction.isAscending()
+                ? criteriaBuilder.greaterThan(id, cursor.id())
+                : criteriaBuilder.lessThan(id, cursor.id());
+    }
+
+    private static Object parse(String value, Class<?> type) {
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(value);
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.parse(value);
+        }
+        return DefaultConversionService.getSharedInstance().convert(value, type);
+    }
+
+    private static String encode(Object entity, String field, Sort.Direction direction) {
+        var accessor = PropertyAccessorFactory.forBeanPropertyAccess(entity);
+        var fieldValue = accessor.getPropertyValue(field);
+        var id = String.valueOf(accessor.getPropertyValue(ID));
+        return fieldValue == null
+                ? CursorUtils.encodeParts(field, direction.name(), id)
+                : CursorUtils.encodeParts(field, direction.name(), id,
+                        fieldValue instanceof Enum<?> enumValue ? enumValue.name() : String.valueOf(fieldValue));
+    }
+
+    private static Cursor decode(String after, String field, Sort.Direction direction) {
+        if (after == null || after.isBlank()) {
+            return null;
+        }
+        var parts = CursorUtils.decodeParts(after, 4);
+        if (parts.length < 3 || !parts[0].equals(field) || !parts[1].equals(direction.name())) {
+            throw new FieldsValidationException("Курсор страницы не соответствует параметрам сортировки: " + after);
+        }
+        try {
+            return new Cursor(Long.parseLong(parts[2]), parts.length == 4 ? parts[3] : null);
+        } catch (NumberFormatException e) {
+            throw new FieldsValidationException("Некорректный курсор страницы: " + after);
+        }
+    }
+
+    /**
+     * Позиция курсора
+     * @param id ID последней записи
+     * @param value значение поля сортировки последней записи, {@code null} - поле не заполнено
+     */
+    private record Cursor(Long id, String value) {
+    }
+
+    /**
+     * Страница, выбранная по курсору
+     * @param content записи страницы
+     * @param nextCursor курсор следующей страницы, {@code null} - если страница последняя
+     */
+    public record KeysetPage<T>(List<T> content, String nextCursor) {
+    }
+}
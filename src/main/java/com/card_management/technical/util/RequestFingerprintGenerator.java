@@ -0,0 +1,58 @@
+package com.card_management.technical.util;
+
+import com.card_management.application.configuration.AppConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.crypto.codec.Hex;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * Вычисляет отпечаток параметров запроса - HMAC-SHA256 на ключе, выведенном из ключа отпечатков карт
+ * с отдельной меткой. Отпечаток запроса не совпадает с отпечатком номера карты при любых входных данных,
+ * а без ключа по нему нельзя подобрать номера карт из запроса.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestFingerprintGenerator {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final String LABEL = "request-fingerprint";
+
+    private final AppConfig appConfig;
+
+    private SecretKeySpec key;
+
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(this::newMac);
+
+    @PostConstruct
+    public void init() {
+        try {
+            var master = Mac.getInstance(ALGORITHM);
+            master.init(new SecretKeySpec(appConfig.getFingerprintKey().getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            key = new SecretKeySpec(master.doFinal(LABEL.getBytes(StandardCharsets.UTF_8)), ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Не удалось инициализировать " + ALGORITHM, e);
+        }
+    }
+
+    public String generate(String request) {
+        var digest = mac.get().doFinal(request.getBytes(StandardCharsets.UTF_8));
+        return new String(Hex.encode(digest));
+    }
+
+    private Mac newMac() {
+        try {
+            var instance = Mac.getInstance(ALGORITHM);
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Не удалось инициализировать " + ALGORITHM, e);
+        }
+    }
+}
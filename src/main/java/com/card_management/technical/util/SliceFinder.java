@@ -0,0 +1,60 @@
+package com.card_management.technical.util;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Постраничная выборка без подсчета общего количества записей.
+ * Страница выбирается явными OFFSET и LIMIT, запрашивается на одну запись больше размера страницы,
+ * по ней определяется наличие следующей страницы.
+ */
+@Component
+@RequiredArgsConstructor
+public class SliceFinder {
+
+    private final EntityManager entityManager;
+
+    /**
+     * Выбирает страницу с учетом фильтра, номера, размера страницы и сортировки из {@code pageable}
+     * @param entityType класс сущности
+     * @param filter фильтр, {@code null} - без фильтра
+     * @param pageable номер, размер страницы и сортировка
+     * @param fetches связи, загружаемые тем же запросом
+     * @return страница с признаком наличия следующей
+     */
+    public <T> Slice<T> findSlice(
+            Class<T> entityType,
+            Specification<T> filter,
+            Pageable pageable,
+            String... fetches
+    ) {
+        var criteriaBuilder = entityManager.getCriteriaBuilder();
+        var query = criteriaBuilder.createQuery(entityType);
+        var root = query.from(entityType);
+        if (filter != null) {
+            var predicate = filter.toPredicate(root, query, criteriaBuilder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, criteriaBuilder));
+        var typedQuery = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1);
+        if (fetches.length > 0) {
+            var graph = entityManager.createEntityGraph(entityType);
+            graph.addAttributeNodes(fetches);
+            typedQuery.setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, graph);
+        }
+        var content = typedQuery.getResultList();
+        var hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+}
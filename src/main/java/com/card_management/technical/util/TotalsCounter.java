@@ -0,0 +1,124 @@
+package com.card_management.technical.util;
+
+import com.card_management.application.configuration.TotalsConfig;
+import com.card_management.technical.enumeration.TotalsMode;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Подсчет общего количества элементов постраничных списков в выбранном клиентом режиме.
+ * В режиме {@link TotalsMode#ESTIMATED} количество кэшируется по таблице и нормализованному фильтру
+ * (без параметров страницы и сортировки). Для списков без фильтра на PostgreSQL используется оценка
+ * из статистики планировщика ({@code pg_class.reltuples}) вместо {@code COUNT(*)}.
+ * Метрики кэша публикуются под именем {@code listing.totals}.
+ */
+@Component
+public class TotalsCounter {
+
+    private static final Set<String> PAGING_FIELDS = Set.of(
+            "page", "size", "after", "sortBy", "sortDirection", "totals");
+
+    private static final String ESTIMATE_QUERY =
+            "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = to_regclass(:table)";
+
+    private final Cache<String, Long> totals;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean estimatesSupported;
+
+    private final String schema;
+
+    public TotalsCounter(
+            TotalsConfig totalsConfig,
+            EntityManager entityManager,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${spring.jpa.database:}") String database,
+            @Value("${spring.jpa.properties.hibernate.default_schema:}") String schema
+    ) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.estimatesSupported = "postgresql".equalsIgnoreCase(database);
+        this.schema = schema;
+        this.totals = Caffeine.newBuilder()
+                .maximumSize(totalsConfig.getMaximumSize())
+                .expireAfterWrite(totalsConfig.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, totals, "listing.totals");
+    }
+
+    /**
+     * Возвращает общее количество элементов списка
+     * @param mode режим подсчета
+     * @param table таблица сущности
+     * @param filter DTO фильтра, {@code null} - список без фильтра
+     * @param scope ограничение выборки вне фильтра (например, ID владельца), {@code null} - без ограничения
+     * @param exactCount точный подсчет количества
+     * @return количество элементов, {@code null} - в режиме {@link TotalsMode#NONE}
+     */
+    public Long count(TotalsMode mode, String table, Object filter, Object scope, LongSupplier exactCount) {
+        return switch (mode) {
+            case EXACT -> exactCount.getAsLong();
+            case NONE -> null;
+            case ESTIMATED -> {
+                var criteria = normalize(filter);
+                var unfiltered = criteria.isEmpty() && scope == null;
+                yield totals.get(table + "|" + Objects.toString(scope, "") + "|" + criteria,
+                        key -> unfiltered ? estimate(table, exactCount) : exactCount.getAsLong());
+            }
+        };
+    }
+
+    /**
+     * Количество страниц для заданного количества элементов
+     * @param total количество элементов, {@code null} - не подсчитано
+     * @param size размер страницы
+     * @return количество страниц, {@code null} - если количество элементов не подсчитано
+     */
+    public static Integer totalPages(Long total, int size) {
+        return total == null ? null : (int) ((total + size - 1) / size);
+    }
+
+    private Map<String, Object> normalize(Object filter) {
+        var criteria = new TreeMap<String, Object>();
+        if (filter == null) {
+            return criteria;
+        }
+        objectMapper.convertValue(filter, new TypeReference<Map<String, Object>>() { })
+                .forEach((field, value) -> {
+                    if (value != null && !PAGING_FIELDS.contains(field)) {
+                        criteria.put(field, value);
+                    }
+                });
+        return criteria;
+    }
+
+    private long estimate(String table, LongSupplier exactCount) {
+        if (!estimatesSupported) {
+            return exactCount.getAsLong();
+        }
+        var rows = entityManager.createNativeQuery(ESTIMATE_QUERY)
+                .setParameter("table", schema.isEmpty() ? table : schema + "." + table)
+                .getResultList();
+        var estimate = rows.isEmpty() ? null : (Number) rows.get(0);
+        // reltuples = -1, пока таблица не проанализирована
+        return estimate == null || estimate.longValue() < 0 ? exactCount.getAsLong() : estimate.longValue();
+    }
+}
@@ -1,12 +1,40 @@
 package com.card_management.technical.util.factory;
 
+import com.card_management.application.configuration.AppConfig;
 import com.card_management.technical.util.CardEncryptor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.stereotype.Component;
 
+/**
+ * Фабрика шифраторов с кэшем производных ключей.
+ * Вывод ключа (PBKDF2) выполняется один раз на пару пароль/соль, дальше шифратор берется из кэша.
+ * Новые карты шифруются общим ключом ({@link AppConfig#getKeySalt()}) со случайным IV на каждую карту,
+ * поэтому их создание берет ключ из кэша; карты, зашифрованные ранее на собственной соли, расшифровываются
+ * ключом своей соли.
+ * Метрики кэша публикуются под именем {@code card.encryptor.keys} (попадания, промахи, вытеснения).
+ */
 @Component
 public class CardEncryptorFactoryImpl implements CardEncryptorFactory {
+
+    private final Cache<DerivedKeyId, CardEncryptor> derivedKeys;
+
+    public CardEncryptorFactoryImpl(AppConfig appConfig, MeterRegistry meterRegistry) {
+        this.derivedKeys = Caffeine.newBuilder()
+                .maximumSize(appConfig.getKeyCache().getMaximumSize())
+                .expireAfterAccess(appConfig.getKeyCache().getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, derivedKeys, "card.encryptor.keys");
+    }
+
     @Override
     public CardEncryptor create(String password, String salt) {
-        return new CardEncryptor(password, salt);
+        return derivedKeys.get(new DerivedKeyId(password, salt), id -> new CardEncryptor(id.password(), id.salt()));
+    }
+
+    private record DerivedKeyId(String password, String salt) {
     }
 }
@@ -0,0 +1,26 @@
+package com.card_management.transaction_api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+@NoArgsConstructor
+@Schema(description = "DTO для пакетного создания транзакций")
+public class TransactionBatchCreateDto {
+
+    @Schema(
+            description = "Транзакции пакета",
+            requiredMode = Schema.RequiredMode.REQUIRED,
+            maxLength = 1000
+    )
+    @NotEmpty(message = "Пакет должен содержать хотя бы одну транзакцию")
+    @Size(max = 1000, message = "Пакет может содержать не более 1000 транзакций")
+    private List<TransactionCreateDto> transactions;
+}
@@ -0,0 +1,36 @@
+package com.card_management.transaction_api.dto;
+
+import com.card_management.transaction_api.enumeration.TransactionBatchItemStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Результат обработки одной транзакции пакета")
+public class TransactionBatchItemDto {
+
+    @Schema(description = "Порядковый номер транзакции в пакете, начиная с 0", example = "0")
+    private Integer index;
+
+    @Schema(description = "Результат обработки", implementation = TransactionBatchItemStatus.class)
+    private TransactionBatchItemStatus status;
+
+    @Schema(description = "Созданная транзакция, отсутствует у отклоненных")
+    private TransactionDto transaction;
+
+    @Schema(description = "Причина отклонения", example = "Недостаточно средств для совершения операции")
+    private String message;
+
+    public static TransactionBatchItemDto created(int index, TransactionDto transaction) {
+        return new TransactionBatchItemDto(index, TransactionBatchItemStatus.CREATED, transaction, null);
+    }
+
+    public static TransactionBatchItemDto rejected(int index, String message) {
+        return new TransactionBatchItemDto(index, TransactionBatchItemStatus.REJECTED, null, message);
+    }
+}
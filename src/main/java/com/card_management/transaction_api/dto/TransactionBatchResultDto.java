@@ -0,0 +1,24 @@
+package com.card_management.transaction_api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@Schema(description = "Результат пакетного создания транзакций")
+public class TransactionBatchResultDto {
+
+    @Schema(description = "Количество созданных транзакций", example = "998")
+    private Integer created;
+
+    @Schema(description = "Количество отклоненных транзакций", example = "2")
+    private Integer rejected;
+
+    @Schema(description = "Результаты по каждой транзакции в порядке пакета")
+    private List<TransactionBatchItemDto> items;
+}
@@ -3,6 +3,7 @@ package com.card_management.transaction_api.dto;
 import com.card_management.transaction_api.enumeration.TransactionType;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -13,6 +14,7 @@ import java.util.UUID;
 @Getter
 @Setter
 @NoArgsConstructor
+@AllArgsConstructor
 @Schema(description = "DTO для представления информации о транзакции")
 public class TransactionDto {
 
@@ -2,6 +2,7 @@ package com.card_management.transaction_api.dto;
 
 import com.card_management.technical.validation.ValidFormatDate;
 import com.card_management.technical.enumeration.SortDirection;
+import com.card_management.technical.enumeration.TotalsMode;
 import com.card_management.transaction_api.enumeration.TransactionSortFields;
 import com.card_management.transaction_api.enumeration.TransactionType;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -25,6 +26,19 @@ public class TransactionFilterDto {
     @Positive(message = "Введите положительное значение")
     private Integer size;
 
+    @Schema(
+            description = "Курсор следующей страницы из предыдущего ответа (режим курсора, page не учитывается). "
+                    + "Пустая строка - первая страница в режиме курсора",
+            example = "aWR8QVNDfDQyfDQy"
+    )
+    private String after;
+
+    @Schema(description = "Режим подсчета общего количества элементов, по умолчанию EXACT",
+            example = "NONE",
+            implementation = TotalsMode.class
+    )
+    private String totals;
+
     @Schema(
             description = "Значение сортировки",
             example = "createdAt",
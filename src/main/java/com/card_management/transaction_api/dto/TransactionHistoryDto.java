@@ -0,0 +1,27 @@
+package com.card_management.transaction_api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Страница истории операций по карте с курсором продолжения")
+public class TransactionHistoryDto {
+
+    @Schema(description = "Список транзакций от новых к старым")
+    private List<TransactionDto> transactions;
+
+    @Schema(description = "Курсор следующей страницы, отсутствует на последней странице",
+            example = "MjAyNS0wNS0xOFQxMjowMDowMHw0Mg")
+    private String nextCursor;
+
+    @Schema(description = "Общее количество транзакций по карте, возвращается при withTotal=true", example = "10")
+    private Long totalElements;
+}
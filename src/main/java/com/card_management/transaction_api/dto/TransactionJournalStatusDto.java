@@ -0,0 +1,31 @@
+package com.card_management.transaction_api.dto;
+
+import com.card_management.transaction_api.enumeration.TransactionJournalStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.UUID;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Состояние асинхронно принятой транзакции")
+public class TransactionJournalStatusDto {
+
+    @Schema(description = "UUID транзакции", example = "e7e31bc7-4d22-4d36-a907-b3ad2f46f3bb")
+    private UUID uuid;
+
+    @Schema(description = "Состояние транзакции", implementation = TransactionJournalStatus.class)
+    private TransactionJournalStatus status;
+
+    @Schema(description = "Созданная транзакция, только в состоянии APPLIED")
+    private TransactionDto transaction;
+
+    @Schema(description = "Причина отклонения, только в состоянии REJECTED",
+            example = "Недостаточно средств для совершения операции")
+    private String message;
+}
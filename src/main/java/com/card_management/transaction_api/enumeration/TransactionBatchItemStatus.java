@@ -0,0 +1,18 @@
+package com.card_management.transaction_api.enumeration;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Результат обработки операции пакета
+ */
+@Getter
+@RequiredArgsConstructor
+@Schema(enumAsRef = true, description = "Результат обработки операции пакета")
+public enum TransactionBatchItemStatus {
+    CREATED("Транзакция создана"),
+    REJECTED("Транзакция отклонена");
+
+    private final String description;
+}
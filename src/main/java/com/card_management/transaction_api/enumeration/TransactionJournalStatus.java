@@ -0,0 +1,19 @@
+package com.card_management.transaction_api.enumeration;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Состояние асинхронно принятой транзакции
+ */
+@Getter
+@RequiredArgsConstructor
+@Schema(enumAsRef = true, description = "Состояние асинхронно принятой транзакции")
+public enum TransactionJournalStatus {
+    PENDING("Транзакция записана в журнал и ожидает применения"),
+    APPLIED("Транзакция создана"),
+    REJECTED("Транзакция отклонена");
+
+    private final String description;
+}
@@ -0,0 +1,7 @@
+package com.card_management.transaction_api.exception;
+
+public class IngestionOverloadedException extends RuntimeException {
+    public IngestionOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,30 @@
+package com.card_management.transaction_api.journal;
+
+import java.util.UUID;
+
+/**
+ * Запись журнала транзакций. Номера карт хранятся зашифрованными
+ * @param sequence порядковый номер записи
+ * @param uuid UUID будущей транзакции
+ * @param userId ID пользователя
+ * @param salt соль шифрования номеров карт
+ * @param encryptedSourceNumber зашифрованный номер карты списания
+ * @param encryptedDestinationNumber зашифрованный номер карты зачисления
+ * @param transactionType тип транзакции
+ * @param amount сумма транзакции
+ */
+public record JournalEntry(
+        long sequence,
+        UUID uuid,
+        Long userId,
+        String salt,
+        String encryptedSourceNumber,
+        String encryptedDestinationNumber,
+        String transactionType,
+        Integer amount
+) {
+    public JournalEntry withSequence(long sequence) {
+        return new JournalEntry(sequence, uuid, userId, salt, encryptedSourceNumber, encryptedDestinationNumber,
+                transactionType, amount);
+    }
+}
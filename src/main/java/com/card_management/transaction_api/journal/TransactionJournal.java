@@ -0,0 +1,205 @@
+package com.card_management.transaction_api.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал транзакций только на добавление в отображаемых в память файлах-сегментах.
+ * Запись: длина (int), контрольная сумма CRC32 (long), JSON записи. Нулевая длина - конец данных сегмента.
+ * Запись с неверной контрольной суммой считается недописанной при сбое и завершает чтение сегмента.
+ * Номер последней примененной к БД записи хранится в файле {@value #APPLIED_FILE},
+ * сегменты, все записи которых применены, удаляются.
+ */
+public class TransactionJournal implements AutoCloseable {
+
+    private static final String APPLIED_FILE = "applied";
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final ObjectMapper objectMapper;
+
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+
+    private MappedByteBuffer current;
+
+    private long nextSequence;
+
+    private long applied;
+
+    public TransactionJournal(Path directory, int segmentSize, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Открывает журнал и читает записи, еще не примененные к БД. Новые записи пишутся в новый сегмент.
+     * @return непримененные записи в порядке номеров
+     */
+    public synchronized List<JournalEntry> recover() {
+        try {
+            Files.createDirectories(directory);
+            var appliedFile = directory.resolve(APPLIED_FILE);
+            applied = Files.exists(appliedFile) ? Long.parseLong(Files.readString(appliedFile).trim()) : 0;
+            try (var files = Files.list(directory)) {
+                files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                        .forEach(file -> segments.put(firstSequence(file), file));
+            }
+            var pending = new ArrayList<JournalEntry>();
+            var last = applied;
+            for (var segment : segments.values()) {
+                for (var entry : read(segment)) {
+                    last = Math.max(last, entry.sequence());
+                    if (entry.sequence() > applied) {
+                        pending.add(entry);
+                    }
+                }
+            }
+            nextSequence = last + 1;
+            openSegment(nextSequence);
+            return pending;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Добавляет запись в журнал, присваивая ей следующий номер. Запись становится надежной после {@link #force()}
+     * @param entry запись без номера
+     * @return запись с присвоенным номером
+     */
+    public synchronized JournalEntry append(JournalEntry entry) {
+        var numbered = entry.withSequence(nextSequence);
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(numbered);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        var size = HEADER_SIZE + payload.length;
+        if (size + Integer.BYTES > segmentSize) {
+            throw new IllegalArgumentException("Запись журнала больше размера сегмента");
+        }
+        if (current.remaining() < size + Integer.BYTES) {
+            current.force();
+            openSegment(nextSequence);
+        }
+        var crc = new CRC32();
+        crc.update(payload);
+        current.putInt(payload.length);
+        current.putLong(crc.getValue());
+        current.put(payload);
+        nextSequence++;
+        return numbered;
+    }
+
+    /**
+     * Сбрасывает на диск все добавленные записи
+     */
+    public void force() {
+        MappedByteBuffer buffer;
+        synchronized (this) {
+            buffer = current;
+        }
+        buffer.force();
+    }
+
+    /**
+     * Фиксирует номер последней примененной к БД записи и удаляет полностью примененные сегменты
+     * @param sequence номер записи
+     */
+    public synchronized void markApplied(long sequence) {
+        if (sequence <= applied) {
+            return;
+        }
+        try {
+            var temp = directory.resolve(APPLIED_FILE + ".tmp");
+            try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(ByteBuffer.wrap(Long.toString(sequence).getBytes(StandardCharsets.US_ASCII)));
+                channel.force(true);
+            }
+            Files.move(temp, directory.resolve(APPLIED_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            applied = sequence;
+            var last = segments.lastKey();
+            while (segments.firstKey() < last && segments.higherKey(segments.firstKey()) - 1 <= applied) {
+                Files.deleteIfExists(segments.pollFirstEntry().getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (current != null) {
+            current.force();
+        }
+    }
+
+    private void openSegment(long firstSequence) {
+        var file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        try {
+            // сегмент с этим номером может остаться от сбоя до первой надежной записи
+            Files.deleteIfExists(file);
+            try (var channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                current = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.put(firstSequence, file);
+    }
+
+    private List<JournalEntry> read(Path segment) throws IOException {
+        var entries = new ArrayList<JournalEntry>();
+        try (var channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= HEADER_SIZE) {
+                var length = buffer.getInt();
+                var checksum = buffer.getLong();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                var payload = new byte[length];
+                buffer.get(payload);
+                var crc = new CRC32();
+                crc.update(payload);
+                if (crc.getValue() != checksum) {
+                    break;
+                }
+                entries.add(objectMapper.readValue(payload, JournalEntry.class));
+            }
+        }
+        return entries;
+    }
+
+    private static long firstSequence(Path segment) {
+        var name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -5,9 +5,14 @@ import com.card_management.transaction_api.dto.TransactionDto;
 import com.card_management.transaction_api.model.Transaction;
 import com.card_management.users_api.mapper.UserMapper;
 import com.card_management.users_api.repository.UserRepository;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
 import org.mapstruct.*;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.List;
+
 @Mapper(
         nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE,
         componentModel = MappingConstants.ComponentModel.SPRING,
@@ -17,6 +22,30 @@ import org.springframework.beans.factory.annotation.Autowired;
 )
 public abstract class TransactionMapper {
 
+        /**
+         * Связи, которые читает {@link #map(Transaction)}, - те же, что в графе {@link Transaction#DTO_GRAPH}.
+         * Транзакции для этого преобразования загружаются вместе с ними одним запросом
+         */
+        public static final String[] DTO_FETCHES = {"user", "source", "destination"};
+
+        /**
+         * Колонки {@link TransactionDto} в порядке его конструктора - для выборки списков сразу в DTO,
+         * без загрузки сущностей. Должны соответствовать {@link #map(Transaction)}
+         * @param root корень запроса по транзакциям
+         * @return колонки DTO
+         */
+        public static List<Selection<?>> dtoColumns(Root<Transaction> root) {
+                return List.of(
+                        root.get("uuid"),
+                        root.join("user").get("uuid"),
+                        root.join("source").get("maskNumber"),
+                        root.join("destination", JoinType.LEFT).get("maskNumber"),
+                        root.get("transactionType"),
+                        root.get("amount"),
+                        root.get("createdAt")
+                );
+        }
+
         @Autowired
         protected UserRepository userRepository;
 
@@ -0,0 +1,75 @@
+package com.card_management.transaction_api.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ключ идемпотентности запроса на создание транзакции.
+ * Ключ уникален в пределах пользователя, повтор запроса с тем же ключом возвращает исходную транзакцию.
+ */
+@Getter
+@Setter
+@Entity
+@Table(
+        name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(
+                name = "idx_idempotency_keys_user_id_idempotency_key",
+                columnNames = {"user_id", "idempotency_key"}
+        )
+)
+@EntityListeners(AuditingEntityListener.class)
+@NoArgsConstructor
+public class IdempotencyKey {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false, updatable = false, unique = true)
+    private Long id;
+
+    /**
+     * ID пользователя, отправившего запрос
+     */
+    @NotNull
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private Long userId;
+
+    /**
+     * Значение заголовка Idempotency-Key
+     */
+    @NotNull
+    @Column(name = "idempotency_key", nullable = false, updatable = false)
+    private String idempotencyKey;
+
+    /**
+     * Отпечаток параметров запроса, повтор с тем же ключом и другими параметрами отклоняется
+     */
+    @NotNull
+    @Column(name = "request_fingerprint", nullable = false, updatable = false)
+    private String requestFingerprint;
+
+    /**
+     * Транзакция, созданная по запросу
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "transaction_id")
+    private Transaction transaction;
+
+    /**
+     * Дата и время первого запроса
+     */
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public IdempotencyKey(Long userId, String idempotencyKey, String requestFingerprint) {
+        this.userId = userId;
+        this.idempotencyKey = idempotencyKey;
+        this.requestFingerprint = requestFingerprint;
+    }
+}
@@ -22,9 +22,20 @@ import java.util.UUID;
 @Setter
 @Entity
 @Table(name = "transactions")
+@NamedEntityGraph(name = Transaction.DTO_GRAPH, attributeNodes = {
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode("source"),
+        @NamedAttributeNode("destination")
+})
 @EntityListeners(AuditingEntityListener.class)
 @NoArgsConstructor
 public class Transaction {
+    /**
+     * Граф загрузки для {@link com.card_management.transaction_api.dto.TransactionDto}:
+     * инициатор, карты списания и зачисления без их владельцев
+     */
+    public static final String DTO_GRAPH = "Transaction.dto";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id", nullable = false, updatable = false, unique = true)
@@ -41,7 +52,7 @@ public class Transaction {
      * Инициатор транзакции
      */
     @NotNull
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
@@ -49,17 +60,29 @@ public class Transaction {
      * Карта, используемая в качестве источника транзакции
      */
     @NotNull
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "source_id")
     private Card source;
 
     /**
      * Карта, используемая в качестве получателя средств или цели операции
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "destination_id")
     private Card destination;
 
+    /**
+     * Последние четыре цифры номера карты списания
+     */
+    @Column(name = "source_last_four")
+    private String sourceLastFour;
+
+    /**
+     * Последние четыре цифры номера карты зачисления
+     */
+    @Column(name = "destination_last_four")
+    private String destinationLastFour;
+
     /**
      * Тип транзакции
      */
@@ -0,0 +1,64 @@
+package com.card_management.transaction_api.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Отклонение транзакции, принятой через журнал.
+ * Записывается в той же транзакции БД, что и созданные транзакции пакета, поэтому результат
+ * асинхронного запроса не теряется при перезапуске.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "transaction_rejections")
+@EntityListeners(AuditingEntityListener.class)
+@NoArgsConstructor
+public class TransactionRejection {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false, updatable = false, unique = true)
+    private Long id;
+
+    /**
+     * UUID транзакции, назначенный при записи в журнал
+     */
+    @NotNull
+    @Column(name = "uuid", nullable = false, updatable = false, unique = true)
+    private UUID uuid;
+
+    /**
+     * ID пользователя, отправившего транзакцию
+     */
+    @NotNull
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private Long userId;
+
+    /**
+     * Причина отклонения, номера карт замаскированы
+     */
+    @NotNull
+    @Column(name = "message", nullable = false, updatable = false)
+    private String message;
+
+    /**
+     * Дата и время отклонения
+     */
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public TransactionRejection(UUID uuid, Long userId, String message) {
+        this.uuid = uuid;
+        this.userId = userId;
+        this.message = message;
+    }
+}
@@ -0,0 +1,46 @@
+package com.card_management.transaction_api.repository;
+
+import com.card_management.transaction_api.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Интерфейс-репозиторий для ключей идемпотентности
+ */
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+    /**
+     * Поиск ключа пользователя вместе с созданной по нему транзакцией, ее инициатором и картами
+     * @param userId ID пользователя
+     * @param idempotencyKey значение ключа
+     * @return ключ идемпотентности
+     */
+    @Query("select k from IdempotencyKey k left join fetch k.transaction t "
+            + "left join fetch t.user left join fetch t.source left join fetch t.destination "
+            + "where k.userId = :userId and k.idempotencyKey = :idempotencyKey")
+    Optional<IdempotencyKey> findByUserIdAndIdempotencyKey(
+            @Param("userId") Long userId,
+            @Param("idempotencyKey") String idempotencyKey);
+
+    /**
+     * Удаляет порцию ключей, созданных раньше указанного момента.
+     * Каждая порция выполняется в отдельной транзакции.
+     * @param createdBefore граница срока хранения ключей
+     * @param chunkSize максимальное количество ключей в порции
+     * @return количество удаленных ключей, меньше {@code chunkSize} - если устаревших ключей не осталось
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM {h-schema}idempotency_keys "
+            + "WHERE id IN (SELECT id FROM {h-schema}idempotency_keys "
+            + "WHERE created_at < :createdBefore "
+            + "ORDER BY created_at LIMIT :chunkSize)", nativeQuery = true)
+    int deleteExpired(@Param("createdBefore") LocalDateTime createdBefore, @Param("chunkSize") int chunkSize);
+}
@@ -0,0 +1,52 @@
+package com.card_management.transaction_api.repository;
+
+import com.card_management.transaction_api.model.TransactionRejection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Интерфейс-репозиторий для отклонений транзакций, принятых через журнал
+ */
+@Repository
+public interface TransactionRejectionRepository extends JpaRepository<TransactionRejection, Long> {
+    /**
+     * Поиск отклонения транзакции пользователя
+     * @param uuid UUID транзакции
+     * @param userId ID пользователя
+     * @return отклонение транзакции
+     */
+    Optional<TransactionRejection> findByUuidAndUserId(UUID uuid, Long userId);
+
+    /**
+     * Выбирает из списка UUID уже отклоненных транзакций
+     * @param uuids UUID транзакций
+     * @return UUID транзакций, отклонение которых уже записано
+     */
+    @Query("select r.uuid from TransactionRejection r where r.uuid in :uuids")
+    Set<UUID> findExistingUuids(@Param("uuids") Collection<UUID> uuids);
+
+    /**
+     * Удаляет порцию отклонений, записанных раньше указанного момента.
+     * Каждая порция выполняется в отдельной транзакции.
+     * @param createdBefore граница срока хранения отклонений
+     * @param chunkSize максимальное количество отклонений в порции
+     * @return количество удаленных отклонений, меньше {@code chunkSize} - если устаревших не осталось
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM {h-schema}transaction_rejections "
+            + "WHERE id IN (SELECT id FROM {h-schema}transaction_rejections "
+            + "WHERE created_at < :createdBefore "
+            + "ORDER BY created_at LIMIT :chunkSize)", nativeQuery = true)
+    int deleteExpired(@Param("createdBefore") LocalDateTime createdBefore, @Param("chunkSize") int chunkSize);
+}
@@ -3,10 +3,22 @@ package com.card_management.transaction_api.repository;
 import com.card_management.transaction_api.model.Transaction;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
 /**
  * Интерфейс-репозиторий для транзакций
  */
@@ -14,10 +26,111 @@ import org.springframework.stereotype.Repository;
 public interface TransactionRepository extends JpaRepository<Transaction, Long>,
         JpaSpecificationExecutor<Transaction> {
     /**
-     * Поиск всех транзакций принадлежащих пользователю
+     * Страница транзакций вместе с инициатором и картами
+     * @param pageable объект, содержащий информацию о пагинации и сортировке.
+     * @return список транзакций в виде объекта Page
+     */
+    @Override
+    @EntityGraph(Transaction.DTO_GRAPH)
+    Page<Transaction> findAll(Pageable pageable);
+
+    /**
+     * Страница транзакций, подходящих под фильтр, вместе с инициатором и картами
+     * @param spec фильтр
+     * @param pageable объект, содержащий информацию о пагинации и сортировке.
+     * @return список транзакций в виде объекта Page
+     */
+    @Override
+    @EntityGraph(Transaction.DTO_GRAPH)
+    Page<Transaction> findAll(Specification<Transaction> spec, Pageable pageable);
+
+    /**
+     * Поиск транзакции по ID вместе с инициатором и картами
+     * @param id ID транзакции
+     * @return транзакция, если найдена
+     */
+    @Override
+    @EntityGraph(Transaction.DTO_GRAPH)
+    Optional<Transaction> findById(Long id);
+
+    /**
+     * Поиск транзакций по списку ID вместе с инициатором и картами
+     * @param ids ID транзакций
+     * @param sort сортировка
+     * @return список транзакций
+     */
+    @EntityGraph(Transaction.DTO_GRAPH)
+    List<Transaction> findByIdIn(Collection<Long> ids, Sort sort);
+
+    /**
+     * Поиск транзакций пользователя, в которых карта с указанными последними цифрами
+     * является картой списания или зачисления
      * @param userId ID пользователя
+     * @param lastFour последние четыре цифры номера карты
      * @param pageable объект, содержащий информацию о пагинации и сортировке.
      * @return список транзакций в виде объекта Page
      */
-    Page<Transaction> findByUserId(Long userId, Pageable pageable);
+    @EntityGraph(Transaction.DTO_GRAPH)
+    @Query("select t from Transaction t where t.user.id = :userId "
+            + "and (t.sourceLastFour = :lastFour or t.destinationLastFour = :lastFour)")
+    Page<Transaction> findByUserIdAndCardLastFour(
+            @Param("userId") Long userId,
+            @Param("lastFour") String lastFour,
+            Pageable pageable);
+
+    /**
+     * ID транзакций страницы истории операций по карте: входящие и исходящие транзакции от новых к старым.
+     * Каждая ветка читается по индексу (source_id, created_at, id) или (destination_id, created_at, id)
+     * не дальше {@code limit} строк после позиции курсора.
+     * @param userId ID пользователя
+     * @param cardId ID карты
+     * @param createdAt дата создания последней выданной транзакции
+     * @param id ID последней выданной транзакции
+     * @param limit максимальное количество транзакций
+     * @return ID транзакций в порядке выдачи
+     */
+    @Query(value = "SELECT h.id FROM ("
+            + "(SELECT t.id, t.created_at FROM {h-schema}transactions t "
+            + "WHERE t.source_id = :cardId AND t.user_id = :userId "
+            + "AND (t.created_at < :createdAt OR (t.created_at = :createdAt AND t.id < :id)) "
+            + "ORDER BY t.created_at DESC, t.id DESC LIMIT :limit) "
+            + "UNION ALL "
+            + "(SELECT t.id, t.created_at FROM {h-schema}transactions t "
+            + "WHERE t.destination_id = :cardId AND t.source_id <> :cardId AND t.user_id = :userId "
+            + "AND (t.created_at < :createdAt OR (t.created_at = :createdAt AND t.id < :id)) "
+            + "ORDER BY t.created_at DESC, t.id DESC LIMIT :limit)"
+            + ") h ORDER BY h.created_at DESC, h.id DESC LIMIT :limit", nativeQuery = true)
+    List<Long> findCardHistoryIds(
+            @Param("userId") Long userId,
+            @Param("cardId") Long cardId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            @Param("limit") int limit);
+
+    /**
+     * Количество транзакций пользователя по карте (входящих и исходящих)
+     * @param userId ID пользователя
+     * @param cardId ID карты
+     * @return количество транзакций
+     */
+    @Query("select count(t) from Transaction t where t.user.id = :userId "
+            + "and (t.source.id = :cardId or t.destination.id = :cardId)")
+    long countCardHistory(@Param("userId") Long userId, @Param("cardId") Long cardId);
+
+    /**
+     * Поиск транзакции пользователя по UUID
+     * @param uuid UUID транзакции
+     * @param userId ID пользователя
+     * @return транзакция, если найдена
+     */
+    @EntityGraph(Transaction.DTO_GRAPH)
+    Optional<Transaction> findByUuidAndUserId(UUID uuid, Long userId);
+
+    /**
+     * Выбирает из списка UUID уже записанных транзакций
+     * @param uuids UUID транзакций
+     * @return UUID транзакций, которые уже есть в БД
+     */
+    @Query("select t.uuid from Transaction t where t.uuid in :uuids")
+    Set<UUID> findExistingUuids(@Param("uuids") Collection<UUID> uuids);
 }
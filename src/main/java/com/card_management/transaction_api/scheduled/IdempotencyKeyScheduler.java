@@ -0,0 +1,40 @@
+package com.card_management.transaction_api.scheduled;
+
+import com.card_management.application.configuration.IdempotencyConfig;
+import com.card_management.transaction_api.repository.IdempotencyKeyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Удаляет ключи идемпотентности старше срока хранения.
+ * Удаление выполняется порциями по индексу даты создания.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyKeyScheduler {
+
+    private static final int CHUNK_SIZE = 10_000;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final IdempotencyConfig idempotencyConfig;
+
+    @Scheduled(cron = "0 30 * * * ?")
+    public void deleteExpiredKeys() {
+        var startedAt = System.nanoTime();
+        var createdBefore = LocalDateTime.now().minus(idempotencyConfig.getRetention());
+        var total = 0;
+        int deleted;
+        do {
+            deleted = idempotencyKeyRepository.deleteExpired(createdBefore, CHUNK_SIZE);
+            total += deleted;
+        } while (deleted == CHUNK_SIZE);
+        log.info("Удалены устаревшие ключи идемпотентности: {} ключей за {} мс",
+                total, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+}
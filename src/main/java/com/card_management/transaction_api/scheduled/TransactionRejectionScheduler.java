@@ -0,0 +1,40 @@
+package com.card_management.transaction_api.scheduled;
+
+import com.card_management.application.configuration.JournalConfig;
+import com.card_management.transaction_api.repository.TransactionRejectionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Удаляет отклонения транзакций журнала старше срока хранения.
+ * Удаление выполняется порциями по индексу даты создания.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionRejectionScheduler {
+
+    private static final int CHUNK_SIZE = 10_000;
+
+    private final TransactionRejectionRepository transactionRejectionRepository;
+
+    private final JournalConfig journalConfig;
+
+    @Scheduled(cron = "0 45 * * * ?")
+    public void deleteExpiredRejections() {
+        var startedAt = System.nanoTime();
+        var createdBefore = LocalDateTime.now().minus(journalConfig.getRejectionRetention());
+        var total = 0;
+        int deleted;
+        do {
+            deleted = transactionRejectionRepository.deleteExpired(createdBefore, CHUNK_SIZE);
+            total += deleted;
+        } while (deleted == CHUNK_SIZE);
+        log.info("Удалены устаревшие отклонения транзакций журнала: {} записей за {} мс",
+                total, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+}
@@ -0,0 +1,279 @@
+package com.card_management.transaction_api.service;
+
+import com.card_management.cards_api.exception.BlockedCardException;
+import com.card_management.cards_api.model.Card;
+import com.card_management.cards_api.service.CardService;
+import com.card_management.controllers.common.TransactionValidator;
+import com.card_management.ledger_api.service.LedgerService;
+import com.card_management.limits_api.exception.ExceedingLimitException;
+import com.card_management.limits_api.model.Limit;
+import com.card_management.limits_api.service.LimitService;
+import com.card_management.technical.exception.FieldsValidationException;
+import com.card_management.technical.exception.ResourceNotFoundException;
+import com.card_management.transaction_api.dto.TransactionBatchItemDto;
+import com.card_management.transaction_api.dto.TransactionBatchResultDto;
+import com.card_management.transaction_api.dto.TransactionCreateDto;
+import com.card_management.transaction_api.dto.TransactionDto;
+import com.card_management.transaction_api.enumeration.TransactionType;
+import com.card_management.transaction_api.exception.InsufficientFundsForTransactionException;
+import com.card_management.transaction_api.mapper.TransactionMapper;
+import com.card_management.transaction_api.model.Transaction;
+import com.card_management.users_api.model.User;
+import com.card_management.users_api.repository.UserRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Пакетное создание транзакций пользователя в одной транзакции БД.
+ * Пользователь, лимиты и все карты пакета читаются одним запросом каждый и блокируются до конца транзакции
+ * (лимиты, затем карты по возрастанию ID - в том же порядке, что и при одиночных операциях).
+ * Балансы и лимиты проверяются по каждой операции в памяти, новые транзакции вставляются пакетами JDBC,
+ * вместе с проводками по картам, а измененные карты и лимиты записываются по одному UPDATE на строку
+ * при завершении транзакции.
+ */
+@Service
+public class TransactionBatchService {
+
+    public static final int INSERT_BATCH_SIZE = 500;
+
+    private final UserRepository userRepository;
+
+    private final CardService cardService;
+
+    private final LimitService limitService;
+
+    private final LedgerService ledgerService;
+
+    private final TransactionValidator transactionValidator;
+
+    private final Validator validator;
+
+    private final TransactionMapper transactionMapper;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String insertSql;
+
+    public TransactionBatchService(
+            UserRepository userRepository,
+            CardService cardService,
+            LimitService limitService,
+            LedgerService ledgerService,
+            TransactionValidator transactionValidator,
+            Validator validator,
+            TransactionMapper transactionMapper,
+            JdbcTemplate jdbcTemplate,
+            @Value("${spring.jpa.properties.hibernate.default_schema:}") String schema
+    ) {
+        this.userRepository = userRepository;
+        this.cardService = cardService;
+        this.limitService = limitService;
+        this.ledgerService = ledgerService;
+        this.transactionValidator = transactionValidator;
+        this.validator = validator;
+        this.transactionMapper = transactionMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertSql = "INSERT INTO " + (schema.isBlank() ? "" : schema + ".") + "transactions "
+                + "(uuid, user_id, source_id, destination_id, source_last_four, destination_last_four, "
+                + "transaction_type, amount, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    }
+
+    /**
+     * Создает транзакции пакета. Операции, не прошедшие проверки (в том числе проверки полей),
+     * отклоняются по отдельности и не влияют на остальные операции пакета.
+     * @param transactions операции пакета
+     * @param userId ID пользователя
+     * @return результат по каждой операции в порядке пакета
+     */
+    @Transactional
+    public TransactionBatchResultDto createBatch(List<TransactionCreateDto> transactions, Long userId) {
+        var outcomes = apply(transactions, userId);
+        var items = new ArrayList<TransactionBatchItemDto>(outcomes.size());
+        var created = 0;
+        for (var i = 0; i < outcomes.size(); i++) {
+            var outcome = outcomes.get(i);
+            if (outcome.error() == null) {
+                items.add(TransactionBatchItemDto.created(i, outcome.transaction()));
+                created++;
+            } else {
+                items.add(TransactionBatchItemDto.rejected(i, outcome.error().getMessage()));
+            }
+        }
+        return new TransactionBatchResultDto(created, transactions.size() - created, items);
+    }
+
+    /**
+     * Применяет операции пользователя в текущей транзакции БД, не открывая собственную.
+     * Исключения проверок операций не пробрасываются, а возвращаются в результате операции.
+     * @param transactions операции пользователя
+     * @param userId ID пользователя
+     * @return результат по каждой операции в порядке списка
+     */
+    public List<Outcome> apply(List<TransactionCreateDto> transactions, Long userId) {
+        return apply(transactions, userId, transactions.stream()
+                .map(transactionDto -> UUID.randomUUID())
+                .toList());
+    }
+
+    /**
+     * Применяет операции пользователя в текущей транзакции БД с заранее назначенными UUID транзакций
+     * @param transactions операции пользователя
+     * @param userId ID пользователя
+     * @param uuids UUID транзакций в порядке операций
+     * @return результат по каждой операции в порядке списка
+     */
+    public List<Outcome> apply(List<TransactionCreateDto> transactions, Long userId, List<UUID> uuids) {
+        var user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Пользователь с ID " + userId + " не найден"));
+        var limits = limitService.lockUserLimits(user.getId());
+        var numbers = new HashSet<String>();
+        transactions.forEach(transactionDto -> {
+            if (transactionDto == null) {
+                return;
+            }
+            if (transactionDto.getSourceNumber() != null) {
+                numbers.add(transactionDto.getSourceNumber());
+            }
+            if (transactionDto.getDestinationNumber() != null) {
+                numbers.add(transactionDto.getDestinationNumber());
+            }
+        });
+        var cards = cardService.lockUserCardsByNumbers(numbers, user.getId());
+
+        var today = LocalDate.now();
+        var now = LocalDateTime.now();
+        var outcomes = new ArrayList<Outcome>(transactions.size());
+        var created = new ArrayList<Transaction>();
+        for (var i = 0; i < transactions.size(); i++) {
+            try {
+                var transaction = admit(transactions.get(i), user, cards, limits, today);
+                transaction.setUuid(uuids.get(i));
+                transaction.setCreatedAt(now);
+                created.add(transaction);
+                outcomes.add(new Outcome(transactionMapper.map(transaction), null));
+            } catch (FieldsValidationException | ResourceNotFoundException | BlockedCardException
+                     | ExceedingLimitException | InsufficientFundsForTransactionException e) {
+                outcomes.add(new Outcome(null, e));
+            }
+        }
+        insert(created);
+        ledgerService.recordAll(created, INSERT_BATCH_SIZE);
+        return outcomes;
+    }
+
+    /**
+     * Проверяет операцию в том же порядке, что и одиночное создание транзакции,
+     * и учитывает ее в балансах заблокированных карт и в лимитах
+     */
+    private Transaction admit(
+            TransactionCreateDto transactionDto,
+            User user,
+            Map<String, Card> cards,
+            List<Limit> limits,
+            LocalDate today
+    ) {
+        validateFields(transactionDto);
+        transactionValidator.validateCreateTransaction(transactionDto);
+        var transactionType = TransactionType.valueOf(transactionDto.getTransactionType());
+        var amount = transactionDto.getAmount();
+        var applicableLimits = limitService.checkAvailable(limits, transactionType, amount, today);
+        var source = findCard(cards, transactionDto.getSourceNumber(), user.getId());
+        cardService.checkCardStatus(source);
+        Card destination = null;
+        if (transactionDto.getDestinationNumber() != null) {
+            destination = findCard(cards, transactionDto.getDestinationNumber(), user.getId());
+            cardService.checkCardStatus(destination);
+        }
+        if (source.getBalance() < amount) {
+            throw new InsufficientFundsForTransactionException("Недостаточно средств для совершения операции");
+        }
+
+        applicableLimits.forEach(limit -> limit.addExpenses(amount, today));
+        source.setBalance(source.getBalance() - amount);
+        if (destination != null) {
+            destination.setBalance(destination.getBalance() + amount);
+        }
+
+        var transaction = new Transaction();
+        transaction.setUser(user);
+        transaction.setTransactionType(transactionType);
+        transaction.setAmount(amount);
+        transaction.setSource(source);
+        transaction.setSourceLastFour(source.getLastFourDigits());
+        transaction.setDestination(destination);
+        if (destination != null) {
+            transaction.setDestinationLastFour(destination.getLastFourDigits());
+        }
+        return transaction;
+    }
+
+    /**
+     * Проверяет ограничения полей операции. Пакет не валидируется каскадно в контроллере,
+     * чтобы ошибка в одной операции отклоняла только ее, а не весь пакет.
+     */
+    private void validateFields(TransactionCreateDto transactionDto) {
+        if (transactionDto == null) {
+            throw new FieldsValidationException("Транзакция пакета не задана");
+        }
+        var violations = validator.validate(transactionDto);
+        if (!violations.isEmpty()) {
+            throw new FieldsValidationException(violations.stream()
+                    .sorted(Comparator.comparing((ConstraintViolation<?> violation) ->
+                                    violation.getPropertyPath().toString())
+                            .thenComparing(ConstraintViolation::getMessage))
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+
+    private Card findCard(Map<String, Card> cards, String numberCard, Long userId) {
+        var card = cards.get(numberCard);
+        if (card == null) {
+            throw new ResourceNotFoundException("Карта с номером " + numberCard
+                    + " не принадлежит пользователю с ID " + userId);
+        }
+        return card;
+    }
+
+    private void insert(List<Transaction> transactions) {
+        jdbcTemplate.batchUpdate(insertSql, transactions, INSERT_BATCH_SIZE, (statement, transaction) -> {
+            statement.setObject(1, transaction.getUuid());
+            statement.setLong(2, transaction.getUser().getId());
+            statement.setLong(3, transaction.getSource().getId());
+            if (transaction.getDestination() != null) {
+                statement.setLong(4, transaction.getDestination().getId());
+            } else {
+                statement.setNull(4, Types.BIGINT);
+            }
+            statement.setString(5, transaction.getSourceLastFour());
+            statement.setString(6, transaction.getDestinationLastFour());
+            statement.setString(7, transaction.getTransactionType().name());
+            statement.setInt(8, transaction.getAmount());
+            statement.setTimestamp(9, Timestamp.valueOf(transaction.getCreatedAt()));
+        });
+    }
+
+    /**
+     * Результат операции пакета: созданная транзакция либо причина отклонения
+     * @param transaction созданная транзакция
+     * @param error причина отклонения
+     */
+    public record Outcome(TransactionDto transaction, RuntimeException error) {
+    }
+}
@@ -0,0 +1,165 @@
+package com.card_management.transaction_api.service;
+
+import com.card_management.application.configuration.IdempotencyConfig;
+import com.card_management.technical.exception.FieldsValidationException;
+import com.card_management.technical.util.RequestFingerprintGenerator;
+import com.card_management.transaction_api.dto.TransactionCreateDto;
+import com.card_management.transaction_api.dto.TransactionDto;
+import com.card_management.transaction_api.exception.IdempotencyKeyReuseException;
+import com.card_management.transaction_api.mapper.TransactionMapper;
+import com.card_management.transaction_api.model.IdempotencyKey;
+import com.card_management.transaction_api.repository.IdempotencyKeyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Идемпотентное создание транзакций по заголовку {@code Idempotency-Key}.
+ * Повторы отвечаются из ограниченного кэша в памяти без обращения к базе, при промахе - из таблицы ключей.
+ * Одновременные запросы с одним ключом на одном экземпляре ожидают результат первого,
+ * на разных экземплярах сводятся к одному выполнению уникальным индексом (user_id, idempotency_key).
+ * Метрики кэша публикуются под именем {@code transaction.idempotency}.
+ */
+@Service
+public class TransactionIdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final TransactionService transactionService;
+
+    private final TransactionIngestionService transactionIngestionService;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final TransactionMapper transactionMapper;
+
+    private final RequestFingerprintGenerator requestFingerprintGenerator;
+
+    private final Cache<IdempotencyId, Replay> replays;
+
+    private final ConcurrentMap<IdempotencyId, CompletableFuture<Replay>> inFlight = new ConcurrentHashMap<>();
+
+    public TransactionIdempotencyService(
+            TransactionService transactionService,
+            TransactionIngestionService transactionIngestionService,
+            IdempotencyKeyRepository idempotencyKeyRepository,
+            TransactionMapper transactionMapper,
+            RequestFingerprintGenerator requestFingerprintGenerator,
+            IdempotencyConfig idempotencyConfig,
+            MeterRegistry meterRegistry
+    ) {
+        this.transactionService = transactionService;
+        this.transactionIngestionService = transactionIngestionService;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionMapper = transactionMapper;
+        this.requestFingerprintGenerator = requestFingerprintGenerator;
+        this.replays = Caffeine.newBuilder()
+                .maximumSize(idempotencyConfig.getMaximumSize())
+                .expireAfterWrite(idempotencyConfig.getCacheTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, replays, "transaction.idempotency");
+    }
+
+    /**
+     * Создает транзакцию или возвращает транзакцию, уже созданную по тому же ключу.
+     * Запросы без ключа проходят через групповой прием, запросы с ключом записывают ключ
+     * в одной транзакции БД с операцией и выполняются отдельно.
+     * @param transactionDto данные транзакции
+     * @param userId ID пользователя
+     * @param idempotencyKey ключ идемпотентности, {@code null} - запрос без ключа
+     * @return созданная ранее или новая транзакция
+     * @throws IdempotencyKeyReuseException если ключ уже использован для запроса с другими параметрами
+     */
+    public TransactionDto create(TransactionCreateDto transactionDto, Long userId, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return transactionIngestionService.create(transactionDto, userId);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new FieldsValidationException("Ключ идемпотентности должен содержать от 1 до "
+                    + MAX_KEY_LENGTH + " символов");
+        }
+        var id = new IdempotencyId(userId, idempotencyKey);
+        var fingerprint = fingerprint(transactionDto);
+        var cached = replays.getIfPresent(id);
+        if (cached != null) {
+            return cached.resolve(fingerprint);
+        }
+        var own = new CompletableFuture<Replay>();
+        var running = inFlight.putIfAbsent(id, own);
+        if (running != null) {
+            return await(running).resolve(fingerprint);
+        }
+        try {
+            var replay = idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                    .map(this::toReplay)
+                    .orElseGet(() -> execute(transactionDto, userId, idempotencyKey, fingerprint));
+            replays.put(id, replay);
+            own.complete(replay);
+            return replay.resolve(fingerprint);
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, own);
+        }
+    }
+
+    private Replay execute(TransactionCreateDto transactionDto, Long userId, String idempotencyKey, String fingerprint) {
+        try {
+            return new Replay(fingerprint,
+                    transactionService.create(transactionDto, userId, idempotencyKey, fingerprint));
+        } catch (DataIntegrityViolationException e) {
+            // ключ записан параллельным запросом на другом экземпляре
+            return idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                    .map(this::toReplay)
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private Replay toReplay(IdempotencyKey key) {
+        return new Replay(key.getRequestFingerprint(), transactionMapper.map(key.getTransaction()));
+    }
+
+    private String fingerprint(TransactionCreateDto transactionDto) {
+        return requestFingerprintGenerator.generate(String.join("|",
+                Objects.toString(transactionDto.getSourceNumber(), ""),
+                Objects.toString(transactionDto.getDestinationNumber(), ""),
+                Objects.toString(transactionDto.getTransactionType(), "").toUpperCase(Locale.ROOT),
+                Objects.toString(transactionDto.getAmount(), "")));
+    }
+
+    private static Replay await(CompletableFuture<Replay> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record IdempotencyId(Long userId, String idempotencyKey) {
+    }
+
+    private record Replay(String fingerprint, TransactionDto transaction) {
+        TransactionDto resolve(String requestFingerprint) {
+            if (!fingerprint.equals(requestFingerprint)) {
+                throw new IdempotencyKeyReuseException(
+                        "Ключ идемпотентности уже использован для запроса с другими параметрами");
+            }
+            return transaction;
+        }
+    }
+}
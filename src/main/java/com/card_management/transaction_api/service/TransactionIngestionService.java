@@ -0,0 +1,222 @@
+package com.card_management.transaction_api.service;
+
+import com.card_management.application.configuration.IngestionConfig;
+import com.card_management.technical.exception.ResourceNotFoundException;
+import com.card_management.transaction_api.dto.TransactionCreateDto;
+import com.card_management.transaction_api.dto.TransactionDto;
+import com.card_management.transaction_api.exception.IngestionOverloadedException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Групповой прием запросов на создание транзакций.
+ * Запросы раскладываются по ограниченным очередям по карте списания, поток записи каждой очереди
+ * забирает их пакетами до {@code maxBatchSize} запросов или до истечения {@code maxLinger}
+ * и фиксирует весь пакет одной транзакцией БД. Каждый запрос получает свой результат после фиксации пакета.
+ * При переполнении очереди запрос сразу отклоняется, а не ожидает в памяти.
+ * Если пакет не удается зафиксировать, он делится пополам, и половины фиксируются по отдельности,
+ * чтобы ошибка одного запроса не отклоняла остальные запросы пакета.
+ * Если групповой прием выключен, транзакция создается в собственной транзакции БД.
+ */
+@Slf4j
+@Service
+public class TransactionIngestionService {
+
+    private static final long POLL_TIMEOUT_MS = 500;
+
+    private final TransactionService transactionService;
+
+    private final TransactionBatchService transactionBatchService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final IngestionConfig ingestionConfig;
+
+    private final List<BlockingQueue<Pending>> partitions = new ArrayList<>();
+
+    private final List<Thread> writers = new ArrayList<>();
+
+    private volatile boolean running;
+
+    public TransactionIngestionService(
+            TransactionService transactionService,
+            TransactionBatchService transactionBatchService,
+            PlatformTransactionManager transactionManager,
+            IngestionConfig ingestionConfig
+    ) {
+        this.transactionService = transactionService;
+        this.transactionBatchService = transactionBatchService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ingestionConfig = ingestionConfig;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!ingestionConfig.isEnabled()) {
+            return;
+        }
+        running = true;
+        for (var i = 0; i < ingestionConfig.getPartitions(); i++) {
+            var queue = new ArrayBlockingQueue<Pending>(ingestionConfig.getQueueCapacity());
+            partitions.add(queue);
+            var writer = new Thread(() -> drain(queue), "transaction-ingestion-" + i);
+            writer.setDaemon(true);
+            writers.add(writer);
+            writer.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (var writer : writers) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /**
+     * Создает транзакцию
+     * @param transactionDto данные транзакции
+     * @param userId ID пользователя
+     * @return созданная транзакция
+     * @throws IngestionOverloadedException если очередь раздела заполнена
+     * или результат не получен за {@code resultTimeout}
+     */
+    public TransactionDto create(TransactionCreateDto transactionDto, Long userId) {
+        if (!running) {
+            return transactionService.create(transactionDto, userId);
+        }
+        var pending = new Pending(transactionDto, userId, new CompletableFuture<>());
+        var partition = Math.floorMod(transactionDto.getSourceNumber().hashCode(), partitions.size());
+        if (!partitions.get(partition).offer(pending)) {
+            throw new IngestionOverloadedException("Сервис перегружен, повторите запрос позже");
+        }
+        try {
+            return pending.result().get(ingestionConfig.getResultTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // еще не взятый в пакет запрос не будет применен: поток записи пропускает завершенные запросы
+            pending.result().cancel(false);
+            throw new IngestionOverloadedException("Сервис перегружен, повторите запрос позже");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.result().cancel(false);
+            throw new IngestionOverloadedException("Прием транзакций прерван, повторите запрос позже");
+        }
+    }
+
+    private void drain(BlockingQueue<Pending> queue) {
+        var batch = new ArrayList<Pending>(ingestionConfig.getMaxBatchSize());
+        try {
+            while (running || !queue.isEmpty()) {
+                var first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(queue, batch);
+                batch.removeIf(pending -> pending.result().isDone());
+                commit(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        var rejected = new IngestionOverloadedException("Прием транзакций остановлен, повторите запрос позже");
+        batch.forEach(pending -> pending.result().completeExceptionally(rejected));
+        queue.forEach(pending -> pending.result().completeExceptionally(rejected));
+    }
+
+    private void collect(BlockingQueue<Pending> queue, List<Pending> batch) throws InterruptedException {
+        var maxBatchSize = ingestionConfig.getMaxBatchSize();
+        var deadline = System.nanoTime() + ingestionConfig.getMaxLinger().toNanos();
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        while (batch.size() < maxBatchSize) {
+            var next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    /**
+     * Фиксирует пакет одной транзакцией БД. Запросы группируются по пользователю,
+     * пользователи обрабатываются по возрастанию ID, чтобы потоки записи блокировали строки в одном порядке.
+     * Результаты отдаются вызывающим только после фиксации.
+     * Ошибки проверки запроса входят в его результат; при любой другой ошибке пакет делится пополам,
+     * а запрос, который не удается зафиксировать даже один, получает эту ошибку.
+     */
+    private void commit(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        var byUser = new TreeMap<Long, List<Pending>>();
+        batch.forEach(pending -> byUser.computeIfAbsent(pending.userId(), id -> new ArrayList<>()).add(pending));
+        var outcomes = new IdentityHashMap<Pending, TransactionBatchService.Outcome>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                outcomes.clear();
+                byUser.forEach((userId, pendings) -> apply(userId, pendings, outcomes));
+            });
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                log.error("Не удалось зафиксировать транзакцию", e);
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            log.error("Не удалось зафиксировать пакет из {} транзакций, пакет будет разделен", batch.size(), e);
+            var middle = batch.size() / 2;
+            commit(batch.subList(0, middle));
+            commit(batch.subList(middle, batch.size()));
+            return;
+        }
+        batch.forEach(pending -> {
+            var outcome = outcomes.get(pending);
+            if (outcome.error() == null) {
+                pending.result().complete(outcome.transaction());
+            } else {
+                pending.result().completeExceptionally(outcome.error());
+            }
+        });
+    }
+
+    private void apply(Long userId, List<Pending> pendings, Map<Pending, TransactionBatchService.Outcome> outcomes) {
+        try {
+            var results = transactionBatchService.apply(
+                    pendings.stream()
+                            .map(Pending::transactionDto)
+                            .toList(),
+                    userId);
+            for (var i = 0; i < pendings.size(); i++) {
+                outcomes.put(pendings.get(i), results.get(i));
+            }
+        } catch (ResourceNotFoundException e) {
+            pendings.forEach(pending -> outcomes.put(pending, new TransactionBatchService.Outcome(null, e)));
+        }
+    }
+
+    private record Pending(TransactionCreateDto transactionDto, Long userId, CompletableFuture<TransactionDto> result) {
+    }
+}
@@ -0,0 +1,439 @@
+package com.card_management.transaction_api.service;
+
+import com.card_management.application.configuration.AppConfig;
+import com.card_management.application.configuration.JournalConfig;
+import com.card_management.technical.exception.ResourceNotFoundException;
+import com.card_management.technical.util.CardUtils;
+import com.card_management.technical.util.factory.CardEncryptorFactory;
+import com.card_management.transaction_api.dto.TransactionCreateDto;
+import com.card_management.transaction_api.dto.TransactionJournalStatusDto;
+import com.card_management.transaction_api.enumeration.TransactionJournalStatus;
+import com.card_management.transaction_api.exception.IngestionOverloadedException;
+import com.card_management.transaction_api.journal.JournalEntry;
+import com.card_management.transaction_api.journal.TransactionJournal;
+import com.card_management.transaction_api.mapper.TransactionMapper;
+import com.card_management.transaction_api.model.TransactionRejection;
+import com.card_management.transaction_api.repository.TransactionRejectionRepository;
+import com.card_management.transaction_api.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Асинхронное создание транзакций через локальный журнал.
+ * Запрос подтверждается, как только запись журнала сброшена на диск: записи, добавленные за интервал сброса,
+ * фиксируются одним fsync. Фоновый поток применяет записи к БД пакетами в порядке номеров,
+ * используя ту же проверку операций, что и пакетное создание. Применение безопасно повторять:
+ * UUID транзакции назначается при записи в журнал, и уже записанные в БД транзакции и отклонения пропускаются.
+ * Отклонения хранятся в БД рядом с созданными транзакциями, номера карт в их причинах замаскированы.
+ * При старте непримененные записи журнала применяются заново. Если БД недоступна, пакет повторяется
+ * с нарастающей паузой до успешного применения, а прием запросов продолжается, пока число непримененных записей
+ * не достигнет {@link JournalConfig#getMaxPending()}.
+ * Если сброс журнала на диск завершился ошибкой, прием через журнал прекращается до перезапуска, и новые транзакции
+ * создаются сразу в БД. Записи несброшенного пакета уже в журнале и могут быть применены повторно при старте,
+ * поэтому они остаются в состоянии PENDING и применяются как обычно: повторное применение по UUID пропускается.
+ */
+@Slf4j
+@Service
+public class TransactionJournalService {
+
+    private static final long POLL_TIMEOUT_MS = 500;
+
+    private static final String UNPROCESSABLE_MESSAGE = "Транзакция не может быть обработана";
+
+    private final TransactionService transactionService;
+
+    private final TransactionBatchService transactionBatchService;
+
+    private final TransactionRepository transactionRepository;
+
+    private final TransactionRejectionRepository transactionRejectionRepository;
+
+    private final TransactionMapper transactionMapper;
+
+    private final CardEncryptorFactory cardEncryptorFactory;
+
+    private final AppConfig appConfig;
+
+    private final JournalConfig journalConfig;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<UUID, JournalEntry> pending = new ConcurrentHashMap<>();
+
+    private final ConcurrentLinkedQueue<Waiter> unflushed = new ConcurrentLinkedQueue<>();
+
+    private BlockingQueue<JournalEntry> unapplied;
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private TransactionJournal journal;
+
+    private volatile boolean running;
+
+    /**
+     * Принимаются ли транзакции в журнал. Сбрасывается при ошибке сброса журнала на диск
+     */
+    private volatile boolean accepting;
+
+    public TransactionJournalService(
+            TransactionService transactionService,
+            TransactionBatchService transactionBatchService,
+            TransactionRepository transactionRepository,
+            TransactionRejectionRepository transactionRejectionRepository,
+            TransactionMapper transactionMapper,
+            CardEncryptorFactory cardEncryptorFactory,
+            AppConfig appConfig,
+            JournalConfig journalConfig,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.transactionService = transactionService;
+        this.transactionBatchService = transactionBatchService;
+        this.transactionRepository = transactionRepository;
+        this.transactionRejectionRepository = transactionRejectionRepository;
+        this.transactionMapper = transactionMapper;
+        this.cardEncryptorFactory = cardEncryptorFactory;
+        this.appConfig = appConfig;
+        this.journalConfig = journalConfig;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!journalConfig.isEnabled()) {
+            return;
+        }
+        journal = new TransactionJournal(journalConfig.getDirectory(), journalConfig.getSegmentSize(), objectMapper);
+        var recovered = journal.recover();
+        recovered.forEach(entry -> pending.put(entry.uuid(), entry));
+        // каждая запись очереди также учтена в pending, поэтому прием в submit ограничивает и очередь
+        unapplied = new LinkedBlockingQueue<>(Math.max(journalConfig.getMaxPending(), recovered.size()));
+        unapplied.addAll(recovered);
+        if (!recovered.isEmpty()) {
+            log.info("Из журнала восстановлено непримененных транзакций: {}", recovered.size());
+        }
+        running = true;
+        accepting = true;
+        workers.add(new Thread(this::flush, "transaction-journal-flusher"));
+        workers.add(new Thread(this::applyLoop, "transaction-journal-applier"));
+        workers.forEach(worker -> {
+            worker.setDaemon(true);
+            worker.start();
+        });
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        synchronized (this) {
+            accepting = false;
+        }
+        running = false;
+        for (var worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Принимает транзакцию: записывает ее в журнал и возвращает управление после сброса записи на диск.
+     * Если журнал выключен или прием через него остановлен ошибкой сброса на диск, транзакция создается сразу.
+     * @param transactionDto данные транзакции
+     * @param userId ID пользователя
+     * @return состояние транзакции
+     * @throws IngestionOverloadedException если непримененных записей журнала слишком много
+     */
+    public TransactionJournalStatusDto submit(TransactionCreateDto transactionDto, Long userId) {
+        if (!accepting) {
+            return createDirectly(transactionDto, userId);
+        }
+        var entrySalt = appConfig.getKeySalt();
+        var encryptor = cardEncryptorFactory.create(appConfig.getPassword(), entrySalt);
+        var destinationNumber = transactionDto.getDestinationNumber();
+        var entry = new JournalEntry(
+                0,
+                UUID.randomUUID(),
+                userId,
+                entrySalt,
+                encryptor.encryptCardNumber(transactionDto.getSourceNumber()),
+                destinationNumber == null ? null : encryptor.encryptCardNumber(destinationNumber),
+                transactionDto.getTransactionType(),
+                transactionDto.getAmount());
+        var durable = new CompletableFuture<Void>();
+        boolean journaled;
+        synchronized (this) {
+            // прием мог быть остановлен ошибкой сброса журнала после проверки в начале метода
+            journaled = accepting;
+            if (journaled) {
+                if (pending.size() >= journalConfig.getMaxPending()) {
+                    throw new IngestionOverloadedException("Журнал транзакций переполнен, повторите запрос позже");
+                }
+                var numbered = journal.append(entry);
+                pending.put(numbered.uuid(), numbered);
+                unflushed.add(new Waiter(numbered, durable));
+            }
+        }
+        if (!journaled) {
+            return createDirectly(transactionDto, userId);
+        }
+        durable.join();
+        return new TransactionJournalStatusDto(entry.uuid(), TransactionJournalStatus.PENDING, null, null);
+    }
+
+    private TransactionJournalStatusDto createDirectly(TransactionCreateDto transactionDto, Long userId) {
+        var transaction = transactionService.create(transactionDto, userId);
+        return new TransactionJournalStatusDto(
+                transaction.getUuid(), TransactionJournalStatus.APPLIED, transaction, null);
+    }
+
+    /**
+     * Возвращает состояние транзакции пользователя, принятой через журнал
+     * @param uuid UUID транзакции
+     * @param userId ID пользователя
+     * @return состояние транзакции
+     */
+    public TransactionJournalStatusDto getStatus(UUID uuid, Long userId) {
+        var entry = pending.get(uuid);
+        if (entry != null && entry.userId().equals(userId)) {
+            return new TransactionJournalStatusDto(uuid, TransactionJournalStatus.PENDING, null, null);
+        }
+        var transaction = transactionRepository.findByUuidAndUserId(uuid, userId);
+        if (transaction.isPresent()) {
+            return new TransactionJournalStatusDto(
+                    uuid, TransactionJournalStatus.APPLIED, transactionMapper.map(transaction.get()), null);
+        }
+        var rejection = transactionRejectionRepository.findByUuidAndUserId(uuid, userId);
+        if (rejection.isPresent()) {
+            return new TransactionJournalStatusDto(
+                    uuid, TransactionJournalStatus.REJECTED, null, rejection.get().getMessage());
+        }
+        throw new ResourceNotFoundException("Транзакция с UUID " + uuid + " не найдена");
+    }
+
+    private void flush() {
+        var intervalNanos = journalConfig.getFlushInterval().toNanos();
+        while (running || !unflushed.isEmpty()) {
+            var batch = new ArrayList<Waiter>();
+            Waiter waiter;
+            while ((waiter = unflushed.poll()) != null) {
+                batch.add(waiter);
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    journal.force();
+                } catch (RuntimeException e) {
+                    log.error("Не удалось сбросить журнал транзакций на диск, прием через журнал остановлен", e);
+                    synchronized (this) {
+                        accepting = false;
+                    }
+                }
+                batch.forEach(flushed -> {
+                    unapplied.add(flushed.entry());
+                    flushed.durable().complete(null);
+                });
+            }
+            LockSupport.parkNanos(intervalNanos);
+        }
+    }
+
+    private void applyLoop() {
+        var batch = new ArrayList<JournalEntry>(journalConfig.getApplyBatchSize());
+        try {
+            while (running || !unapplied.isEmpty()) {
+                var first = unapplied.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                unapplied.drainTo(batch, journalConfig.getApplyBatchSize() - 1);
+                if (!applyOrSplit(batch)) {
+                    return;
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Применяет пакет записей. При временной ошибке БД пакет повторяется с удваивающейся паузой.
+     * При любой другой ошибке пакет делится пополам, и половины применяются по порядку.
+     * Запись, которую не удается применить даже одну, отклоняется, чтобы не блокировать следующие записи.
+     * @return false, если прием остановлен до применения пакета: записи будут применены при следующем старте
+     */
+    private boolean applyOrSplit(List<JournalEntry> batch) throws InterruptedException {
+        var retryInterval = journalConfig.getRetryInterval();
+        var poisoned = false;
+        while (true) {
+            try {
+                if (poisoned) {
+                    reject(batch.get(0));
+                } else {
+                    apply(batch);
+                }
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    log.error("Не удалось применить к БД пакет журнала из {} транзакций, повтор через {} мс",
+                            batch.size(), retryInterval.toMillis(), e);
+                    if (!running) {
+                        return false;
+                    }
+                    TimeUnit.MILLISECONDS.sleep(retryInterval.toMillis());
+                    retryInterval = min(retryInterval.multipliedBy(2), journalConfig.getMaxRetryInterval());
+                    continue;
+                }
+                if (poisoned) {
+                    log.error("Не удалось записать отклонение транзакции журнала {}, запись пропущена",
+                            batch.get(0).uuid(), e);
+                } else if (batch.size() == 1) {
+                    log.error("Транзакция журнала {} не может быть применена и будет отклонена",
+                            batch.get(0).uuid(), e);
+                    poisoned = true;
+                    continue;
+                } else {
+                    var middle = batch.size() / 2;
+                    return applyOrSplit(batch.subList(0, middle))
+                            && applyOrSplit(batch.subList(middle, batch.size()));
+                }
+            }
+            batch.forEach(entry -> pending.remove(entry.uuid()));
+            journal.markApplied(batch.stream()
+                    .mapToLong(JournalEntry::sequence)
+                    .max()
+                    .orElseThrow());
+            return true;
+        }
+    }
+
+    /**
+     * Применяет пакет записей одной транзакцией БД. Операции группируются по пользователю,
+     * пользователи обрабатываются по возрастанию ID. Уже записанные в БД транзакции и отклонения пропускаются,
+     * новые отклонения записываются в той же транзакции БД.
+     */
+    private void apply(List<JournalEntry> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            var rejected = new TreeMap<Long, String>();
+            var uuids = batch.stream()
+                    .map(JournalEntry::uuid)
+                    .toList();
+            var existing = new HashSet<>(transactionRepository.findExistingUuids(uuids));
+            existing.addAll(transactionRejectionRepository.findExistingUuids(uuids));
+            var byUser = new TreeMap<Long, List<JournalEntry>>();
+            batch.stream()
+                    .filter(entry -> !existing.contains(entry.uuid()))
+                    .forEach(entry -> byUser.computeIfAbsent(entry.userId(), id -> new ArrayList<>()).add(entry));
+            byUser.forEach((userId, entries) -> apply(userId, entries, rejected));
+            transactionRejectionRepository.saveAll(batch.stream()
+                    .filter(entry -> rejected.containsKey(entry.sequence()))
+                    .map(entry -> new TransactionRejection(
+                            entry.uuid(),
+                            entry.userId(),
+                            CardUtils.maskCardNumbers(rejected.get(entry.sequence()))))
+                    .toList());
+        });
+    }
+
+    /**
+     * Отклоняет запись, которую не удалось применить, если она еще не записана в БД
+     */
+    private void reject(JournalEntry entry) {
+        transactionTemplate.executeWithoutResult(status -> {
+            var uuids = List.of(entry.uuid());
+            if (transactionRepository.findExistingUuids(uuids).isEmpty()
+                    && transactionRejectionRepository.findExistingUuids(uuids).isEmpty()) {
+                transactionRejectionRepository.save(
+                        new TransactionRejection(entry.uuid(), entry.userId(), UNPROCESSABLE_MESSAGE));
+            }
+        });
+    }
+
+    /**
+     * Временная ошибка - недоступность БД или соединения, после которой тот же пакет может быть применен
+     */
+    private static boolean isTransient(Throwable error) {
+        for (var cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof TransactionSystemException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Duration min(Duration first, Duration second) {
+        return first.compareTo(second) <= 0 ? first : second;
+    }
+
+    private void apply(Long userId, List<JournalEntry> entries, Map<Long, String> rejected) {
+        try {
+            var outcomes = transactionBatchService.apply(
+                    entries.stream()
+                            .map(this::toCreateDto)
+                            .toList(),
+                    userId,
+                    entries.stream()
+                            .map(JournalEntry::uuid)
+                            .toList());
+            for (var i = 0; i < entries.size(); i++) {
+                var error = outcomes.get(i).error();
+                if (error != null) {
+                    rejected.put(entries.get(i).sequence(), error.getMessage());
+                }
+            }
+        } catch (ResourceNotFoundException e) {
+            entries.forEach(entry -> rejected.put(entry.sequence(), e.getMessage()));
+        }
+    }
+
+    private TransactionCreateDto toCreateDto(JournalEntry entry) {
+        var encryptor = cardEncryptorFactory.create(appConfig.getPassword(), entry.salt());
+        var transactionDto = new TransactionCreateDto();
+        transactionDto.setSourceNumber(encryptor.decryptCardNumber(entry.encryptedSourceNumber()));
+        if (entry.encryptedDestinationNumber() != null) {
+            transactionDto.setDestinationNumber(encryptor.decryptCardNumber(entry.encryptedDestinationNumber()));
+        }
+        transactionDto.setTransactionType(entry.transactionType());
+        transactionDto.setAmount(entry.amount());
+        return transactionDto;
+    }
+
+    private record Waiter(JournalEntry entry, CompletableFuture<Void> durable) {
+    }
+}
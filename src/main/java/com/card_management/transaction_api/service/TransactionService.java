@@ -3,25 +3,39 @@ package com.card_management.transaction_api.service;
 import com.card_management.cards_api.model.Card;
 import com.card_management.cards_api.service.CardService;
 import com.card_management.controllers.common.TransactionValidator;
-import com.card_management.limits_api.enumeration.LimitType;
-import com.card_management.limits_api.repository.LimitRepository;
+import com.card_management.ledger_api.dto.CardBalanceDto;
+import com.card_management.ledger_api.service.LedgerService;
 import com.card_management.limits_api.service.LimitService;
+import com.card_management.technical.enumeration.ExportFormat;
+import com.card_management.technical.enumeration.TotalsMode;
 import com.card_management.technical.exception.ResourceNotFoundException;
+import com.card_management.technical.util.CursorUtils;
+import com.card_management.technical.util.DataExporter;
+import com.card_management.technical.util.DtoProjector;
+import com.card_management.technical.util.KeysetUtils;
+import com.card_management.technical.util.TotalsCounter;
 import com.card_management.transaction_api.dto.*;
 import com.card_management.transaction_api.enumeration.TransactionType;
 import com.card_management.transaction_api.exception.InsufficientFundsForTransactionException;
 import com.card_management.transaction_api.mapper.TransactionMapper;
+import com.card_management.transaction_api.model.IdempotencyKey;
+import com.card_management.transaction_api.model.Transaction;
+import com.card_management.transaction_api.repository.IdempotencyKeyRepository;
 import com.card_management.transaction_api.repository.TransactionRepository;
 import com.card_management.transaction_api.specification.TransactionSpecifications;
 import com.card_management.users_api.repository.UserRepository;
 import com.card_management.users_api.service.UserService;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.stream.Stream;
+import java.time.LocalDateTime;
+import java.util.List;
 
 import static com.card_management.technical.util.PaginationUtils.createPageable;
 
@@ -29,8 +43,12 @@ import static com.card_management.technical.util.PaginationUtils.createPageable;
 @RequiredArgsConstructor
 public class TransactionService {
 
+    private static final Sort HISTORY_ORDER = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+
     private final TransactionRepository transactionRepository;
 
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
     private final TransactionMapper transactionMapper;
 
     private final UserRepository userRepository;
@@ -39,21 +57,39 @@ public class TransactionService {
 
     private final LimitService limitService;
 
-    private final LimitRepository limitRepository;
-
     private final TransactionValidator transactionValidator;
 
     private final CardService cardService;
 
-    public TransactionEnvelopDto getTransactions(int page, int size, String sort) {
+    private final LedgerService ledgerService;
+
+    private final TotalsCounter totalsCounter;
+
+    private final DataExporter dataExporter;
+
+    private final DtoProjector dtoProjector;
+
+    @Transactional(readOnly = true)
+    public TransactionEnvelopDto getTransactions(int page, int size, String sort, String after, String totals) {
         transactionValidator.validSortFields(sort);
+        var totalsMode = TotalsMode.of(totals);
         var pageRequest = PageRequest.of(page -1, size, Sort.by(sort));
-        var transactionPage = transactionRepository.findAll(pageRequest);
-        var transactionsDto = transactionPage.stream()
-                .map(transactionMapper::map)
-                .toList();
+        if (after != null) {
+            return findTransactionsAfter(null, after, pageRequest);
+        }
+        if (totalsMode != TotalsMode.EXACT) {
+            return findTransactionsSlice(null, null, null, pageRequest, totalsMode);
+        }
+        var transactionPage = dtoProjector.findPage(
+                Transaction.class,
+                null,
+                pageRequest,
+                TransactionDto.class,
+                TransactionMapper::dtoColumns,
+                transactionRepository::count
+        );
         return new TransactionEnvelopDto(
-                transactionsDto,
+                transactionPage.getContent(),
                 transactionPage.getTotalElements(),
                 transactionPage.getTotalPages()
         );
@@ -67,26 +103,55 @@ public class TransactionService {
 
     @Transactional
     public TransactionDto create(TransactionCreateDto transactionDto, Long userId) {
+        return transactionMapper.map(createTransaction(transactionDto, userId));
+    }
+
+    /**
+     * Создает транзакцию и записывает ключ идемпотентности в той же транзакции БД.
+     * Ключ записывается до списания средств: параллельный запрос с тем же ключом ожидает
+     * на уникальном индексе и завершается ошибкой, не затрагивая балансы и лимиты.
+     * @param transactionDto данные транзакции
+     * @param userId ID пользователя
+     * @param idempotencyKey ключ идемпотентности
+     * @param requestFingerprint отпечаток параметров запроса
+     * @return созданная транзакция
+     */
+    @Transactional
+    public TransactionDto create(
+            TransactionCreateDto transactionDto,
+            Long userId,
+            String idempotencyKey,
+            String requestFingerprint
+    ) {
+        var key = idempotencyKeyRepository.saveAndFlush(
+                new IdempotencyKey(userId, idempotencyKey, requestFingerprint));
+        var transaction = createTransaction(transactionDto, userId);
+        key.setTransaction(transaction);
+        return transactionMapper.map(transaction);
+    }
+
+    private Transaction createTransaction(TransactionCreateDto transactionDto, Long userId) {
         var user = userService.findById(userId);
         processingLimits(transactionDto, userId);
         var sourceEntity = cardService.findMatchByNumberCard(transactionDto.getSourceNumber(), user.getId());
         cardService.checkCardStatus(sourceEntity);
-        checkBalancesCard(sourceEntity, transactionDto.getAmount());
-        sourceEntity.setBalance(sourceEntity.getBalance() - transactionDto.getAmount());
+        Card destinationEntity = null;
+        if (transactionDto.getDestinationNumber() != null) {
+            destinationEntity = cardService.findMatchByNumberCard(transactionDto.getDestinationNumber(), user.getId());
+            cardService.checkCardStatus(destinationEntity);
+        }
+        transferFunds(sourceEntity, destinationEntity, transactionDto.getAmount());
 
         var transaction = transactionMapper.map(transactionDto, userId);
         transaction.setSource(sourceEntity);
-        sourceEntity.getOutgoingTransactions().add(transaction);
-        if (transactionDto.getDestinationNumber() != null) {
-            var destinationEntity = cardService.findMatchByNumberCard(transactionDto.getDestinationNumber(), user.getId());
-            cardService.checkCardStatus(destinationEntity);
-            destinationEntity.setBalance(destinationEntity.getBalance() + transactionDto.getAmount());
-            transaction.setDestination(destinationEntity);
-            destinationEntity.getIncomingTransactions().add(transaction);
+        transaction.setSourceLastFour(sourceEntity.getLastFourDigits());
+        transaction.setDestination(destinationEntity);
+        if (destinationEntity != null) {
+            transaction.setDestinationLastFour(destinationEntity.getLastFourDigits());
         }
-        sourceEntity.getOwner().getTransactions().add(transaction);
         transactionRepository.save(transaction);
-        return transactionMapper.map(transaction);
+        ledgerService.record(transaction);
+        return transaction;
     }
 
     public void delete(Long id) {
@@ -97,34 +162,54 @@ public class TransactionService {
 
     private void processingLimits(TransactionCreateDto transactionDto, Long userId) {
         var transactionType = TransactionType.valueOf(transactionDto.getTransactionType());
-        var limitDaly = limitRepository.getLimitByUserIdAndLimitTypeAndTransactionType(userId,
-                LimitType.DAILY, transactionType);
-        var limitMonthly = limitRepository.getLimitByUserIdAndLimitTypeAndTransactionType(userId,
-                LimitType.MONTHLY, transactionType);
+        limitService.reserve(userId, transactionType, transactionDto.getAmount());
+    }
 
-        limitService.canTransaction(limitDaly, transactionDto.getAmount());
-        limitService.canTransaction(limitMonthly, transactionDto.getAmount());
-        limitService.registerTransaction(limitDaly, transactionDto.getAmount());
-        limitService.registerTransaction(limitMonthly, transactionDto.getAmount());
+    /**
+     * Списание и зачисление выполняются условными UPDATE без чтения баланса в Java.
+     * Строки карт блокируются в порядке возрастания ID, чтобы встречные переводы не взаимоблокировались.
+     */
+    private void transferFunds(Card source, Card destination, Integer amount) {
+        if (destination != null && destination.getId() < source.getId()) {
+            credit(destination, amount);
+            debit(source, amount);
+        } else {
+            debit(source, amount);
+            if (destination != null) {
+                credit(destination, amount);
+            }
+        }
     }
 
-    private void checkBalancesCard(Card card, Integer amount) {
-        if (card.getBalance() < amount) {
+    private void debit(Card card, Integer amount) {
+        if (!cardService.debitBalance(card, amount)) {
             throw new InsufficientFundsForTransactionException("Недостаточно средств для совершения операции");
         }
     }
 
+    private void credit(Card card, Integer amount) {
+        if (!cardService.creditBalance(card, amount)) {
+            throw new ResourceNotFoundException("Карта " + card.getMaskNumber() + " не найдена");
+        }
+    }
+
+    @Transactional(readOnly = true)
     public TransactionEnvelopDto getUserTransactions(Long userId, int page, int size, String sort) {
         userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Пользователь с ID " + userId + " не найден"));
         transactionValidator.validSortFields(sort);
         var pageRequest = PageRequest.of(page -1, size, Sort.by(sort));
-        var transactionPage = transactionRepository.findByUserId(userId, pageRequest);
-        var transactionDto = transactionPage.stream()
-                .map(transactionMapper::map)
-                .toList();
+        var filter = TransactionSpecifications.byUser(userId);
+        var transactionPage = dtoProjector.findPage(
+                Transaction.class,
+                filter,
+                pageRequest,
+                TransactionDto.class,
+                TransactionMapper::dtoColumns,
+                () -> transactionRepository.count(filter)
+        );
         return new TransactionEnvelopDto(
-                transactionDto,
+                transactionPage.getContent(),
                 transactionPage.getTotalElements(),
                 transactionPage.getTotalPages()
         );
@@ -156,28 +241,70 @@ public class TransactionService {
         transactionValidator.validSortFields(sort);
         var pageRequest = PageRequest.of(page -1, size, Sort.by(sort));
         var transactionPage = transactionRepository
-                .findByUserId(userId, pageRequest);
-        var transactionsBySource = transactionPage.stream()
-                .filter(card -> cardService.getCardLastFourDigits(card.getSource()).equals(cardLastFourDigits))
-                .map(transactionMapper::map)
-                .toList();
-        var transactionsByDestination = transactionPage.stream()
-                .filter(card -> card.getDestination() != null
-                        && cardService.getCardLastFourDigits(card.getDestination()).equals(cardLastFourDigits))
+                .findByUserIdAndCardLastFour(userId, cardLastFourDigits, pageRequest);
+        var transactionsList = transactionPage.stream()
                 .map(transactionMapper::map)
                 .toList();
-        var transactionsList = Stream.concat(
-                        transactionsBySource.stream(),
-                        transactionsByDestination.stream()
-                )
-                .toList();
         return new TransactionEnvelopDto(
                 transactionsList,
-                transactionsList.size(),
+                transactionPage.getTotalElements(),
                 transactionPage.getTotalPages()
         );
     }
 
+    /**
+     * Возвращает страницу истории операций по карте пользователя от новых к старым.
+     * Следующая страница запрашивается по курсору из предыдущей, без смещения.
+     * @param userId ID пользователя
+     * @param cardLastFourDigits последние четыре цифры номера карты
+     * @param after курсор предыдущей страницы, {@code null} - первая страница
+     * @param size размер страницы
+     * @param withTotal вычислять ли общее количество транзакций по карте
+     * @return страница истории
+     */
+    public TransactionHistoryDto getUserCardHistory(
+            Long userId,
+            String cardLastFourDigits,
+            String after,
+            int size,
+            boolean withTotal
+    ) {
+        var card = cardService.findUserCardByLastFourDigits(userId, cardLastFourDigits);
+        var cursor = CursorUtils.decode(after);
+        var ids = transactionRepository.findCardHistoryIds(
+                userId, card.getId(), cursor.createdAt(), cursor.id(), size + 1);
+        var transactions = ids.isEmpty()
+                ? List.<Transaction>of()
+                : transactionRepository.findByIdIn(ids, HISTORY_ORDER);
+        String nextCursor = null;
+        if (transactions.size() > size) {
+            transactions = transactions.subList(0, size);
+            var last = transactions.get(size - 1);
+            nextCursor = CursorUtils.encode(last.getCreatedAt(), last.getId());
+        }
+        var total = withTotal ? transactionRepository.countCardHistory(userId, card.getId()) : null;
+        return new TransactionHistoryDto(
+                transactions.stream()
+                        .map(transactionMapper::map)
+                        .toList(),
+                nextCursor,
+                total
+        );
+    }
+
+    /**
+     * Возвращает баланс карты пользователя на указанный момент, вычисленный по журналу проводок
+     * @param userId ID пользователя
+     * @param cardLastFourDigits последние четыре цифры номера карты
+     * @param at момент времени, {@code null} - текущий момент
+     * @return баланс карты
+     */
+    public CardBalanceDto getUserCardBalanceAt(Long userId, String cardLastFourDigits, LocalDateTime at) {
+        var card = cardService.findUserCardByLastFourDigits(userId, cardLastFourDigits);
+        var moment = at != null ? at : LocalDateTime.now();
+        return new CardBalanceDto(card.getMaskNumber(), ledgerService.getBalanceAt(card, moment), moment);
+    }
+
     public TransactionEnvelopDto filterTransactionsForAdmin(TransactionAdminFilterDto adminFilterDto) {
         if (adminFilterDto.getUserId() == null) {
             return filterTransactions(adminFilterDto.getTransactionFilterDto(), null);
@@ -186,6 +313,7 @@ public class TransactionService {
         return filterTransactions(adminFilterDto.getTransactionFilterDto(), user.getId());
     }
 
+    @Transactional(readOnly = true)
     public TransactionEnvelopDto filterTransactions(TransactionFilterDto filterDto, Long userId) {
         var pageable = createPageable(
                 filterDto,
@@ -196,16 +324,105 @@ public class TransactionService {
                 "createdAt",
                 "DESC"
         );
-        var transactionsPage = transactionRepository.findAll(
-                TransactionSpecifications.withFilter(filterDto, userId), pageable
+        var totalsMode = TotalsMode.of(filterDto.getTotals());
+        if (filterDto.getAfter() != null) {
+            return findTransactionsAfter(
+                    TransactionSpecifications.withFilter(filterDto, userId), filterDto.getAfter(), pageable);
+        }
+        if (totalsMode != TotalsMode.EXACT) {
+            return findTransactionsSlice(
+                    TransactionSpecifications.withFilter(filterDto, userId), filterDto, userId, pageable, totalsMode);
+        }
+        var filter = TransactionSpecifications.withFilter(filterDto, userId);
+        var transactionsPage = dtoProjector.findPage(
+                Transaction.class,
+                filter,
+                pageable,
+                TransactionDto.class,
+                TransactionMapper::dtoColumns,
+                () -> transactionRepository.count(filter)
         );
-        var transactionDtoList = transactionsPage.stream()
-                .map(transactionMapper::map)
-                .toList();
         return new TransactionEnvelopDto(
-                transactionDtoList,
+                transactionsPage.getContent(),
                 transactionsPage.getTotalElements(),
                 transactionsPage.getTotalPages()
         );
     }
+
+    public StreamingResponseBody exportTransactionsForAdmin(
+            TransactionAdminFilterDto adminFilterDto,
+            ExportFormat format
+    ) {
+        if (adminFilterDto.getUserId() == null) {
+            return exportTransactions(adminFilterDto.getTransactionFilterDto(), null, format);
+        }
+        var user = userService.findById(adminFilterDto.getUserId());
+        return exportTransactions(adminFilterDto.getTransactionFilterDto(), user.getId(), format);
+    }
+
+    /**
+     * Потоковая выгрузка всех транзакций, подходящих под фильтр, одним запросом.
+     * Параметры страницы из фильтра не учитываются, сортировка по умолчанию - по ID.
+     * @param filterDto фильтр транзакций
+     * @param userId ID пользователя, {@code null} - транзакции всех пользователей
+     * @param format формат выгрузки
+     * @return тело ответа с выгрузкой
+     */
+    public StreamingResponseBody exportTransactions(
+            TransactionFilterDto filterDto,
+            Long userId,
+            ExportFormat format
+    ) {
+        var sort = createPageable(
+                filterDto,
+                TransactionFilterDto::getSortBy,
+                TransactionFilterDto::getSortDirection,
+                TransactionFilterDto::getPage,
+                TransactionFilterDto::getSize,
+                "id",
+                "ASC"
+        ).getSort();
+        return dataExporter.export(
+                Transaction.class,
+                TransactionSpecifications.withFilter(filterDto, userId),
+                sort,
+                transactionMapper::map,
+                TransactionDto.class,
+                format,
+                TransactionMapper.DTO_FETCHES
+        );
+    }
+
+    private TransactionEnvelopDto findTransactionsAfter(
+            Specification<Transaction> filter,
+            String after,
+            Pageable pageable
+    ) {
+        var transactionPage = KeysetUtils.findPage(
+                transactionRepository, filter, after, pageable, TransactionMapper.DTO_FETCHES);
+        var transactionDtoList = transactionPage.content().stream()
+                .map(transactionMapper::map)
+                .toList();
+        return new TransactionEnvelopDto(transactionDtoList, null, null, transactionPage.nextCursor(), null);
+    }
+
+    private TransactionEnvelopDto findTransactionsSlice(
+            Specification<Transaction> filter,
+            TransactionFilterDto filterDto,
+            Long userId,
+            Pageable pageable,
+            TotalsMode totalsMode
+    ) {
+        var transactionSlice = dtoProjector.findSlice(
+                Transaction.class, filter, pageable, TransactionDto.class, TransactionMapper::dtoColumns);
+        var total = totalsCounter.count(
+                totalsMode, "transactions", filterDto, userId, () -> transactionRepository.count(filter));
+        return new TransactionEnvelopDto(
+                transactionSlice.getContent(),
+                total,
+                TotalsCounter.totalPages(total, pageable.getPageSize()),
+                null,
+                transactionSlice.hasNext()
+        );
+    }
 }
@@ -26,18 +26,16 @@ public class TransactionSpecifications {
             }
 
             if (filter.getSourceCardLastFour() != null) {
-                String pattern = "%" + filter.getSourceCardLastFour();
-                predicates.add(criteriaBuilder.like(
-                        root.get("source").get("maskNumber"),
-                        pattern
+                predicates.add(criteriaBuilder.equal(
+                        root.get("sourceLastFour"),
+                        filter.getSourceCardLastFour()
                 ));
             }
 
             if (filter.getDestinationCardLastFour() != null) {
-                String pattern = "%" + filter.getDestinationCardLastFour();
-                predicates.add(criteriaBuilder.like(
-                        root.get("destination").get("maskNumber"),
-                        pattern
+                predicates.add(criteriaBuilder.equal(
+                        root.get("destinationLastFour"),
+                        filter.getDestinationCardLastFour()
                 ));
             }
 
@@ -111,4 +109,11 @@ public class TransactionSpecifications {
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    public static Specification<Transaction> byUser(Long userId) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.equal(
+                root.get("user").get("id"),
+                userId
+        );
+    }
 }
@@ -1,5 +1,6 @@
 package com.card_management.users_api.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -10,15 +11,30 @@ import java.util.List;
 @Setter
 @Getter
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @Schema(description = "Обертка для постраничного списка пользователей")
 public class UserEnvelopDto {
 
     @Schema(description = "Список пользователей")
     private List<UserDto> users;
 
-    @Schema(description = "Общее количество элементов", example = "10")
-    private long totalElements;
+    @Schema(description = "Общее количество элементов, не возвращается в режиме курсора и без подсчета",
+            example = "10")
+    private Long totalElements;
 
-    @Schema(description = "Общее количество страниц", example = "5")
-    private int totalPages;
+    @Schema(description = "Общее количество страниц, не возвращается в режиме курсора и без подсчета",
+            example = "5")
+    private Integer totalPages;
+
+    @Schema(description = "Курсор следующей страницы в режиме курсора, отсутствует на последней странице",
+            example = "aWR8QVNDfDQyfDQy")
+    private String nextCursor;
+
+    @Schema(description = "Признак наличия следующей страницы, возвращается в режимах подсчета ESTIMATED и NONE",
+            example = "true")
+    private Boolean hasNext;
+
+    public UserEnvelopDto(List<UserDto> users, long totalElements, int totalPages) {
+        this(users, totalElements, totalPages, null, null);
+    }
 }
@@ -0,0 +1,16 @@
+package com.card_management.users_api.exception;
+
+import lombok.Getter;
+
+@Getter
+public class AuthenticationThrottledException extends RuntimeException {
+    /**
+     * Через сколько секунд можно повторить запрос
+     */
+    private final long retryAfterSeconds;
+
+    public AuthenticationThrottledException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
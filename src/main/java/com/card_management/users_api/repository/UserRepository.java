@@ -2,6 +2,10 @@ package com.card_management.users_api.repository;
 
 import com.card_management.users_api.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -11,7 +15,8 @@ import java.util.UUID;
  * Интерфейс-репозиторий для пользователей
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>,
+        JpaSpecificationExecutor<User> {
     /**
      * Проверка на наличие адреса электронной почты в репозитории
      * @param email адрес электронной почты
@@ -39,4 +44,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return булево значение
      */
     boolean existsByUuid(UUID uuid);
+
+    /**
+     * Заменяет хеш пароля пользователя
+     * @param email адрес электронной почты
+     * @param password новый хеш пароля
+     * @return количество обновленных строк
+     */
+    @Modifying
+    @Query("update User u set u.password = :password where u.email = :email")
+    int updatePassword(@Param("email") String email, @Param("password") String password);
 }
@@ -1,7 +1,6 @@
 package com.card_management.users_api.security;
 
 import com.card_management.users_api.model.User;
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -9,28 +8,72 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.util.Collection;
 import java.util.List;
 
-@RequiredArgsConstructor
 public class CustomUserDetails implements UserDetails {
 
-    private final User user;
+    private final Long id;
+
+    private final String email;
+
+    private final String password;
+
+    private final List<GrantedAuthority> authorities;
+
+    public CustomUserDetails(User user) {
+        this(
+                user.getId(),
+                user.getEmail(),
+                user.getPassword(),
+                List.of(new SimpleGrantedAuthority("ROLE_" + user.getAccessType().name()))
+        );
+    }
+
+    private CustomUserDetails(Long id, String email, String password, List<GrantedAuthority> authorities) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.authorities = authorities;
+    }
+
+    /**
+     * Восстанавливает пользователя из утверждений проверенного токена без обращения к БД
+     * @param id ID пользователя
+     * @param email email пользователя
+     * @param authorities роли пользователя
+     * @return пользователь без пароля
+     */
+    public static CustomUserDetails fromClaims(Long id, String email, Collection<String> authorities) {
+        return new CustomUserDetails(id, email, null, authorities.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList());
+    }
+
+    /**
+     * Копия пользователя с другим хешем пароля
+     * @param userDetails пользователь
+     * @param password хеш пароля
+     * @return пользователь с новым хешем пароля
+     */
+    public static CustomUserDetails withPassword(CustomUserDetails userDetails, String password) {
+        return new CustomUserDetails(userDetails.id, userDetails.email, password, userDetails.authorities);
+    }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.of(new SimpleGrantedAuthority("ROLE_" + user.getAccessType().name()));
+        return authorities;
     }
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return password;
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return email;
     }
 
     public Long getId() {
-        return user.getId();
+        return id;
     }
 
     @Override public boolean isAccountNonExpired() { return true; }
@@ -0,0 +1,111 @@
+package com.card_management.users_api.security;
+
+import com.card_management.application.configuration.AuthConfig;
+import com.card_management.users_api.exception.AuthenticationThrottledException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничение частоты попыток входа и регистрации корзинами токенов в памяти:
+ * отдельная корзина на каждую учетную запись и на каждый IP-адрес.
+ * Корзины неактивных ключей вытесняются после полного восстановления.
+ */
+@Component
+public class LoginThrottle {
+
+    private final AuthConfig authConfig;
+
+    private final Cache<String, TokenBucket> accountBuckets;
+
+    private final Cache<String, TokenBucket> ipBuckets;
+
+    public LoginThrottle(AuthConfig authConfig) {
+        this.authConfig = authConfig;
+        this.accountBuckets = Caffeine.newBuilder()
+                .maximumSize(authConfig.getMaximumTrackedKeys())
+                .expireAfterAccess(authConfig.getAccountRefillInterval()
+                        .multipliedBy(authConfig.getAccountAttempts()))
+                .build();
+        this.ipBuckets = Caffeine.newBuilder()
+                .maximumSize(authConfig.getMaximumTrackedKeys())
+                .expireAfterAccess(authConfig.getIpRefillInterval()
+                        .multipliedBy(authConfig.getIpAttempts()))
+                .build();
+    }
+
+    /**
+     * Учитывает попытку входа
+     * @param email адрес электронной почты учетной записи
+     * @param ip IP-адрес клиента
+     * @throws AuthenticationThrottledException если попытки для учетной записи или IP-адреса исчерпаны
+     */
+    public void acquireLogin(String email, String ip) {
+        acquireIp(ip);
+        var bucket = accountBuckets.get(email.toLowerCase(Locale.ROOT), key -> new TokenBucket(
+                authConfig.getAccountAttempts(), authConfig.getAccountRefillInterval().toNanos()));
+        var waitNanos = bucket.tryAcquire();
+        if (waitNanos > 0) {
+            throw throttled(waitNanos);
+        }
+    }
+
+    /**
+     * Учитывает запрос с IP-адреса
+     * @param ip IP-адрес клиента
+     * @throws AuthenticationThrottledException если запросы для IP-адреса исчерпаны
+     */
+    public void acquireIp(String ip) {
+        var bucket = ipBuckets.get(ip, key -> new TokenBucket(
+                authConfig.getIpAttempts(), authConfig.getIpRefillInterval().toNanos()));
+        var waitNanos = bucket.tryAcquire();
+        if (waitNanos > 0) {
+            throw throttled(waitNanos);
+        }
+    }
+
+    private static AuthenticationThrottledException throttled(long waitNanos) {
+        return new AuthenticationThrottledException("Слишком много попыток входа, повторите запрос позже",
+                Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    /**
+     * Корзина токенов: не больше {@code capacity} попыток подряд, одна попытка восстанавливается
+     * за {@code refillNanos}
+     */
+    private static final class TokenBucket {
+
+        private final int capacity;
+
+        private final long refillNanos;
+
+        private double tokens;
+
+        private long refilledAt;
+
+        private TokenBucket(int capacity, long refillNanos) {
+            this.capacity = capacity;
+            this.refillNanos = refillNanos;
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        /**
+         * Забирает токен
+         * @return 0, если токен получен, иначе время до появления токена в наносекундах
+         */
+        private synchronized long tryAcquire() {
+            var now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (double) (now - refilledAt) / refillNanos);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens--;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) * refillNanos);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.card_management.users_api.security;
+
+import com.card_management.technical.util.JwtUtil;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Версионный список отзыва токенов в памяти.
+ * Каждый токен несет версию пользователя на момент выдачи; отзыв увеличивает версию,
+ * и все ранее выданные токены пользователя перестают приниматься без обращения к БД.
+ * Запись хранится не дольше срока жизни токена: после этого отозванные токены истекают сами.
+ * Список не переживает перезапуск приложения и не разделяется между экземплярами.
+ */
+@Component
+public class TokenDenyList {
+
+    private final Map<Long, Revocation> revocations = new ConcurrentHashMap<>();
+
+    /**
+     * Текущая версия токенов пользователя
+     * @param userId ID пользователя
+     * @return версия, 0 - токены пользователя не отзывались
+     */
+    public long currentVersion(Long userId) {
+        var revocation = revocations.get(userId);
+        return revocation != null ? revocation.version() : 0;
+    }
+
+    /**
+     * Отзывает все выданные пользователю токены
+     * @param userId ID пользователя
+     */
+    public void revoke(Long userId) {
+        var now = System.currentTimeMillis();
+        revocations.values().removeIf(revocation -> revocation.expiresAt() < now);
+        revocations.merge(
+                userId,
+                new Revocation(1, now + JwtUtil.TOKEN_TTL_MILLIS),
+                (current, next) -> new Revocation(current.version() + 1, next.expiresAt())
+        );
+    }
+
+    /**
+     * Проверяет, отозван ли токен пользователя
+     * @param userId ID пользователя
+     * @param tokenVersion версия, записанная в токен при выдаче
+     * @return true, если токен выдан до последнего отзыва
+     */
+    public boolean isRevoked(Long userId, long tokenVersion) {
+        return tokenVersion < currentVersion(userId);
+    }
+
+    private record Revocation(long version, long expiresAt) {
+    }
+}
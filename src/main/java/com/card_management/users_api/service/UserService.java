@@ -2,8 +2,12 @@ package com.card_management.users_api.service;
 
 import com.card_management.limits_api.service.LimitService;
 import com.card_management.technical.enumeration.FieldEnumerable;
+import com.card_management.technical.enumeration.TotalsMode;
 import com.card_management.technical.exception.FieldsValidationException;
 import com.card_management.technical.exception.ResourceNotFoundException;
+import com.card_management.technical.util.KeysetUtils;
+import com.card_management.technical.util.SliceFinder;
+import com.card_management.technical.util.TotalsCounter;
 import com.card_management.users_api.dto.UserCreateDto;
 import com.card_management.users_api.dto.UserDto;
 import com.card_management.users_api.dto.UserEnvelopDto;
@@ -11,7 +15,9 @@ import com.card_management.users_api.enumeration.UserAccessType;
 import com.card_management.users_api.enumeration.UserSortFields;
 import com.card_management.users_api.exception.DuplicateEmailException;
 import com.card_management.users_api.mapper.UserMapper;
+import com.card_management.users_api.model.User;
 import com.card_management.users_api.repository.UserRepository;
+import com.card_management.users_api.security.TokenDenyList;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.EnumUtils;
 import org.springframework.data.domain.PageRequest;
@@ -32,11 +38,43 @@ public class UserService {
 
     private final PasswordEncoder passwordEncoder;
 
-    public UserEnvelopDto getUsers(int page, int size, String sort) {
+    private final TotalsCounter totalsCounter;
+
+    private final SliceFinder sliceFinder;
+
+    private final TokenDenyList tokenDenyList;
+
+    public UserEnvelopDto getUsers(int page, int size, String sort, String after, String totals) {
         if (!FieldEnumerable.containsField(UserSortFields.class, sort)) {
             throw new FieldsValidationException("Недопустимое поле сортировки: " + sort);
         }
+        var totalsMode = TotalsMode.of(totals);
         var pageRequest = PageRequest.of(page - 1, size, Sort.by(sort));
+        if (after != null) {
+            var keysetPage = KeysetUtils.findPage(userRepository, null, after, pageRequest);
+            return new UserEnvelopDto(
+                    keysetPage.content().stream()
+                            .map(userMapper::map)
+                            .toList(),
+                    null,
+                    null,
+                    keysetPage.nextCursor(),
+                    null
+            );
+        }
+        if (totalsMode != TotalsMode.EXACT) {
+            var userSlice = sliceFinder.findSlice(User.class, null, pageRequest);
+            var total = totalsCounter.count(totalsMode, "users", null, null, userRepository::count);
+            return new UserEnvelopDto(
+                    userSlice.stream()
+                            .map(userMapper::map)
+                            .toList(),
+                    total,
+                    TotalsCounter.totalPages(total, size),
+                    null,
+                    userSlice.hasNext()
+            );
+        }
         var userPage = userRepository.findAll(pageRequest);
         var userDto = userPage.stream()
                 .map(userMapper::map)
@@ -73,5 +111,6 @@ public class UserService {
         var user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Пользователь с ID " + id + " не найден"));
         userRepository.delete(user);
+        tokenDenyList.revoke(id);
     }
 }
@@ -0,0 +1,86 @@
+package com.card_management.cards_api.scheduled;
+
+import com.card_management.application.Application;
+import com.card_management.application.configuration.SecurityConfig;
+import com.card_management.cards_api.enumeration.CardStatus;
+import com.card_management.cards_api.repository.CardRepository;
+import com.card_management.controllers.AuthController;
+import com.card_management.factory.integration.CardTestFactory;
+import com.card_management.factory.integration.UserTestFactory;
+import com.card_management.technical.util.CardFingerprintGenerator;
+import com.card_management.users_api.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ActiveProfiles("test")
+@Import({SecurityConfig.class, AuthController.class})
+@ContextConfiguration(classes = Application.class)
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = true)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class CardExpirationSchedulerTest {
+
+    private static final String EXPIRED_NUMBER = "4486441729154030";
+
+    private static final String VALID_NUMBER = "4024007123874108";
+
+    @Autowired
+    private CardExpirationScheduler cardExpirationScheduler;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardFingerprintGenerator cardFingerprintGenerator;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserTestFactory userTestFactory;
+
+    @Autowired
+    private CardTestFactory cardTestFactory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userTestFactory.createUser("ivanov@example.com", "securePassword123", "USER");
+        var userId = userRepository.findByEmail("ivanov@example.com").orElseThrow().getId();
+        cardTestFactory.createCard(EXPIRED_NUMBER, userId, "ACTIVE", 1000);
+        cardTestFactory.createCard(VALID_NUMBER, userId, "ACTIVE", 500);
+
+        var expiredCard = cardRepository.findByNumberFingerprint(cardFingerprintGenerator.generate(EXPIRED_NUMBER))
+                .orElseThrow();
+        expiredCard.setValidityPeriodMonth(1);
+        expiredCard.setValidityPeriodYear(20);
+        expiredCard.setExpirationDate(LocalDate.of(2020, 1, 31));
+        cardRepository.save(expiredCard);
+    }
+
+    @Test
+    void checkAndUpdateExpiredCards_ExpiresOnlyCardsPastExpirationDate() {
+        cardExpirationScheduler.checkAndUpdateExpiredCards();
+
+        var expiredCard = cardRepository.findByNumberFingerprint(cardFingerprintGenerator.generate(EXPIRED_NUMBER))
+                .orElseThrow();
+        var validCard = cardRepository.findByNumberFingerprint(cardFingerprintGenerator.generate(VALID_NUMBER))
+                .orElseThrow();
+        assertEquals(CardStatus.EXPIRED, expiredCard.getStatus());
+        assertEquals(CardStatus.ACTIVE, validCard.getStatus());
+        var expectedExpiration = YearMonth.of(2000 + CardTestFactory.VALIDITY_PERIOD_YEAR,
+                CardTestFactory.VALIDITY_PERIOD_MONTH).atEndOfMonth();
+        assertEquals(expectedExpiration, validCard.getExpirationDate());
+    }
+}
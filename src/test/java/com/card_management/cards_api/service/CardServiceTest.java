@@ -6,13 +6,17 @@ import com.card_management.cards_api.dto.CardDto;
 import com.card_management.cards_api.dto.CardEnvelopDto;
 import com.card_management.cards_api.dto.CardFilterDto;
 import com.card_management.cards_api.enumeration.CardStatus;
+import com.card_management.cards_api.exception.AmbiguousCardException;
 import com.card_management.cards_api.exception.DuplicateCardException;
 import com.card_management.cards_api.mapper.CardMapper;
 import com.card_management.cards_api.model.Card;
 import com.card_management.cards_api.repository.CardRepository;
 import com.card_management.controllers.common.CardValidator;
+import com.card_management.ledger_api.service.LedgerService;
 import com.card_management.technical.exception.ResourceNotFoundException;
 import com.card_management.technical.util.CardEncryptor;
+import com.card_management.technical.util.CardFingerprintGenerator;
+import com.card_management.technical.util.DtoProjector;
 import com.card_management.technical.util.factory.CardEncryptorFactory;
 import com.card_management.users_api.model.User;
 import com.card_management.users_api.repository.UserRepository;
@@ -26,6 +30,7 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 
@@ -63,6 +68,15 @@ class CardServiceTest {
     @Mock
     private CardMapper cardMapper;
 
+    @Mock
+    private CardFingerprintGenerator cardFingerprintGenerator;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private DtoProjector dtoProjector;
+
     private Card card1;
 
     private Card card2;
@@ -96,27 +110,28 @@ class CardServiceTest {
 
     @Test
     void getCards_returnsMappedDtoPage_whenCardsExist() {
-        var cards = List.of(card1, card2);
-        Page<Card> cardPage = new PageImpl<>(
-                cards,
-                PageRequest.of(0, 2, Sort.by("id")), 2);
+        var pageRequest = PageRequest.of(0, 2, Sort.by("id"));
+        Page<CardDto> cardPage = new PageImpl<>(List.of(cardDto1, cardDto2), pageRequest, 2);
 
         doNothing().when(cardValidator).validSortFields("id");
 
-        when(cardRepository.findAll(
-                PageRequest.of(0, 2, Sort.by("id")))).thenReturn(cardPage);
-        when(cardMapper.map(card1)).thenReturn(cardDto1);
-        when(cardMapper.map(card2)).thenReturn(cardDto2);
+        when(dtoProjector.findPage(
+                eq(Card.class),
+                ArgumentMatchers.<Specification<Card>>isNull(),
+                eq(pageRequest),
+                eq(CardDto.class),
+                any(),
+                any())
+        ).thenReturn(cardPage);
 
-        CardEnvelopDto result = cardService.getCards(1, 2, "id");
+        CardEnvelopDto result = cardService.getCards(1, 2, "id", null, null);
 
-        assertEquals(2, result.getCards().size());
+        assertEquals(List.of(cardDto1, cardDto2), result.getCards());
         assertEquals(2, result.getTotalElements());
         assertEquals(1, result.getTotalPages());
 
         verify(cardValidator).validSortFields("id");
-        verify(cardMapper).map(card1);
-        verify(cardMapper).map(card2);
+        verifyNoInteractions(cardMapper);
     }
 
     @Test
@@ -125,16 +140,21 @@ class CardServiceTest {
         var page = 0;
         var size = 2;
 
-        Page<Card> emptyPage = new PageImpl<>(
-                List.of(),
-                PageRequest.of(page, size, Sort.by(sortField)), 0);
+        var pageRequest = PageRequest.of(page, size, Sort.by(sortField));
+        Page<CardDto> emptyPage = new PageImpl<>(List.of(), pageRequest, 0);
 
         doNothing().when(cardValidator).validSortFields(sortField);
 
-        when(cardRepository.findAll(
-                PageRequest.of(page, size, Sort.by(sortField)))).thenReturn(emptyPage);
+        when(dtoProjector.findPage(
+                eq(Card.class),
+                ArgumentMatchers.<Specification<Card>>isNull(),
+                eq(pageRequest),
+                eq(CardDto.class),
+                any(),
+                any())
+        ).thenReturn(emptyPage);
 
-        CardEnvelopDto result = cardService.getCards(page + 1, size, sortField);
+        CardEnvelopDto result = cardService.getCards(page + 1, size, sortField, null, null);
 
         assertNotNull(result);
         assertTrue(result.getCards().isEmpty());
@@ -142,7 +162,6 @@ class CardServiceTest {
         assertEquals(0, result.getTotalPages());
 
         verify(cardValidator).validSortFields(sortField);
-        verify(cardRepository).findAll(PageRequest.of(page, size, Sort.by(sortField)));
         verifyNoInteractions(cardMapper);
     }
 
@@ -172,10 +191,12 @@ class CardServiceTest {
     @Test
     void createCard_success() {
         when(userRepository.findById(1L)).thenReturn(Optional.of(new User()));
-        when(cardRepository.findByMaskedNumber(any())).thenReturn(null);
+        when(cardFingerprintGenerator.generate(cardCreateDto.getCardNumber())).thenReturn("fingerprint-1");
+        when(cardRepository.findByNumberFingerprint("fingerprint-1")).thenReturn(Optional.empty());
         when(cardMapper.map(cardCreateDto)).thenReturn(card1);
         when(appConfig.getPassword()).thenReturn("secret");
-        when(cardEncryptorFactory.create(eq("secret"), anyString())).thenReturn(cardEncryptor);
+        when(appConfig.getKeySalt()).thenReturn("5c0f3a9e21d4b786");
+        when(cardEncryptorFactory.create("secret", "5c0f3a9e21d4b786")).thenReturn(cardEncryptor);
         when(cardEncryptor.encryptCardNumber(cardCreateDto.getCardNumber())).thenReturn(card1.getEncryptedCardNumber());
         when(cardMapper.map(card1)).thenReturn(cardDto1);
 
@@ -184,6 +205,8 @@ class CardServiceTest {
         assertEquals(cardDto1, result);
         verify(cardEncryptor).encryptCardNumber("1234567812341001");
         verify(cardRepository).save(card1);
+        assertEquals("fingerprint-1", card1.getNumberFingerprint());
+        assertEquals("5c0f3a9e21d4b786", card1.getSaltNumberCard());
     }
 
     @Test
@@ -202,22 +225,32 @@ class CardServiceTest {
 
     @Test
     void createCard_throwsDuplicateCardException_whenCardAlreadyExists() {
-        var duplicateCard = new Card();
-        duplicateCard.setEncryptedCardNumber("encrypted1234");
-        duplicateCard.setSaltNumberCard("test-salt");
-
         when(userRepository.findById(cardCreateDto.getOwnerId())).thenReturn(Optional.of(new User()));
-        when(cardRepository.findByMaskedNumber(anyString())).thenReturn(duplicateCard);
-        when(appConfig.getPassword()).thenReturn("secret");
-        when(cardEncryptorFactory.create(eq("secret"), eq("test-salt"))).thenReturn(cardEncryptor);
-        when(cardEncryptor.decryptCardNumber("encrypted1234")).thenReturn(cardCreateDto.getCardNumber());
+        when(cardFingerprintGenerator.generate(cardCreateDto.getCardNumber())).thenReturn("fingerprint-1");
+        when(cardRepository.findByNumberFingerprint("fingerprint-1")).thenReturn(Optional.of(card1));
 
-        assertThrows(DuplicateCardException.class, () -> cardService.create(cardCreateDto));
+        var exception = assertThrows(DuplicateCardException.class, () -> cardService.create(cardCreateDto));
+        assertEquals("Карта зарегистрирована в системе. Номер: " + card1.getMaskNumber(), exception.getMessage());
 
-        verify(cardEncryptor).decryptCardNumber(duplicateCard.getEncryptedCardNumber());
+        verifyNoInteractions(cardEncryptorFactory, cardEncryptor);
         verify(cardRepository, never()).save(any());
     }
 
+    @Test
+    void createCard_throwsDuplicateCardException_whenConcurrentlyRegistered() {
+        when(userRepository.findById(cardCreateDto.getOwnerId())).thenReturn(Optional.of(new User()));
+        when(cardFingerprintGenerator.generate(cardCreateDto.getCardNumber())).thenReturn("fingerprint-1");
+        when(cardRepository.findByNumberFingerprint("fingerprint-1")).thenReturn(Optional.empty());
+        when(cardMapper.map(cardCreateDto)).thenReturn(card1);
+        when(cardEncryptorFactory.create(any(), any())).thenReturn(cardEncryptor);
+        when(cardRepository.save(card1)).thenThrow(new DataIntegrityViolationException("idx_cards_number_fingerprint"));
+
+        var exception = assertThrows(DuplicateCardException.class, () -> cardService.create(cardCreateDto));
+        assertEquals("Карта зарегистрирована в системе. Номер: " + card1.getMaskNumber(), exception.getMessage());
+
+        verifyNoInteractions(ledgerService);
+    }
+
     @Test
     void delete_deletesCard_whenCardExists() {
         when(cardRepository.findById(card1.getId())).thenReturn(Optional.of(card1));
@@ -244,7 +277,8 @@ class CardServiceTest {
         var userId = 1L;
         var lastFourDigits = "1002";
         var newStatus = "BLOCKED";
-        when(cardRepository.findByOwnerId(userId)).thenReturn(List.of(card2));
+        when(cardRepository.findTop2ByOwnerIdAndLastFourDigitsOrderByIdAsc(userId, lastFourDigits))
+                .thenReturn(List.of(card2));
         cardService.setCardStatus(userId, lastFourDigits, newStatus);
         assertEquals(CardStatus.BLOCKED, card2.getStatus());
         verify(cardRepository).save(card2);
@@ -255,7 +289,8 @@ class CardServiceTest {
         var userId = 1L;
         var lastFourDigits = "9999";
         var newStatus = "BLOCKED";
-        when(cardRepository.findByOwnerId(userId)).thenReturn(List.of(card1));
+        when(cardRepository.findTop2ByOwnerIdAndLastFourDigitsOrderByIdAsc(userId, lastFourDigits))
+                .thenReturn(List.of());
         var exception = assertThrows(ResourceNotFoundException.class, () ->
                 cardService.setCardStatus(userId, lastFourDigits, newStatus)
         );
@@ -263,6 +298,20 @@ class CardServiceTest {
         verify(cardRepository, never()).save(any());
     }
 
+    @Test
+    void setCardStatus_throwsException_whenLastFourDigitsAmbiguous() {
+        var userId = 1L;
+        var lastFourDigits = "1001";
+        when(cardRepository.findTop2ByOwnerIdAndLastFourDigitsOrderByIdAsc(userId, lastFourDigits))
+                .thenReturn(List.of(card1, card2));
+        var exception = assertThrows(AmbiguousCardException.class, () ->
+                cardService.setCardStatus(userId, lastFourDigits, "BLOCKED")
+        );
+        assertEquals("У пользователя несколько карт с последними четырьмя цифрами 1001, укажите карту однозначно.",
+                exception.getMessage());
+        verify(cardRepository, never()).save(any());
+    }
+
     @Test
     void filterCards_returnsFilteredCardsSuccessfully_withCorrectPaginationAndSorting() {
         var ownerId = 1L;
@@ -273,14 +322,16 @@ class CardServiceTest {
         filterDto.setSortDirection("ASC");
         filterDto.setStatus("ACTIVE");
 
-        Page<Card> mockPage = new PageImpl<>(List.of(card1, card2));
+        Page<CardDto> mockPage = new PageImpl<>(List.of(cardDto1, cardDto2));
 
-        when(cardRepository.findAll(
+        when(dtoProjector.findPage(
+                eq(Card.class),
                 ArgumentMatchers.<Specification<Card>>any(),
-                any(Pageable.class))
+                any(Pageable.class),
+                eq(CardDto.class),
+                any(),
+                any())
         ).thenReturn(mockPage);
-        when(cardMapper.map(card1)).thenReturn(cardDto1);
-        when(cardMapper.map(card2)).thenReturn(cardDto2);
 
         ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
 
@@ -291,16 +342,20 @@ class CardServiceTest {
         assertEquals(2, result.getTotalElements());
         assertEquals(1, result.getTotalPages());
 
-        verify(cardRepository).findAll(
+        verify(dtoProjector).findPage(
+                eq(Card.class),
                 ArgumentMatchers.<Specification<Card>>any(),
-                pageableCaptor.capture()
+                pageableCaptor.capture(),
+                eq(CardDto.class),
+                any(),
+                any()
         );
         var usedPageable = pageableCaptor.getValue();
         assertEquals(1, usedPageable.getPageNumber());
         assertEquals(5, usedPageable.getPageSize());
         assertEquals(Sort.by(Sort.Direction.ASC, "balance"), usedPageable.getSort());
 
-        verify(cardMapper, times(2)).map(any(Card.class));
+        verifyNoInteractions(cardMapper);
     }
 
     @Test
@@ -311,9 +366,13 @@ class CardServiceTest {
         filterDto.setSortBy("balance");
         filterDto.setSortDirection("DESC");
 
-        when(cardRepository.findAll(
+        when(dtoProjector.findPage(
+                eq(Card.class),
                 ArgumentMatchers.<Specification<Card>>any(),
-                any(Pageable.class))
+                any(Pageable.class),
+                eq(CardDto.class),
+                any(),
+                any())
         ).thenReturn(new PageImpl<>(List.of()));
 
         CardEnvelopDto result = cardService.filterCards(filterDto, 99L);
@@ -323,20 +382,19 @@ class CardServiceTest {
         assertEquals(0, result.getTotalElements());
         assertEquals(1, result.getTotalPages());
 
-        verify(cardRepository).findAll(
-                ArgumentMatchers.<Specification<Card>>any(),
-                any(Pageable.class)
-        );
-        verify(cardMapper, never()).map(any(Card.class));
+        verifyNoInteractions(cardMapper);
     }
 
     @Test
     void getUserCards_returnsCardListSuccessfully() {
         when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(cardRepository.findByOwnerId(user.getId())).thenReturn(List.of(card1, card2));
-
-        when(cardMapper.map(card1)).thenReturn(cardDto1);
-        when(cardMapper.map(card2)).thenReturn(cardDto2);
+        when(dtoProjector.findAll(
+                eq(Card.class),
+                ArgumentMatchers.<Specification<Card>>any(),
+                eq(Sort.unsorted()),
+                eq(CardDto.class),
+                any())
+        ).thenReturn(List.of(cardDto1, cardDto2));
 
         List<CardDto> result = cardService.getUserCards(user.getId());
 
@@ -345,9 +403,7 @@ class CardServiceTest {
         assertEquals(List.of(cardDto1, cardDto2), result);
 
         verify(userRepository).findById(user.getId());
-        verify(cardRepository).findByOwnerId(user.getId());
-        verify(cardMapper).map(card1);
-        verify(cardMapper).map(card2);
+        verifyNoInteractions(cardMapper);
     }
 
     @Test
@@ -362,36 +418,31 @@ class CardServiceTest {
 
         verify(userRepository).findById(userId);
         verifyNoInteractions(cardRepository);
+        verifyNoInteractions(dtoProjector);
         verifyNoInteractions(cardMapper);
     }
 
     @Test
     void findMatchByNumberCard_returnsMatchingCardSuccessfully() {
         var targetCardNumber = "1234567812341001";
-        var password = "super-secret";
-        List<Card> cards = List.of(card1);
 
-        when(cardRepository.findByOwnerId(user.getId())).thenReturn(cards);
-        when(appConfig.getPassword()).thenReturn(password);
-        when(cardEncryptorFactory.create(password, card1.getSaltNumberCard())).thenReturn(cardEncryptor);
-        when(cardEncryptor.decryptCardNumber(card1.getEncryptedCardNumber())).thenReturn(targetCardNumber);
+        when(cardFingerprintGenerator.generate(targetCardNumber)).thenReturn("fingerprint-1");
+        when(cardRepository.findByNumberFingerprintAndOwnerId("fingerprint-1", user.getId()))
+                .thenReturn(Optional.of(card1));
 
         var result = cardService.findMatchByNumberCard(targetCardNumber, user.getId());
 
         assertEquals(card1, result);
+        verifyNoInteractions(cardEncryptorFactory, cardEncryptor);
     }
 
     @Test
     void findMatchByNumberCard_throwsExceptionIfNoMatchingCardFound() {
         var searchedCardNumber = "1234-xxxx";
-        var password = "secret";
 
-        List<Card> cards = List.of(card1);
-
-        when(cardRepository.findByOwnerId(user.getId())).thenReturn(cards);
-        when(appConfig.getPassword()).thenReturn(password);
-        when(cardEncryptorFactory.create(password, card1.getSaltNumberCard())).thenReturn(cardEncryptor);
-        when(cardEncryptor.decryptCardNumber(card1.getEncryptedCardNumber())).thenReturn("1234567812341001");
+        when(cardFingerprintGenerator.generate(searchedCardNumber)).thenReturn("fingerprint-x");
+        when(cardRepository.findByNumberFingerprintAndOwnerId("fingerprint-x", user.getId()))
+                .thenReturn(Optional.empty());
 
         ResourceNotFoundException ex = assertThrows(ResourceNotFoundException.class, () ->
                 cardService.findMatchByNumberCard(searchedCardNumber, user.getId())
@@ -399,4 +450,28 @@ class CardServiceTest {
         assertEquals("Карта с номером " + searchedCardNumber +
                 " не принадлежит пользователю с ID " + user.getId(), ex.getMessage());
     }
+
+    @Test
+    void findByNumber_returnsCardDto_whenCardExists() {
+        var cardNumber = "1234567812341001";
+
+        when(cardFingerprintGenerator.generate(cardNumber)).thenReturn("fingerprint-1");
+        when(cardRepository.findByNumberFingerprint("fingerprint-1")).thenReturn(Optional.of(card1));
+        when(cardMapper.map(card1)).thenReturn(cardDto1);
+
+        var result = cardService.findByNumber(cardNumber);
+
+        assertEquals(cardDto1, result);
+    }
+
+    @Test
+    void findByNumber_throwsResourceNotFoundException_whenCardNotExists() {
+        var cardNumber = "1234567812349999";
+
+        when(cardFingerprintGenerator.generate(cardNumber)).thenReturn("fingerprint-9");
+        when(cardRepository.findByNumberFingerprint("fingerprint-9")).thenReturn(Optional.empty());
+
+        var ex = assertThrows(ResourceNotFoundException.class, () -> cardService.findByNumber(cardNumber));
+        assertEquals("Карта с номером 1234****9999 не найдена", ex.getMessage());
+    }
 }
@@ -0,0 +1,128 @@
+package com.card_management.controllers;
+
+import com.card_management.application.Application;
+import com.card_management.application.configuration.SecurityConfig;
+import com.card_management.users_api.dto.AuthRequest;
+import com.card_management.users_api.dto.UserCreateDto;
+import com.card_management.users_api.repository.UserRepository;
+import com.card_management.users_api.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("test")
+@Import({SecurityConfig.class, AuthController.class})
+@ContextConfiguration(classes = Application.class)
+@SpringBootTest(properties = {
+        "auth.ip-attempts=1",
+        "auth.ip-refill-interval=1h",
+        "auth.trusted-proxies=10\\.0\\.0\\.1"
+})
+@AutoConfigureMockMvc(addFilters = true)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class AuthControllerTest {
+
+    private static final String PASSWORD = "securePassword123";
+
+    private static final String PROXY_ADDRESS = "10.0.0.1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void register_ForwardedClientAddress_ThrottledPerClient() throws Exception {
+        register("ivanov@example.com", PROXY_ADDRESS, "203.0.113.1")
+                .andExpect(status().isCreated());
+        register("petrov@example.com", PROXY_ADDRESS, "203.0.113.1")
+                .andExpect(status().isTooManyRequests());
+        register("petrov@example.com", PROXY_ADDRESS, "203.0.113.2")
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void register_SpoofedForwardedAddressFromUntrustedPeer_ThrottledByPeerAddress() throws Exception {
+        register("ivanov@example.com", "198.51.100.7", "203.0.113.1")
+                .andExpect(status().isCreated());
+        register("petrov@example.com", "198.51.100.7", "203.0.113.2")
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void login_WeakerPasswordHash_UpgradedOnSuccessfulLogin() throws Exception {
+        userService.create(userDto("ivanov@example.com"));
+        var user = userRepository.findByEmail("ivanov@example.com").orElseThrow();
+        user.setPassword(new BCryptPasswordEncoder(4).encode(PASSWORD));
+        userRepository.save(user);
+
+        var loginRequest = new AuthRequest();
+        loginRequest.setEmail("ivanov@example.com");
+        loginRequest.setPassword(PASSWORD);
+        mockMvc.perform(post("/auth/login")
+                        .with(remoteAddress(PROXY_ADDRESS))
+                        .header("X-Forwarded-For", "203.0.113.1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andDo(print());
+
+        var storedHash = userRepository.findByEmail("ivanov@example.com").orElseThrow().getPassword();
+        assertTrue(storedHash.startsWith("$2a$10$"), "Хеш пароля не пересчитан: " + storedHash);
+        assertTrue(passwordEncoder.matches(PASSWORD, storedHash));
+    }
+
+    private ResultActions register(String email, String peerAddress, String forwardedAddress) throws Exception {
+        return mockMvc.perform(post("/auth/register")
+                        .with(remoteAddress(peerAddress))
+                        .header("X-Forwarded-For", forwardedAddress)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDto(email))))
+                .andDo(print());
+    }
+
+    private RequestPostProcessor remoteAddress(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+
+    private UserCreateDto userDto(String email) {
+        var dto = new UserCreateDto();
+        dto.setSurname("Тест");
+        dto.setName("Пользователь");
+        dto.setMiddleName("Тестович");
+        dto.setEmail(email);
+        dto.setPassword(PASSWORD);
+        dto.setAccessType("USER");
+        return dto;
+    }
+}
@@ -6,18 +6,21 @@ import com.card_management.cards_api.dto.CardAdminFilterDto;
 import com.card_management.cards_api.dto.CardChangeStatusDto;
 import com.card_management.cards_api.dto.CardCreateDto;
 import com.card_management.cards_api.dto.CardFilterDto;
+import com.card_management.cards_api.dto.CardNumberDto;
 import com.card_management.technical.exception.ResourceNotFoundException;
 import com.card_management.users_api.model.User;
 import com.card_management.users_api.repository.UserRepository;
 import com.card_management.factory.integration.CardTestFactory;
 import com.card_management.factory.integration.UserTestFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
@@ -28,9 +31,14 @@ import java.util.UUID;
 
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ActiveProfiles("test")
@@ -130,6 +138,35 @@ public class CardControllerTest {
                 .andExpect(jsonPath("$.errors[0].field").doesNotExist());
     }
 
+    @Test
+    void findCardByNumber_ExistingNumber_ReturnsCard() throws Exception {
+        var cardNumberDto = new CardNumberDto();
+        cardNumberDto.setCardNumber("4486441729154030");
+
+        mockMvc.perform(post("/cards/findByNumber")
+                        .header("Authorization", accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(cardNumberDto)))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.maskNumber").value("4486****4030"))
+                .andExpect(jsonPath("$.balance").value(5000));
+    }
+
+    @Test
+    void findCardByNumber_UnknownNumber_ReturnsNotFound() throws Exception {
+        var cardNumberDto = new CardNumberDto();
+        cardNumberDto.setCardNumber("4111111111111111");
+
+        mockMvc.perform(post("/cards/findByNumber")
+                        .header("Authorization", accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(cardNumberDto)))
+                .andExpect(status().isNotFound())
+                .andDo(print())
+                .andExpect(jsonPath("$.errors[0].message").value("Карта с номером 4111****1111 не найдена"));
+    }
+
     @Test
     void createCard_ValidData_ReturnsCreatedCard() throws Exception {
         var cardDto = new CardCreateDto();
@@ -324,6 +361,126 @@ public class CardControllerTest {
                 .andExpect(jsonPath("$.cards[0].ownerUuid").value(uuidOwnerCards));
     }
 
+    @Test
+    void filterCards_AfterCursor_AppliesFilterAndSeek() throws Exception {
+        var cardFilter = new CardFilterDto();
+        cardFilter.setSize(1);
+        cardFilter.setSortBy("balance");
+        cardFilter.setSortDirection("DESC");
+        cardFilter.setStatus("ACTIVE");
+        cardFilter.setAfter("");
+
+        var accessTokenUser = userTestFactory.getToken("ivanov@example.com");
+
+        var firstPage = mockMvc.perform(post("/cards/my/filter")
+                        .header("Authorization", accessTokenUser)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(cardFilter)))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.cards.length()").value(1))
+                .andExpect(jsonPath("$.cards[0].balance").value(7500))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andReturn();
+        cardFilter.setAfter(JsonPath.read(firstPage.getResponse().getContentAsString(), "$.nextCursor"));
+
+        mockMvc.perform(post("/cards/my/filter")
+                        .header("Authorization", accessTokenUser)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(cardFilter)))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.cards.length()").value(1))
+                .andExpect(jsonPath("$.cards[0].balance").value(5000))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getCards_TotalsNone_ReturnsSliceWithoutCount() throws Exception {
+        mockMvc.perform(get("/cards")
+                        .header("Authorization", accessToken)
+                        .param("page", "1")
+                        .param("size", "1")
+                        .param("sort", "balance")
+                        .param("totals", "NONE"))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.cards.length()").value(1))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.totalPages").doesNotExist());
+
+        mockMvc.perform(get("/cards")
+                        .header("Authorization", accessToken)
+                        .param("page", "2")
+                        .param("size", "1")
+                        .param("sort", "balance")
+                        .param("totals", "none"))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.cards.length()").value(1))
+                .andExpect(jsonPath("$.cards[0].balance").value(7500))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void getCards_InvalidTotals_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/cards")
+                        .header("Authorization", accessToken)
+                        .param("totals", "APPROXIMATE"))
+                .andExpect(status().isBadRequest())
+                .andDo(print());
+    }
+
+    @Test
+    void filterCards_TotalsEstimated_ReturnsCountCachedPerFilter() throws Exception {
+        var cardFilter = new CardFilterDto();
+        cardFilter.setSize(1);
+        cardFilter.setStatus("ACTIVE");
+        cardFilter.setTotals("ESTIMATED");
+
+        var accessTokenUser = userTestFactory.getToken("ivanov@example.com");
+
+        mockMvc.perform(post("/cards/my/filter")
+                        .header("Authorization", accessTokenUser)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(cardFilter)))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.cards.length()").value(1))
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.totalPages").value(2))
+                .andExpect(jsonPath("$.hasNext").value(true));
+
+        cardTestFactory.createCard(
+                "4111111111111111",
+                2L,
+                "ACTIVE",
+                1000
+        );
+        cardFilter.setPage(2);
+
+        mockMvc.perform(post("/cards/my/filter")
+                        .header("Authorization", accessTokenUser)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(cardFilter)))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.hasNext").value(true));
+
+        cardFilter.setTotals("EXACT");
+
+        mockMvc.perform(post("/cards/my/filter")
+                        .header("Authorization", accessTokenUser)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(cardFilter)))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.hasNext").doesNotExist());
+    }
+
     @Test
     void filterCards_InvalidFields_ReturnsBadRequest() throws Exception {
         var invalidDto = new CardFilterDto();
@@ -381,4 +538,79 @@ public class CardControllerTest {
                 .andExpect(jsonPath("$.cards[1].balance").value(5000))
                 .andExpect(jsonPath("$.cards[1].status").value("ACTIVE"));
     }
+
+    @Test
+    void exportCards_Ndjson_StreamsAllMatchingCards() throws Exception {
+        var cardFilter = new CardFilterDto();
+        cardFilter.setSize(1);
+        cardFilter.setSortBy("balance");
+        cardFilter.setSortDirection("DESC");
+        cardFilter.setStatus("ACTIVE");
+
+        var filterDto = new CardAdminFilterDto();
+        filterDto.setCardFilterDto(cardFilter);
+
+        var result = mockMvc.perform(post("/cards/export")
+                        .header("Authorization", accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(filterDto)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        var lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=cards.ndjson"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .split("\n");
+
+        assertEquals(2, lines.length);
+        assertEquals(7500, (Integer) JsonPath.read(lines[0], "$.balance"));
+        assertEquals("4486****4030", JsonPath.read(lines[1], "$.maskNumber"));
+    }
+
+    @Test
+    void exportCards_Csv_StreamsHeaderAndRows() throws Exception {
+        var filterDto = new CardAdminFilterDto();
+        filterDto.setOwnerId(2L);
+        filterDto.setCardFilterDto(new CardFilterDto());
+
+        var result = mockMvc.perform(post("/cards/export")
+                        .header("Authorization", accessToken)
+                        .param("format", "csv")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(filterDto)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        var lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .split("\n");
+
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("id,uuid,maskNumber,ownerUuid"));
+        assertTrue(lines[1].contains("4486****4030"));
+        assertTrue(lines[2].contains("4024****4108"));
+    }
+
+    @Test
+    void exportCards_InvalidFormat_ReturnsBadRequest() throws Exception {
+        var filterDto = new CardAdminFilterDto();
+        filterDto.setCardFilterDto(new CardFilterDto());
+
+        mockMvc.perform(post("/cards/export")
+                        .header("Authorization", accessToken)
+                        .param("format", "xml")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(filterDto)))
+                .andExpect(status().isBadRequest())
+                .andDo(print())
+                .andExpect(jsonPath("$.errors[0].message").value("Недопустимый формат выгрузки: xml"));
+    }
 }
@@ -0,0 +1,201 @@
+package com.card_management.controllers;
+
+import com.card_management.application.Application;
+import com.card_management.application.configuration.SecurityConfig;
+import com.card_management.factory.integration.CardTestFactory;
+import com.card_management.factory.integration.TransactionTestFactory;
+import com.card_management.factory.integration.UserTestFactory;
+import com.card_management.transaction_api.dto.TransactionAdminFilterDto;
+import com.card_management.transaction_api.dto.TransactionFilterDto;
+import com.card_management.users_api.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Фиксирует количество SQL-запросов списочных эндпоинтов: связи загружаются планом выборки,
+ * поэтому число запросов не зависит от количества строк на странице.
+ */
+@ActiveProfiles("test")
+@Import({SecurityConfig.class, AuthController.class})
+@ContextConfiguration(classes = Application.class)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc(addFilters = true)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ListingStatementCountTest {
+
+    /**
+     * Страница и подсчет общего количества.
+     */
+    private static final long PAGE_STATEMENTS = 2;
+
+    /**
+     * Страница, подсчет и проверка существования пользователя.
+     */
+    private static final long USER_PAGE_STATEMENTS = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserTestFactory userTestFactory;
+
+    @Autowired
+    private CardTestFactory cardTestFactory;
+
+    @Autowired
+    private TransactionTestFactory transactionTestFactory;
+
+    private Statistics statistics;
+
+    private String adminToken;
+
+    private String userToken;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        adminToken = userTestFactory.createUser(
+                "admin@example.com",
+                "adminPassword123",
+                "ADMIN");
+
+        userTestFactory.createUser(
+                "ivanov@example.com",
+                "securePassword123",
+                "USER");
+        userToken = userTestFactory.getToken("ivanov@example.com");
+
+        userId = userRepository.findByEmail("ivanov@example.com")
+                .orElseThrow()
+                .getId();
+
+        cardTestFactory.createCard("4486441729154030", userId, "ACTIVE", 5000);
+        transactionTestFactory.createTransaction("4486441729154030", null, "WITHDRAWALS", 100, userId);
+    }
+
+    @Test
+    void getTransactions_MoreRows_SameStatementCount() throws Exception {
+        assertStable(() -> get("/transactions")
+                .header("Authorization", adminToken)
+                .param("page", "1")
+                .param("size", "10")
+                .param("sort", "id"), PAGE_STATEMENTS);
+    }
+
+    @Test
+    void getUserTransactions_MoreRows_SameStatementCount() throws Exception {
+        assertStable(() -> get("/transactions/my")
+                .header("Authorization", userToken)
+                .param("page", "1")
+                .param("size", "10")
+                .param("sort", "id"), USER_PAGE_STATEMENTS);
+    }
+
+    @Test
+    void filterTransactions_MoreRows_SameStatementCount() throws Exception {
+        var filterDto = new TransactionFilterDto();
+        filterDto.setTransactionType("WITHDRAWALS");
+
+        var adminFilterDto = new TransactionAdminFilterDto();
+        adminFilterDto.setUserId(userId);
+        adminFilterDto.setTransactionFilterDto(filterDto);
+        var body = new ObjectMapper().writeValueAsString(adminFilterDto);
+
+        assertStable(() -> post("/transactions/filter")
+                .header("Authorization", adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body), USER_PAGE_STATEMENTS);
+    }
+
+    @Test
+    void getCards_MoreRows_SameStatementCount() throws Exception {
+        assertStable(() -> get("/cards")
+                .header("Authorization", adminToken)
+                .param("page", "1")
+                .param("size", "10")
+                .param("sort", "id"), PAGE_STATEMENTS);
+    }
+
+    @Test
+    void getUserCards_MoreRows_SameStatementCount() throws Exception {
+        assertStable(() -> get("/cards/my")
+                .header("Authorization", userToken)
+                .param("page", "1")
+                .param("size", "10")
+                .param("sort", "id"), USER_PAGE_STATEMENTS);
+    }
+
+    @Test
+    void getLimits_MoreRows_SameStatementCount() throws Exception {
+        assertStable(() -> get("/limits")
+                .header("Authorization", adminToken)
+                .param("page", "1")
+                .param("size", "10")
+                .param("sort", "id"), PAGE_STATEMENTS);
+    }
+
+    /**
+     * Сравнивает число запросов до и после добавления строк и проверяет верхнюю границу.
+     */
+    private void assertStable(Supplier<RequestBuilder> request, long maxStatements) throws Exception {
+        var before = countStatements(request.get());
+
+        addRows();
+
+        var after = countStatements(request.get());
+        assertEquals(before, after, "Количество запросов растет вместе с количеством строк");
+        assertTrue(after <= maxStatements, "Выполнено запросов: " + after);
+    }
+
+    private long countStatements(RequestBuilder request) throws Exception {
+        statistics.clear();
+        mockMvc.perform(request)
+                .andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void addRows() throws Exception {
+        userTestFactory.createUser(
+                "petrov@example.com",
+                "securePassword123",
+                "USER");
+
+        cardTestFactory.createCard("4024007123874108", userId, "ACTIVE", 7500);
+        cardTestFactory.createCard("4111111111111111", userId, "ACTIVE", 3000);
+        transactionTestFactory.createTransaction(
+                "4024007123874108", "4486441729154030", "TRANSFER", 500, userId);
+        transactionTestFactory.createTransaction("4111111111111111", null, "WITHDRAWALS", 200, userId);
+        transactionTestFactory.createTransaction("4486441729154030", null, "WITHDRAWALS", 300, userId);
+    }
+}
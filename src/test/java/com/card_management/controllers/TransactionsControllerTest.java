@@ -2,15 +2,20 @@ package com.card_management.controllers;
 
 import com.card_management.application.Application;
 import com.card_management.application.configuration.SecurityConfig;
+import com.card_management.cards_api.repository.CardRepository;
 import com.card_management.factory.integration.CardTestFactory;
 import com.card_management.factory.integration.TransactionTestFactory;
 import com.card_management.factory.integration.UserTestFactory;
 import com.card_management.transaction_api.dto.TransactionAdminFilterDto;
+import com.card_management.transaction_api.dto.TransactionBatchCreateDto;
 import com.card_management.transaction_api.dto.TransactionByCardDto;
 import com.card_management.transaction_api.dto.TransactionCreateDto;
 import com.card_management.transaction_api.dto.TransactionFilterDto;
 import com.card_management.users_api.repository.UserRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,11 +27,19 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ActiveProfiles("test")
@@ -43,6 +56,12 @@ public class TransactionsControllerTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
     @Autowired
     private UserTestFactory userTestFactory;
 
@@ -130,6 +149,45 @@ public class TransactionsControllerTest {
                 .andExpect(jsonPath("$.transactions[2].amount").value(100));
     }
 
+    @Test
+    void getTransactions_AfterCursor_ReturnsNextPageWithoutCount() throws Exception {
+        var firstPage = mockMvc.perform(get("/transactions")
+                        .header("Authorization", accessToken)
+                        .param("size", "2")
+                        .param("sort", "amount")
+                        .param("after", ""))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.transactions.length()").value(2))
+                .andExpect(jsonPath("$.transactions[0].amount").value(100))
+                .andExpect(jsonPath("$.transactions[1].amount").value(500))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.totalPages").doesNotExist())
+                .andReturn();
+        var nextCursor = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.nextCursor");
+
+        mockMvc.perform(get("/transactions")
+                        .header("Authorization", accessToken)
+                        .param("size", "2")
+                        .param("sort", "amount")
+                        .param("after", nextCursor.toString()))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.transactions.length()").value(1))
+                .andExpect(jsonPath("$.transactions[0].amount").value(1000))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/transactions")
+                        .header("Authorization", accessToken)
+                        .param("size", "2")
+                        .param("sort", "id")
+                        .param("after", nextCursor.toString()))
+                .andExpect(status().isBadRequest())
+                .andDo(print())
+                .andExpect(jsonPath("$.errors[0].message")
+                        .value("Курсор страницы не соответствует параметрам сортировки: " + nextCursor));
+    }
+
     @Test
     void getTransactions_InvalidSortParam_ReturnsBadRequest() throws Exception {
         mockMvc.perform(get("/transactions")
@@ -208,6 +266,182 @@ public class TransactionsControllerTest {
                 .andExpect(jsonPath("$.amount").value(1000));
     }
 
+    @Test
+    void createTransaction_RetryWithIdempotencyKey_ReturnsOriginalTransaction() throws Exception {
+        var accessTokenUser = userTestFactory.getToken("ivanov@example.com");
+
+        var transactionDto = new TransactionCreateDto();
+        transactionDto.setSourceNumber("4486441729154030");
+        transactionDto.setDestinationNumber("4024007123874108");
+        transactionDto.setTransactionType("TRANSFER");
+        transactionDto.setAmount(1000);
+
+        var first = mockMvc.perform(post("/transactions")
+                        .header("Authorization", accessTokenUser)
+                        .header("Idempotency-Key", "mobile-retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(transactionDto)))
+                .andExpect(status().isCreated())
+                .andDo(print())
+                .andReturn();
+        var uuid = JsonPath.read(first.getResponse().getContentAsString(), "$.uuid");
+
+        mockMvc.perform(post("/transactions")
+                        .header("Authorization", accessTokenUser)
+                        .header("Idempotency-Key", "mobile-retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(transactionDto)))
+                .andExpect(status().isCreated())
+                .andDo(print())
+                .andExpect(jsonPath("$.uuid").value(uuid))
+                .andExpect(jsonPath("$.amount").value(1000));
+
+        mockMvc.perform(get("/transactions")
+                        .header("Authorization", accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(4));
+    }
+
+    @Test
+    void createTransaction_IdempotencyKeyReusedWithOtherParams_ReturnsUnprocessableEntity() throws Exception {
+        var accessTokenUser = userTestFactory.getToken("ivanov@example.com");
+
+        var transactionDto = new TransactionCreateDto();
+        transactionDto.setSourceNumber("4486441729154030");
+        transactionDto.setTransactionType("WITHDRAWALS");
+        transactionDto.setAmount(100);
+
+        mockMvc.perform(post("/transactions")
+                        .header("Authorization", accessTokenUser)
+                        .header("Idempotency-Key", "mobile-retry-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(transactionDto)))
+                .andExpect(status().isCreated());
+
+        transactionDto.setAmount(200);
+
+        mockMvc.perform(post("/transactions")
+                        .header("Authorization", accessTokenUser)
+                        .header("Idempotency-Key", "mobile-retry-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(transactionDto)))
+                .andExpect(status().isUnprocessableEntity())
+                .andDo(print())
+                .andExpect(jsonPath("$.errors[0].message")
+                        .value("Ключ идемпотентности уже использован для запроса с другими параметрами"));
+    }
+
+    @Test
+    void createBatch_MixedItems_CreatesValidAndRejectsInvalidPerItem() throws Exception {
+        var accessTokenUser = userTestFactory.getToken("ivanov@example.com");
+
+        var batchDto = new TransactionBatchCreateDto();
+        batchDto.setTransactions(List.of(
+                batchItem("4024007123874108", "4486441729154030", "TRANSFER", 6000),
+                batchItem("4486441729154030", "4024007123874108", "TRANSFER", 4000),
+                batchItem("4024007123874108", null, "WITHDRAWALS", 2000),
+                batchItem("1111222233334444", null, "WITHDRAWALS", 100),
+                batchItem("4486441729154030", null, "TRANSFER", 100),
+                batchItem("4486441729154030", null, "WITHDRAWALS", 500)
+        ));
+
+        mockMvc.perform(post("/transactions/batch")
+                        .header("Authorization", accessTokenUser)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(batchDto)))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.rejected").value(4))
+                .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[0].transaction.maskedSource").value("4024****4108"))
+                .andExpect(jsonPath("$.items[0].transaction.amount").value(6000))
+                .andExpect(jsonPath("$.items[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$.items[1].message").value("Превышен Суточный лимит на Перевод средств с карты"))
+                .andExpect(jsonPath("$.items[2].message").value("Недостаточно средств для совершения операции"))
+                .andExpect(jsonPath("$.items[3].message").value("Карта с номером 1111222233334444 "
+                        + "не принадлежит пользователю с ID " + userID))
+                .andExpect(jsonPath("$.items[4].message").value("Для перевода средств введите номер карты получателя."))
+                .andExpect(jsonPath("$.items[5].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[5].transaction.transactionType").value("WITHDRAWALS"));
+
+        assertEquals(9000, cardRepository.findFirstByOwnerIdAndLastFourDigits(userID, "4030")
+                .orElseThrow()
+                .getBalance());
+        assertEquals(1900, cardRepository.findFirstByOwnerIdAndLastFourDigits(userID, "4108")
+                .orElseThrow()
+                .getBalance());
+        mockMvc.perform(get("/transactions")
+                        .header("Authorization", accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(5));
+    }
+
+    @Test
+    void createBatch_EmptyBatch_ReturnsBadRequest() throws Exception {
+        var accessTokenUser = userTestFactory.getToken("ivanov@example.com");
+
+        var batchDto = new TransactionBatchCreateDto();
+        batchDto.setTransactions(List.of());
+
+        mockMvc.perform(post("/transactions/batch")
+                        .header("Authorization", accessTokenUser)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(batchDto)))
+                .andExpect(status().isBadRequest())
+                .andDo(print());
+    }
+
+    @Test
+    void createBatch_InvalidFields_RejectsOnlyInvalidItems() throws Exception {
+        var accessTokenUser = userTestFactory.getToken("ivanov@example.com");
+
+        var batchDto = new TransactionBatchCreateDto();
+        batchDto.setTransactions(List.of(
+                batchItem("4024007123874108", null, "WITHDRAWALS", 100),
+                batchItem("4024007123874108", null, "WITHDRAWALS", -5),
+                batchItem("123", null, "WITHDRAWALS", 100)
+        ));
+
+        mockMvc.perform(post("/transactions/batch")
+                        .header("Authorization", accessTokenUser)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(batchDto)))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$.items[1].message").value("Введите положительное значение"))
+                .andExpect(jsonPath("$.items[2].status").value("REJECTED"))
+                .andExpect(jsonPath("$.items[2].message").value("Номер карты должен содержать ровно 16 цифр"));
+    }
+
+    @Test
+    @Transactional
+    void createTransaction_DoesNotInitializeTransactionHistories() throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+
+        transactionTestFactory.createTransaction(
+                "4486441729154030",
+                "4024007123874108",
+                "TRANSFER",
+                300,
+                userID
+        );
+
+        var cards = cardRepository.findByOwnerId(userID);
+        assertEquals(2, cards.size());
+        cards.forEach(card -> {
+            assertFalse(Hibernate.isInitialized(card.getOutgoingTransactions()));
+            assertFalse(Hibernate.isInitialized(card.getIncomingTransactions()));
+        });
+        var user = userRepository.findById(userID).orElseThrow();
+        assertFalse(Hibernate.isInitialized(user.getTransactions()));
+    }
+
     @Test
     void createTransaction_InsufficientFunds_ReturnsPaymentRequired() throws Exception {
         var accessTokenUser = userTestFactory.getToken("ivanov@example.com");
@@ -396,6 +630,93 @@ public class TransactionsControllerTest {
                 .andExpect(jsonPath("$.transactions[1].amount").value(500));
     }
 
+    @Test
+    void getUserCardHistory_PagesByCursorNewestFirst() throws Exception {
+        var accessTokenUser = userTestFactory.getToken("ivanov@example.com");
+
+        var firstPage = mockMvc.perform(get("/transactions/my/byCard/{cardLastFourDigits}/history", "4108")
+                        .header("Authorization", accessTokenUser)
+                        .param("size", "1")
+                        .param("withTotal", "true"))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.transactions.length()").value(1))
+                .andExpect(jsonPath("$.transactions[0].amount").value(100))
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.nextCursor").exists())
+                .andReturn();
+        var nextCursor = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.nextCursor");
+
+        mockMvc.perform(get("/transactions/my/byCard/{cardLastFourDigits}/history", "4108")
+                        .header("Authorization", accessTokenUser)
+                        .param("size", "1")
+                        .param("after", nextCursor.toString()))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.transactions.length()").value(1))
+                .andExpect(jsonPath("$.transactions[0].amount").value(500))
+                .andExpect(jsonPath("$.transactions[0].maskedDestination").value("4024****4108"))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getUserCardHistory_UnknownCard_ReturnsNotFound() throws Exception {
+        var accessTokenUser = userTestFactory.getToken("ivanov@example.com");
+
+        mockMvc.perform(get("/transactions/my/byCard/{cardLastFourDigits}/history", "9999")
+                        .header("Authorization", accessTokenUser))
+                .andExpect(status().isNotFound())
+                .andDo(print())
+                .andExpect(jsonPath("$.errors[0].message")
+                        .value("Карта с последними четырьмя цифрами 9999 не найдена."));
+    }
+
+    @Test
+    void getUserCardBalance_AtMomentBeforeTransaction_ReturnsBalanceAtThatMoment() throws Exception {
+        var accessTokenUser = userTestFactory.getToken("ivanov@example.com");
+        var beforeTransfer = LocalDateTime.now();
+        Thread.sleep(10);
+        transactionTestFactory.createTransaction(
+                "4486441729154030",
+                "4024007123874108",
+                "TRANSFER",
+                300,
+                userID
+        );
+
+        mockMvc.perform(get("/transactions/my/byCard/{cardLastFourDigits}/balance", "4030")
+                        .header("Authorization", accessTokenUser)
+                        .param("at", beforeTransfer.toString()))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.maskNumber").value("4486****4030"))
+                .andExpect(jsonPath("$.balance").value(3500));
+
+        mockMvc.perform(get("/transactions/my/byCard/{cardLastFourDigits}/balance", "4030")
+                        .header("Authorization", accessTokenUser))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.balance").value(3200));
+
+        mockMvc.perform(get("/transactions/my/byCard/{cardLastFourDigits}/balance", "4108")
+                        .header("Authorization", accessTokenUser))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.balance").value(8200));
+    }
+
+    @Test
+    void getUserCardBalance_BeforeCardCreated_ReturnsNotFound() throws Exception {
+        var accessTokenUser = userTestFactory.getToken("ivanov@example.com");
+
+        mockMvc.perform(get("/transactions/my/byCard/{cardLastFourDigits}/balance", "4030")
+                        .header("Authorization", accessTokenUser)
+                        .param("at", "2020-01-01T00:00:00"))
+                .andExpect(status().isNotFound())
+                .andDo(print());
+    }
+
     @Test
     void getUserTransactionsByCard_InvalidFormat_ReturnsBadRequest() throws Exception {
         var accessTokenUser = userTestFactory.getToken("ivanov@example.com");
@@ -483,6 +804,81 @@ public class TransactionsControllerTest {
                 .andExpect(jsonPath("$.transactions[0].transactionType").value("TRANSFER"));
     }
 
+    @Test
+    void filterTransactions_ByCardsLastFour_ReturnsMatchingTransactions() throws Exception {
+        var filterDto = new TransactionFilterDto();
+        filterDto.setSourceCardLastFour("4030");
+        filterDto.setDestinationCardLastFour("4108");
+
+        var adminFilterDto = new TransactionAdminFilterDto();
+        adminFilterDto.setTransactionFilterDto(filterDto);
+
+        mockMvc.perform(post("/transactions/filter")
+                        .header("Authorization", accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(adminFilterDto)))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.transactions.length()").value(1))
+                .andExpect(jsonPath("$.transactions[0].maskedSource").value("4486****4030"))
+                .andExpect(jsonPath("$.transactions[0].maskedDestination").value("4024****4108"));
+    }
+
+    @Test
+    void filterTransactions_TotalsNone_ReturnsSliceWithoutCount() throws Exception {
+        var filterDto = new TransactionFilterDto();
+        filterDto.setSourceCardLastFour("4030");
+        filterDto.setDestinationCardLastFour("4108");
+        filterDto.setTotals("NONE");
+
+        var adminFilterDto = new TransactionAdminFilterDto();
+        adminFilterDto.setTransactionFilterDto(filterDto);
+
+        mockMvc.perform(post("/transactions/filter")
+                        .header("Authorization", accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(adminFilterDto)))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.transactions.length()").value(1))
+                .andExpect(jsonPath("$.transactions[0].maskedSource").value("4486****4030"))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    void exportTransactions_Ndjson_StreamsFilteredTransactions() throws Exception {
+        var filterDto = new TransactionFilterDto();
+        filterDto.setSourceCardLastFour("4030");
+        filterDto.setSortBy("amount");
+        filterDto.setSortDirection("DESC");
+
+        var adminFilterDto = new TransactionAdminFilterDto();
+        adminFilterDto.setUserId(userID);
+        adminFilterDto.setTransactionFilterDto(filterDto);
+
+        var result = mockMvc.perform(post("/transactions/export")
+                        .header("Authorization", accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(adminFilterDto)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        var lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .split("\n");
+
+        assertEquals(2, lines.length);
+        assertEquals(1000, (Integer) JsonPath.read(lines[0], "$.amount"));
+        assertEquals("4486****4030", JsonPath.read(lines[0], "$.maskedSource"));
+        assertEquals(500, (Integer) JsonPath.read(lines[1], "$.amount"));
+        assertEquals("4024****4108", JsonPath.read(lines[1], "$.maskedDestination"));
+    }
+
     @Test
     void filterTransactions_InvalidFieldInFilter_ReturnsBadRequest() throws Exception {
         var filterDto = new TransactionFilterDto();
@@ -509,4 +905,13 @@ public class TransactionsControllerTest {
                                 "Некорректный формат даты. Ожидается yyyy-MM-dd.",
                                 "Введите 4 последние цифры номера карты")));
     }
+
+    private TransactionCreateDto batchItem(String source, String destination, String type, int amount) {
+        var transactionDto = new TransactionCreateDto();
+        transactionDto.setSourceNumber(source);
+        transactionDto.setDestinationNumber(destination);
+        transactionDto.setTransactionType(type);
+        transactionDto.setAmount(amount);
+        return transactionDto;
+    }
 }
@@ -6,6 +6,7 @@ import com.card_management.factory.integration.UserTestFactory;
 import com.card_management.users_api.dto.UserCreateDto;
 import com.card_management.users_api.repository.UserRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +19,8 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -88,6 +91,71 @@ public class UsersControllerTest {
                 .andExpect(jsonPath("$.errors[0].field").doesNotExist());
     }
 
+    @Test
+    void getUsers_TotalsNone_ReturnsSecondPageWithoutCount() throws Exception {
+        mockMvc.perform(get("/users")
+                        .header("Authorization", accessToken)
+                        .param("page", "1")
+                        .param("size", "1")
+                        .param("sort", "id")
+                        .param("totals", "NONE"))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.users[0].email").value("admin@example.com"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.totalPages").doesNotExist());
+
+        mockMvc.perform(get("/users")
+                        .header("Authorization", accessToken)
+                        .param("page", "2")
+                        .param("size", "1")
+                        .param("sort", "id")
+                        .param("totals", "NONE"))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.users[0].email").value("ivanov@example.com"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void getUsers_AfterCursorByNullableField_ReturnsEmptyValuesLast() throws Exception {
+        userTestFactory.createUser("petrov@example.com", "securePassword123", "USER");
+        userTestFactory.createUser("sidorov@example.com", "securePassword123", "USER");
+        for (var email : List.of("petrov@example.com", "sidorov@example.com")) {
+            var user = userRepository.findByEmail(email).orElseThrow();
+            user.setMiddleName(null);
+            userRepository.save(user);
+        }
+
+        var firstPage = mockMvc.perform(get("/users")
+                        .header("Authorization", accessToken)
+                        .param("size", "3")
+                        .param("sort", "middleName")
+                        .param("after", ""))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.users.length()").value(3))
+                .andExpect(jsonPath("$.users[0].email").value("admin@example.com"))
+                .andExpect(jsonPath("$.users[1].email").value("ivanov@example.com"))
+                .andExpect(jsonPath("$.users[2].email").value("petrov@example.com"))
+                .andReturn();
+        var nextCursor = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.nextCursor");
+
+        mockMvc.perform(get("/users")
+                        .header("Authorization", accessToken)
+                        .param("size", "3")
+                        .param("sort", "middleName")
+                        .param("after", nextCursor.toString()))
+                .andExpect(status().isOk())
+                .andDo(print())
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.users[0].email").value("sidorov@example.com"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
     @Test
     void getUser_ExistingId_ReturnsUser() throws Exception {
         mockMvc.perform(get("/users/{id}", 2L)
@@ -188,6 +256,32 @@ public class UsersControllerTest {
         assertFalse(exists, "Пользователь должен быть удален");
     }
 
+    @Test
+    void deleteUser_ExistingId_RevokesIssuedTokens() throws Exception {
+        var accessTokenUser = userTestFactory.getToken("ivanov@example.com");
+
+        mockMvc.perform(get("/transactions/my")
+                        .header("Authorization", accessTokenUser))
+                .andExpect(status().isOk())
+                .andDo(print());
+
+        mockMvc.perform(delete("/users/{id}", 2L)
+                        .header("Authorization", accessToken)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andDo(print());
+
+        mockMvc.perform(get("/transactions/my")
+                        .header("Authorization", accessTokenUser))
+                .andExpect(status().isForbidden())
+                .andDo(print());
+
+        mockMvc.perform(get("/users/{id}", 1L)
+                        .header("Authorization", accessToken))
+                .andExpect(status().isOk())
+                .andDo(print());
+    }
+
     @Test
     void deleteUser_NonExistingId_ReturnsNotFound() throws Exception {
         mockMvc.perform(delete("/users/{id}", 999L)
@@ -9,6 +9,10 @@ import org.springframework.stereotype.Component;
 @Component
 public class CardTestFactory {
 
+    public static final int VALIDITY_PERIOD_MONTH = 10;
+
+    public static final int VALIDITY_PERIOD_YEAR = 28;
+
     @Autowired
     private CardService cardService;
 
@@ -22,8 +26,8 @@ public class CardTestFactory {
         var dto = new CardCreateDto();
         dto.setCardNumber(cardNumber);
         dto.setOwnerId(userId);
-        dto.setValidityPeriodMonth(10);
-        dto.setValidityPeriodYear(28);
+        dto.setValidityPeriodMonth(VALIDITY_PERIOD_MONTH);
+        dto.setValidityPeriodYear(VALIDITY_PERIOD_YEAR);
         dto.setStatus(cardStatus);
         dto.setBalance(balance);
         cardService.create(dto);
@@ -12,6 +12,7 @@ public class CardTestFactory {
         card.setId(id);
         card.setEncryptedCardNumber("encrypted" + id);
         card.setMaskNumber("1234****" + (1000 + id));
+        card.setLastFourDigits(String.valueOf(1000 + id));
         card.setOwner(owner);
         card.setValidityPeriodMonth(12);
         card.setValidityPeriodYear(30);
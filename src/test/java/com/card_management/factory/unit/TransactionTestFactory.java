@@ -21,7 +21,11 @@ public class TransactionTestFactory {
         transaction.setId(id);
         transaction.setUser(user);
         transaction.setSource(source);
+        transaction.setSourceLastFour(source.getLastFourDigits());
         transaction.setDestination(destination);
+        if (destination != null) {
+            transaction.setDestinationLastFour(destination.getLastFourDigits());
+        }
         transaction.setTransactionType(transactionType);
         transaction.setAmount(amount);
         return transaction;
@@ -0,0 +1,153 @@
+package com.card_management.ledger_api.scheduled;
+
+import com.card_management.application.Application;
+import com.card_management.application.configuration.SecurityConfig;
+import com.card_management.cards_api.model.Card;
+import com.card_management.cards_api.repository.CardRepository;
+import com.card_management.controllers.AuthController;
+import com.card_management.factory.integration.CardTestFactory;
+import com.card_management.factory.integration.UserTestFactory;
+import com.card_management.ledger_api.repository.BalanceSnapshotRepository;
+import com.card_management.ledger_api.repository.LedgerEntryRepository;
+import com.card_management.ledger_api.service.LedgerService;
+import com.card_management.transaction_api.dto.TransactionCreateDto;
+import com.card_management.transaction_api.service.TransactionBatchService;
+import com.card_management.transaction_api.service.TransactionService;
+import com.card_management.users_api.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ActiveProfiles("test")
+@Import({SecurityConfig.class, AuthController.class})
+@ContextConfiguration(classes = Application.class)
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = true)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class BalanceSnapshotSchedulerTest {
+
+    private static final String SOURCE_NUMBER = "4486441729154030";
+
+    private static final String DESTINATION_NUMBER = "4024007123874108";
+
+    private static final String IDLE_NUMBER = "5469380041234567";
+
+    @Autowired
+    private BalanceSnapshotScheduler balanceSnapshotScheduler;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionBatchService transactionBatchService;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserTestFactory userTestFactory;
+
+    @Autowired
+    private CardTestFactory cardTestFactory;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userTestFactory.createUser("ivanov@example.com", "securePassword123", "USER");
+        userId = userRepository.findByEmail("ivanov@example.com").orElseThrow().getId();
+        cardTestFactory.createCard(SOURCE_NUMBER, userId, "ACTIVE", 1000);
+        cardTestFactory.createCard(DESTINATION_NUMBER, userId, "ACTIVE", 500);
+        cardTestFactory.createCard(IDLE_NUMBER, userId, "ACTIVE", 200);
+    }
+
+    @Test
+    void takeSnapshots_SnapshotsOnlyCardsWithNewEntriesAndKeepsBalanceHistory() throws Exception {
+        transactionService.create(transferDto(100), userId);
+        var afterFirst = LocalDateTime.now();
+        Thread.sleep(10);
+        transactionBatchService.createBatch(List.of(transferDto(200), transferDto(50)), userId);
+        assertEquals(3, balanceSnapshotRepository.count());
+
+        balanceSnapshotScheduler.takeSnapshots();
+        assertEquals(5, balanceSnapshotRepository.count());
+
+        Thread.sleep(10);
+        transactionService.create(transferDto(150), userId);
+        var source = card("4030");
+        var destination = card("4108");
+        assertEquals(500, source.getBalance());
+        assertEquals(500, ledgerService.getBalanceAt(source, LocalDateTime.now()));
+        assertEquals(1000, ledgerService.getBalanceAt(destination, LocalDateTime.now()));
+        assertEquals(900, ledgerService.getBalanceAt(source, afterFirst));
+        assertEquals(600, ledgerService.getBalanceAt(destination, afterFirst));
+        assertEquals(200, ledgerService.getBalanceAt(card("4567"), LocalDateTime.now()));
+
+        balanceSnapshotScheduler.takeSnapshots();
+        assertEquals(7, balanceSnapshotRepository.count());
+        assertEquals(500, ledgerService.getBalanceAt(source, LocalDateTime.now()));
+    }
+
+    @Test
+    void takeSnapshots_OtherCardSnapshottedLater_StillSnapshotsCardWithNewEntries() {
+        transactionService.create(withdrawalDto(SOURCE_NUMBER, 100), userId);
+        transactionService.create(withdrawalDto(DESTINATION_NUMBER, 50), userId);
+        var source = card("4030");
+        var destination = card("4108");
+        ledgerService.takeSnapshot(destination.getId());
+        assertEquals(4, balanceSnapshotRepository.count());
+
+        balanceSnapshotScheduler.takeSnapshots();
+
+        assertEquals(5, balanceSnapshotRepository.count());
+        var snapshot = balanceSnapshotRepository
+                .findFirstByCardIdAndTakenAtLessThanEqualOrderByTakenAtDescIdDesc(source.getId(), LocalDateTime.now())
+                .orElseThrow();
+        assertEquals(900, snapshot.getBalance());
+        assertEquals(ledgerEntryRepository.findLastIdByCardId(source.getId()), snapshot.getLastEntryId());
+    }
+
+    private Card card(String lastFourDigits) {
+        return cardRepository.findFirstByOwnerIdAndLastFourDigits(userId, lastFourDigits).orElseThrow();
+    }
+
+    private static TransactionCreateDto withdrawalDto(String sourceNumber, int amount) {
+        var dto = new TransactionCreateDto();
+        dto.setSourceNumber(sourceNumber);
+        dto.setTransactionType("WITHDRAWALS");
+        dto.setAmount(amount);
+        return dto;
+    }
+
+    private static TransactionCreateDto transferDto(int amount) {
+        var dto = new TransactionCreateDto();
+        dto.setSourceNumber(SOURCE_NUMBER);
+        dto.setDestinationNumber(DESTINATION_NUMBER);
+        dto.setTransactionType("TRANSFER");
+        dto.setAmount(amount);
+        return dto;
+    }
+}
@@ -29,7 +29,6 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 
 import java.time.LocalDate;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -107,7 +106,7 @@ public class LimitServiceTest {
         when(limitMapper.map(limit1)).thenReturn(limitDto1);
         when(limitMapper.map(limit2)).thenReturn(limitDto2);
 
-        LimitEnvelopDto result = limitService.getLimits(page, size, sort);
+        LimitEnvelopDto result = limitService.getLimits(page, size, sort, null, null);
 
         assertNotNull(result);
         assertEquals(2, result.getLimits().size());
@@ -123,7 +122,7 @@ public class LimitServiceTest {
 
         var exception = assertThrows(
                 FieldsValidationException.class,
-                () -> limitService.getLimits(page, size, invalidSortField)
+                () -> limitService.getLimits(page, size, invalidSortField, null, null)
         );
         assertEquals("Недопустимое поле сортировки: " + invalidSortField, exception.getMessage());
     }
@@ -241,7 +240,7 @@ public class LimitServiceTest {
                 () -> limitService.delete(limitId)
         );
         assertEquals("Лимит с ID 1 не найден", exception.getMessage());
-        verify(limitRepository, never()).delete(any());
+        verify(limitRepository, never()).delete(any(Limit.class));
     }
 
     @Test
@@ -275,74 +274,90 @@ public class LimitServiceTest {
     }
 
     @Test
-    void resetLimitsByType_whenLimitsExist_resetValuesAndSave() {
-        var limitType = LimitType.MONTHLY;
-        var limit1 = mock(Limit.class);
-        var limit2 = mock(Limit.class);
-        var limits = List.of(limit1, limit2);
-
-        when(limitRepository.findByLimitType(limitType)).thenReturn(limits);
+    void applyPendingUpdates_whenSeveralChunks_updatesUntilChunkIsIncomplete() {
+        when(limitRepository.applyPendingUpdates("MONTHLY", LimitService.PENDING_UPDATES_CHUNK_SIZE))
+                .thenReturn(LimitService.PENDING_UPDATES_CHUNK_SIZE, 5);
 
-        limitService.resetLimitsByType(limitType);
+        var updated = limitService.applyPendingUpdates(LimitType.MONTHLY);
 
-        for (Limit limit : limits) {
-            verify(limit).setCurrentExpensesAmount(0);
-            verify(limit).setDateLastTransaction(null);
-            verify(limitRepository).save(limit);
-        }
+        assertEquals(LimitService.PENDING_UPDATES_CHUNK_SIZE + 5, updated);
+        verify(limitRepository, times(2))
+                .applyPendingUpdates("MONTHLY", LimitService.PENDING_UPDATES_CHUNK_SIZE);
+        verify(limitRepository, never()).save(any());
     }
 
     @Test
-    void resetLimitsByType_whenNoLimitsFound_doesNothing() {
-        var limitType = LimitType.DAILY;
-        when(limitRepository.findByLimitType(limitType)).thenReturn(Collections.emptyList());
+    void applyPendingUpdates_whenNothingPending_runsOneQuery() {
+        when(limitRepository.applyPendingUpdates("DAILY", LimitService.PENDING_UPDATES_CHUNK_SIZE))
+                .thenReturn(0);
 
-        limitService.resetLimitsByType(limitType);
+        assertEquals(0, limitService.applyPendingUpdates(LimitType.DAILY));
 
-        verify(limitRepository, never()).save(any());
+        verify(limitRepository, times(1))
+                .applyPendingUpdates("DAILY", LimitService.PENDING_UPDATES_CHUNK_SIZE);
     }
 
     @Test
-    void canTransaction_whenAmountWithinLimit_doesNotThrow() {
-        limit1.setCurrentExpensesAmount(500);
-        assertDoesNotThrow(() -> limitService.canTransaction(limit1, 400));
+    void reserve_whenAmountFitsAllLimits_reservesWithOneUpdate() {
+        var today = LocalDate.now();
+        when(limitRepository.findByUserIdAndTransactionType(user.getId(), TransactionType.TRANSFER))
+                .thenReturn(List.of(limit1, limit2));
+        when(limitRepository.reserve(user.getId(), TransactionType.TRANSFER, 400,
+                LimitType.DAILY, LimitType.DAILY.periodOf(today), LimitType.MONTHLY.periodOf(today),
+                today)).thenReturn(2);
+
+        assertDoesNotThrow(() -> limitService.reserve(user.getId(), TransactionType.TRANSFER, 400));
+
+        verify(limitRepository).reserve(user.getId(), TransactionType.TRANSFER, 400,
+                LimitType.DAILY, LimitType.DAILY.periodOf(today), LimitType.MONTHLY.periodOf(today),
+                today);
+        verify(limitRepository, never()).save(any());
     }
 
     @Test
-    void canTransaction_whenAmountExceedsLimit_throwsException() {
-        limit1.setCurrentExpensesAmount(900);
-        limit1.setDateLastTransaction(LocalDate.now());
+    void reserve_whenNoLimitsAssigned_doesNotRestrict() {
+        when(limitRepository.findByUserIdAndTransactionType(user.getId(), TransactionType.WITHDRAWALS))
+                .thenReturn(List.of());
 
-        var ex = assertThrows(ExceedingLimitException.class, () ->
-                limitService.canTransaction(limit1, 200));
+        assertDoesNotThrow(() -> limitService.reserve(user.getId(), TransactionType.WITHDRAWALS, 400));
 
-        assertEquals("Превышен Суточный лимит на Перевод средств с карты", ex.getMessage());
+        verify(limitRepository, never()).reserve(any(), any(), any(), any(), any(), any(), any());
     }
 
     @Test
-    void registerTransaction_whenValidInput_updatesLimitAndSaves() {
-        limit1.setCurrentExpensesAmount(200);
-        limit1.setDateLastTransaction(LocalDate.now());
-        var amount = 300;
+    void reserve_whenAmountExceedsLimit_throwsException() {
+        var today = LocalDate.now();
+        limit1.setCurrentExpensesAmount(900);
+        limit1.setExpensesPeriod(LimitType.DAILY.periodOf(today));
+        when(limitRepository.findByUserIdAndTransactionType(user.getId(), TransactionType.TRANSFER))
+                .thenReturn(List.of(limit2, limit1));
+        when(limitRepository.reserve(user.getId(), TransactionType.TRANSFER, 200,
+                LimitType.DAILY, LimitType.DAILY.periodOf(today), LimitType.MONTHLY.periodOf(today),
+                today)).thenReturn(1);
 
-        limitService.registerTransaction(limit1, amount);
+        var ex = assertThrows(ExceedingLimitException.class, () ->
+                limitService.reserve(user.getId(), TransactionType.TRANSFER, 200));
 
-        assertEquals(500, limit1.getCurrentExpensesAmount());
-        assertEquals(LocalDate.now(), limit1.getDateLastTransaction());
-        verify(limitRepository).save(limit1);
+        assertEquals("Превышен Суточный лимит на Перевод средств с карты", ex.getMessage());
     }
 
     @Test
-    void registerTransaction_whenLimitsWereReset_registersFromZero() {
-        limit1.setCurrentExpensesAmount(0);
-        limit1.setDateLastTransaction(null);
-        var amount = 400;
+    void reserve_whenExpensesBelongToSameMonthOfPreviousYear_ignoresThem() {
+        var today = LocalDate.now();
+        limit1.setCurrentExpensesAmount(900);
+        limit1.setExpensesPeriod(LimitType.DAILY.periodOf(today));
+        limit2.setCurrentExpensesAmount(49900);
+        limit2.setExpensesPeriod(LimitType.MONTHLY.periodOf(today.minusYears(1)));
+        when(limitRepository.findByUserIdAndTransactionType(user.getId(), TransactionType.TRANSFER))
+                .thenReturn(List.of(limit2, limit1));
+        when(limitRepository.reserve(user.getId(), TransactionType.TRANSFER, 200,
+                LimitType.DAILY, LimitType.DAILY.periodOf(today), LimitType.MONTHLY.periodOf(today),
+                today)).thenReturn(1);
 
-        limitService.registerTransaction(limit1, amount);
+        var ex = assertThrows(ExceedingLimitException.class, () ->
+                limitService.reserve(user.getId(), TransactionType.TRANSFER, 200));
 
-        assertEquals(400, limit1.getCurrentExpensesAmount());
-        assertEquals(LocalDate.now(), limit1.getDateLastTransaction());
-        verify(limitRepository).save(limit1);
+        assertEquals("Превышен Суточный лимит на Перевод средств с карты", ex.getMessage());
     }
 
     @Test
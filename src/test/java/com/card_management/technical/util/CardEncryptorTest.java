@@ -0,0 +1,53 @@
+package com.card_management.technical.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.encrypt.Encryptors;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardEncryptorTest {
+
+    private static final String PASSWORD = "secret";
+
+    private static final String SALT = "5c0f3a9e21d4b786";
+
+    private static final String CARD_NUMBER = "4486441729154030";
+
+    private final CardEncryptor cardEncryptor = new CardEncryptor(PASSWORD, SALT);
+
+    @Test
+    void decryptCardNumber_StoredByTextEncryptor_Decrypted() {
+        var stored = Encryptors.text(PASSWORD, SALT).encrypt(CARD_NUMBER);
+
+        assertEquals(CARD_NUMBER, cardEncryptor.decryptCardNumber(stored));
+    }
+
+    @Test
+    void encryptCardNumber_DecryptedByTextEncryptor() {
+        var encrypted = cardEncryptor.encryptCardNumber(CARD_NUMBER);
+
+        assertEquals(CARD_NUMBER, Encryptors.text(PASSWORD, SALT).decrypt(encrypted));
+    }
+
+    @Test
+    void encryptCardNumber_ConcurrentCallers_EachRoundTrips() throws Exception {
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var tasks = IntStream.range(0, 200)
+                    .mapToObj(i -> (Callable<Boolean>) () -> {
+                        var number = String.format("4486441729%06d", i);
+                        return number.equals(cardEncryptor.decryptCardNumber(cardEncryptor.encryptCardNumber(number)));
+                    })
+                    .toList();
+            for (var result : executor.invokeAll(tasks)) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
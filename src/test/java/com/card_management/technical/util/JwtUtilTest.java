@@ -0,0 +1,68 @@
+package com.card_management.technical.util;
+
+import com.card_management.application.configuration.JwtCacheConfig;
+import com.card_management.factory.unit.UserTestFactory;
+import com.card_management.users_api.security.CustomUserDetails;
+import com.card_management.users_api.security.TokenDenyList;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final TokenDenyList tokenDenyList = new TokenDenyList();
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil(tokenDenyList, new JwtCacheConfig(), meterRegistry);
+        ReflectionTestUtils.setField(jwtUtil, "secret", "testSecretKeyMustBeAtLeast32CharsLong!");
+        jwtUtil.init();
+    }
+
+    @Test
+    void authenticate_RepeatedToken_VerifiesOnceAndServesFromCache() {
+        var token = jwtUtil.generateToken(new CustomUserDetails(UserTestFactory.createUser(1L)));
+
+        var first = jwtUtil.authenticate(token).orElseThrow();
+        var second = jwtUtil.authenticate(token).orElseThrow();
+
+        assertEquals(1L, second.getId());
+        assertEquals("user1@example.com", second.getUsername());
+        assertEquals("ROLE_USER", second.getAuthorities().iterator().next().getAuthority());
+        assertSame(first, second);
+        assertEquals(1, timerCount("miss"));
+        assertEquals(1, timerCount("hit"));
+    }
+
+    @Test
+    void authenticate_TamperedToken_ReturnsEmpty() {
+        var token = jwtUtil.generateToken(new CustomUserDetails(UserTestFactory.createUser(1L)));
+        var tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertTrue(jwtUtil.authenticate(tampered).isEmpty());
+        assertTrue(jwtUtil.authenticate("not-a-token").isEmpty());
+    }
+
+    @Test
+    void authenticate_CachedTokenRevoked_ReturnsEmpty() {
+        var token = jwtUtil.generateToken(new CustomUserDetails(UserTestFactory.createUser(1L)));
+        assertTrue(jwtUtil.authenticate(token).isPresent());
+
+        tokenDenyList.revoke(1L);
+
+        assertTrue(jwtUtil.authenticate(token).isEmpty());
+        var reissued = jwtUtil.generateToken(new CustomUserDetails(UserTestFactory.createUser(1L)));
+        assertTrue(jwtUtil.authenticate(reissued).isPresent());
+    }
+
+    private long timerCount(String cache) {
+        return meterRegistry.get("jwt.authentication").tag("cache", cache).timer().count();
+    }
+}
@@ -0,0 +1,40 @@
+package com.card_management.technical.util;
+
+import com.card_management.application.configuration.AppConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestFingerprintGeneratorTest {
+
+    private static final String REQUEST = "4486441729154030||WITHDRAWALS|100";
+
+    private CardFingerprintGenerator cardFingerprintGenerator;
+
+    private RequestFingerprintGenerator requestFingerprintGenerator;
+
+    @BeforeEach
+    void setUp() {
+        var appConfig = new AppConfig();
+        appConfig.setFingerprintKey("testFingerprintKey");
+        cardFingerprintGenerator = new CardFingerprintGenerator(appConfig);
+        cardFingerprintGenerator.init();
+        requestFingerprintGenerator = new RequestFingerprintGenerator(appConfig);
+        requestFingerprintGenerator.init();
+    }
+
+    @Test
+    void generate_SameRequest_ReturnsSameFingerprint() {
+        assertEquals(requestFingerprintGenerator.generate(REQUEST), requestFingerprintGenerator.generate(REQUEST));
+        assertNotEquals(requestFingerprintGenerator.generate(REQUEST),
+                requestFingerprintGenerator.generate("4486441729154030||WITHDRAWALS|200"));
+    }
+
+    @Test
+    void generate_SameInput_DiffersFromCardFingerprint() {
+        assertNotEquals(cardFingerprintGenerator.generate(REQUEST), requestFingerprintGenerator.generate(REQUEST));
+        assertNotEquals(cardFingerprintGenerator.generate("4486441729154030"),
+                requestFingerprintGenerator.generate("4486441729154030"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.card_management.technical.util.factory;
+
+import com.card_management.application.configuration.AppConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardEncryptorFactoryImplTest {
+
+    private static final String PASSWORD = "secret";
+
+    private static final String CARD_NUMBER = "4486441729154030";
+
+    private static final String KEY_SALT = "5c0f3a9e21d4b786";
+
+    private static final String LEGACY_SALT = "0a1b2c3d4e5f6071";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private CardEncryptorFactoryImpl cardEncryptorFactory;
+
+    @BeforeEach
+    void setUp() {
+        cardEncryptorFactory = new CardEncryptorFactoryImpl(new AppConfig(), meterRegistry);
+    }
+
+    @Test
+    void create_SharedSalt_DerivesKeyOnceAndReusesEncryptor() {
+        var first = cardEncryptorFactory.create(PASSWORD, KEY_SALT).encryptCardNumber(CARD_NUMBER);
+        var second = cardEncryptorFactory.create(PASSWORD, KEY_SALT).encryptCardNumber(CARD_NUMBER);
+        var decrypted = cardEncryptorFactory.create(PASSWORD, KEY_SALT).decryptCardNumber(first);
+
+        assertNotEquals(first, second);
+        assertEquals(CARD_NUMBER, decrypted);
+        assertEquals(1, gets("miss"));
+        assertEquals(2, gets("hit"));
+        assertEquals(1, meterRegistry.get("cache.size").tag("cache", "card.encryptor.keys").gauge().value());
+    }
+
+    @Test
+    void create_DifferentSalts_DerivesKeyPerSalt() {
+        var firstSalt = KEY_SALT;
+        var secondSalt = LEGACY_SALT;
+
+        var first = cardEncryptorFactory.create(PASSWORD, firstSalt).encryptCardNumber(CARD_NUMBER);
+        var second = cardEncryptorFactory.create(PASSWORD, secondSalt).encryptCardNumber(CARD_NUMBER);
+
+        assertNotEquals(first, second);
+        assertEquals(CARD_NUMBER, cardEncryptorFactory.create(PASSWORD, firstSalt).decryptCardNumber(first));
+        assertEquals(CARD_NUMBER, cardEncryptorFactory.create(PASSWORD, secondSalt).decryptCardNumber(second));
+        assertEquals(2, gets("miss"));
+        assertEquals(2, gets("hit"));
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", "card.encryptor.keys")
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
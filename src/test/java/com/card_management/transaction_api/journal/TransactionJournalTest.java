@@ -0,0 +1,72 @@
+package com.card_management.transaction_api.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionJournalTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void recover_AfterRestart_ReturnsOnlyUnappliedEntriesInOrder() {
+        var journal = new TransactionJournal(directory, SEGMENT_SIZE, objectMapper);
+        assertTrue(journal.recover().isEmpty());
+        var first = journal.append(entry());
+        var second = journal.append(entry());
+        var third = journal.append(entry());
+        journal.force();
+        journal.markApplied(first.sequence());
+        journal.close();
+
+        var reopened = new TransactionJournal(directory, SEGMENT_SIZE, objectMapper);
+        var recovered = reopened.recover();
+
+        assertEquals(2, recovered.size());
+        assertEquals(second, recovered.get(0));
+        assertEquals(third, recovered.get(1));
+        assertEquals(third.sequence() + 1, reopened.append(entry()).sequence());
+        reopened.close();
+    }
+
+    @Test
+    void markApplied_AllEntriesOfSegmentApplied_DeletesSegment() throws IOException {
+        var journal = new TransactionJournal(directory, SEGMENT_SIZE, objectMapper);
+        journal.recover();
+        JournalEntry last = null;
+        for (var i = 0; i < 20; i++) {
+            last = journal.append(entry());
+        }
+        journal.force();
+        assertTrue(segmentCount() > 2);
+
+        journal.markApplied(last.sequence());
+        journal.close();
+
+        assertEquals(1, segmentCount());
+        assertTrue(new TransactionJournal(directory, SEGMENT_SIZE, objectMapper).recover().isEmpty());
+    }
+
+    private long segmentCount() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-")).count();
+        }
+    }
+
+    private static JournalEntry entry() {
+        return new JournalEntry(0, UUID.randomUUID(), 1L, "salt", "source", "destination", "TRANSFER", 100);
+    }
+}
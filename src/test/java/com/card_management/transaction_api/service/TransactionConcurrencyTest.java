@@ -0,0 +1,184 @@
+package com.card_management.transaction_api.service;
+
+import com.card_management.application.Application;
+import com.card_management.application.configuration.SecurityConfig;
+import com.card_management.cards_api.repository.CardRepository;
+import com.card_management.controllers.AuthController;
+import com.card_management.factory.integration.CardTestFactory;
+import com.card_management.factory.integration.UserTestFactory;
+import com.card_management.transaction_api.dto.TransactionCreateDto;
+import com.card_management.transaction_api.dto.TransactionDto;
+import com.card_management.transaction_api.exception.InsufficientFundsForTransactionException;
+import com.card_management.transaction_api.repository.TransactionRepository;
+import com.card_management.users_api.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ActiveProfiles("test")
+@Import({SecurityConfig.class, AuthController.class})
+@ContextConfiguration(classes = Application.class)
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = true)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class TransactionConcurrencyTest {
+
+    private static final String SOURCE_NUMBER = "4486441729154030";
+
+    private static final String DESTINATION_NUMBER = "4024007123874108";
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionIdempotencyService transactionIdempotencyService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserTestFactory userTestFactory;
+
+    @Autowired
+    private CardTestFactory cardTestFactory;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userTestFactory.createUser("ivanov@example.com", "securePassword123", "USER");
+        userId = userRepository.findByEmail("ivanov@example.com").orElseThrow().getId();
+        cardTestFactory.createCard(SOURCE_NUMBER, userId, "ACTIVE", 1000);
+        cardTestFactory.createCard(DESTINATION_NUMBER, userId, "ACTIVE", 500);
+    }
+
+    @Test
+    void concurrentTransfers_FromOneCard_LoseNoUpdatesAndNeverOverdraw() throws Exception {
+        var threads = 16;
+        var attempts = 20;
+        var amount = 100;
+        var executor = Executors.newFixedThreadPool(threads);
+        var start = new CountDownLatch(1);
+        var futures = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < attempts; i++) {
+            Callable<Boolean> transfer = () -> {
+                start.await();
+                var dto = new TransactionCreateDto();
+                dto.setSourceNumber(SOURCE_NUMBER);
+                dto.setDestinationNumber(DESTINATION_NUMBER);
+                dto.setTransactionType("TRANSFER");
+                dto.setAmount(amount);
+                transactionService.create(dto, userId);
+                return true;
+            };
+            futures.add(executor.submit(transfer));
+        }
+        start.countDown();
+
+        var succeeded = 0;
+        var rejected = 0;
+        for (var future : futures) {
+            try {
+                future.get(60, TimeUnit.SECONDS);
+                succeeded++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(InsufficientFundsForTransactionException.class, e.getCause());
+                rejected++;
+            }
+        }
+        executor.shutdown();
+
+        var cards = cardRepository.findByOwnerId(userId);
+        var source = cards.stream().filter(card -> card.getMaskNumber().endsWith("4030")).findFirst().orElseThrow();
+        var destination = cards.stream().filter(card -> card.getMaskNumber().endsWith("4108")).findFirst().orElseThrow();
+
+        assertEquals(10, succeeded);
+        assertEquals(10, rejected);
+        assertEquals(0, source.getBalance());
+        assertEquals(1500, destination.getBalance());
+        assertEquals(10, transactionRepository.count());
+    }
+
+    @Test
+    void concurrentRetries_WithSameIdempotencyKey_CollapseToOneTransaction() throws Exception {
+        var threads = 16;
+        var executor = Executors.newFixedThreadPool(threads);
+        var start = new CountDownLatch(1);
+        var futures = new ArrayList<Future<TransactionDto>>();
+        for (int i = 0; i < threads; i++) {
+            Callable<TransactionDto> retry = () -> {
+                start.await();
+                return transactionIdempotencyService.create(transferDto(100), userId, "retry-key");
+            };
+            futures.add(executor.submit(retry));
+        }
+        start.countDown();
+
+        var uuids = new HashSet<UUID>();
+        for (var future : futures) {
+            uuids.add(future.get(60, TimeUnit.SECONDS).getUuid());
+        }
+        executor.shutdown();
+
+        var source = cardRepository.findByOwnerId(userId).stream()
+                .filter(card -> card.getMaskNumber().endsWith("4030"))
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals(1, uuids.size());
+        assertEquals(1, transactionRepository.count());
+        assertEquals(900, source.getBalance());
+    }
+
+    @Test
+    void create_WithAlreadyStoredIdempotencyKey_RollsBackWithoutCharging() {
+        transactionService.create(transferDto(100), userId, "stored-key", "fingerprint");
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> transactionService.create(transferDto(100), userId, "stored-key", "fingerprint"));
+
+        var source = cardRepository.findByOwnerId(userId).stream()
+                .filter(card -> card.getMaskNumber().endsWith("4030"))
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals(1, transactionRepository.count());
+        assertEquals(900, source.getBalance());
+    }
+
+    private static TransactionCreateDto transferDto(int amount) {
+        var dto = new TransactionCreateDto();
+        dto.setSourceNumber(SOURCE_NUMBER);
+        dto.setDestinationNumber(DESTINATION_NUMBER);
+        dto.setTransactionType("TRANSFER");
+        dto.setAmount(amount);
+        return dto;
+    }
+}
@@ -0,0 +1,189 @@
+package com.card_management.transaction_api.service;
+
+import com.card_management.application.Application;
+import com.card_management.application.configuration.SecurityConfig;
+import com.card_management.cards_api.repository.CardRepository;
+import com.card_management.controllers.AuthController;
+import com.card_management.factory.integration.CardTestFactory;
+import com.card_management.factory.integration.UserTestFactory;
+import com.card_management.technical.exception.ResourceNotFoundException;
+import com.card_management.transaction_api.dto.TransactionCreateDto;
+import com.card_management.transaction_api.exception.InsufficientFundsForTransactionException;
+import com.card_management.transaction_api.repository.TransactionRepository;
+import com.card_management.users_api.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+
+@ActiveProfiles("test")
+@Import({SecurityConfig.class, AuthController.class})
+@ContextConfiguration(classes = Application.class)
+@SpringBootTest(properties = {
+        "transaction.ingestion.enabled=true",
+        "transaction.ingestion.partitions=2",
+        "transaction.ingestion.max-batch-size=8",
+        "transaction.ingestion.max-linger=20ms"
+})
+@AutoConfigureMockMvc(addFilters = true)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class TransactionIngestionTest {
+
+    private static final String SOURCE_NUMBER = "4486441729154030";
+
+    private static final String DESTINATION_NUMBER = "4024007123874108";
+
+    @Autowired
+    private TransactionIngestionService transactionIngestionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @SpyBean
+    private TransactionBatchService transactionBatchService;
+
+    @Autowired
+    private UserTestFactory userTestFactory;
+
+    @Autowired
+    private CardTestFactory cardTestFactory;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userTestFactory.createUser("ivanov@example.com", "securePassword123", "USER");
+        userId = userRepository.findByEmail("ivanov@example.com").orElseThrow().getId();
+        cardTestFactory.createCard(SOURCE_NUMBER, userId, "ACTIVE", 1000);
+        cardTestFactory.createCard(DESTINATION_NUMBER, userId, "ACTIVE", 500);
+    }
+
+    @Test
+    void concurrentTransfers_GroupCommitted_LoseNoUpdatesAndNeverOverdraw() throws Exception {
+        var attempts = 20;
+        var executor = Executors.newFixedThreadPool(attempts);
+        var start = new CountDownLatch(1);
+        var futures = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < attempts; i++) {
+            Callable<Boolean> transfer = () -> {
+                start.await();
+                transactionIngestionService.create(transferDto(SOURCE_NUMBER, 100), userId);
+                return true;
+            };
+            futures.add(executor.submit(transfer));
+        }
+        start.countDown();
+
+        var succeeded = 0;
+        var rejected = 0;
+        for (var future : futures) {
+            try {
+                future.get(60, TimeUnit.SECONDS);
+                succeeded++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(InsufficientFundsForTransactionException.class, e.getCause());
+                rejected++;
+            }
+        }
+        executor.shutdown();
+
+        var cards = cardRepository.findByOwnerId(userId);
+        var source = cards.stream().filter(card -> card.getMaskNumber().endsWith("4030")).findFirst().orElseThrow();
+        var destination = cards.stream().filter(card -> card.getMaskNumber().endsWith("4108")).findFirst().orElseThrow();
+
+        assertEquals(10, succeeded);
+        assertEquals(10, rejected);
+        assertEquals(0, source.getBalance());
+        assertEquals(1500, destination.getBalance());
+        assertEquals(10, transactionRepository.count());
+    }
+
+    @Test
+    void create_ForeignCard_RejectsOnlyThisRequest() {
+        assertThrows(ResourceNotFoundException.class,
+                () -> transactionIngestionService.create(transferDto("1111222233334444", 100), userId));
+
+        var transaction = transactionIngestionService.create(transferDto(SOURCE_NUMBER, 100), userId);
+
+        assertEquals("4486****4030", transaction.getMaskedSource());
+        assertEquals(1, transactionRepository.count());
+    }
+
+    @Test
+    void create_UnexpectedFailureInBatch_FailsOnlyThisRequest() throws Exception {
+        doAnswer(invocation -> {
+            List<TransactionCreateDto> transactions = invocation.getArgument(0);
+            if (transactions.stream().anyMatch(dto -> dto.getAmount() == 13)) {
+                throw new IllegalStateException("Поврежденный запрос");
+            }
+            return invocation.callRealMethod();
+        }).when(transactionBatchService).apply(anyList(), anyLong());
+
+        var executor = Executors.newFixedThreadPool(5);
+        var start = new CountDownLatch(1);
+        var futures = new ArrayList<Future<Boolean>>();
+        for (var amount : List.of(100, 13, 100, 100, 100)) {
+            Callable<Boolean> transfer = () -> {
+                start.await();
+                transactionIngestionService.create(transferDto(SOURCE_NUMBER, amount), userId);
+                return true;
+            };
+            futures.add(executor.submit(transfer));
+        }
+        start.countDown();
+
+        var succeeded = 0;
+        var failed = 0;
+        for (var future : futures) {
+            try {
+                future.get(60, TimeUnit.SECONDS);
+                succeeded++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+                failed++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(4, succeeded);
+        assertEquals(1, failed);
+        assertEquals(4, transactionRepository.count());
+    }
+
+    private static TransactionCreateDto transferDto(String sourceNumber, int amount) {
+        var dto = new TransactionCreateDto();
+        dto.setSourceNumber(sourceNumber);
+        dto.setDestinationNumber(DESTINATION_NUMBER);
+        dto.setTransactionType("TRANSFER");
+        dto.setAmount(amount);
+        return dto;
+    }
+}
@@ -0,0 +1,52 @@
+package com.card_management.transaction_api.service;
+
+import com.card_management.application.Application;
+import com.card_management.application.configuration.SecurityConfig;
+import com.card_management.controllers.AuthController;
+import com.card_management.transaction_api.dto.TransactionCreateDto;
+import com.card_management.transaction_api.exception.IngestionOverloadedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ActiveProfiles("test")
+@Import({SecurityConfig.class, AuthController.class})
+@ContextConfiguration(classes = Application.class)
+@SpringBootTest(properties = {
+        "transaction.journal.enabled=true",
+        "transaction.journal.segment-size=65536",
+        "transaction.journal.max-pending=0"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class TransactionJournalOverloadTest {
+
+    @Autowired
+    private TransactionJournalService transactionJournalService;
+
+    @DynamicPropertySource
+    static void journalDirectory(DynamicPropertyRegistry registry) {
+        registry.add("transaction.journal.directory",
+                () -> Path.of(System.getProperty("java.io.tmpdir"), "transaction-journal-" + UUID.randomUUID()).toString());
+    }
+
+    @Test
+    void submit_PendingLimitReached_ThrowsOverloaded() {
+        var dto = new TransactionCreateDto();
+        dto.setSourceNumber("4486441729154030");
+        dto.setTransactionType("WITHDRAWALS");
+        dto.setAmount(100);
+
+        assertThrows(IngestionOverloadedException.class, () -> transactionJournalService.submit(dto, 1L));
+    }
+}
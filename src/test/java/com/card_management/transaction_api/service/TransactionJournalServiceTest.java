@@ -0,0 +1,203 @@
+package com.card_management.transaction_api.service;
+
+import com.card_management.application.Application;
+import com.card_management.application.configuration.SecurityConfig;
+import com.card_management.cards_api.repository.CardRepository;
+import com.card_management.controllers.AuthController;
+import com.card_management.factory.integration.CardTestFactory;
+import com.card_management.factory.integration.UserTestFactory;
+import com.card_management.technical.exception.ResourceNotFoundException;
+import com.card_management.transaction_api.dto.TransactionCreateDto;
+import com.card_management.transaction_api.dto.TransactionJournalStatusDto;
+import com.card_management.transaction_api.enumeration.TransactionJournalStatus;
+import com.card_management.transaction_api.journal.TransactionJournal;
+import com.card_management.transaction_api.repository.TransactionRejectionRepository;
+import com.card_management.users_api.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+@ActiveProfiles("test")
+@Import({SecurityConfig.class, AuthController.class})
+@ContextConfiguration(classes = Application.class)
+@SpringBootTest(properties = {
+        "transaction.journal.enabled=true",
+        "transaction.journal.segment-size=65536",
+        "transaction.journal.retry-interval=100ms"
+})
+@AutoConfigureMockMvc(addFilters = true)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class TransactionJournalServiceTest {
+
+    private static final String SOURCE_NUMBER = "4486441729154030";
+
+    private static final String DESTINATION_NUMBER = "4024007123874108";
+
+    @Autowired
+    private TransactionJournalService transactionJournalService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRejectionRepository transactionRejectionRepository;
+
+    @SpyBean
+    private TransactionBatchService transactionBatchService;
+
+    @Autowired
+    private UserTestFactory userTestFactory;
+
+    @Autowired
+    private CardTestFactory cardTestFactory;
+
+    private Long userId;
+
+    @DynamicPropertySource
+    static void journalDirectory(DynamicPropertyRegistry registry) {
+        registry.add("transaction.journal.directory",
+                () -> Path.of(System.getProperty("java.io.tmpdir"), "transaction-journal-" + UUID.randomUUID()).toString());
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userTestFactory.createUser("ivanov@example.com", "securePassword123", "USER");
+        userId = userRepository.findByEmail("ivanov@example.com").orElseThrow().getId();
+        cardTestFactory.createCard(SOURCE_NUMBER, userId, "ACTIVE", 1000);
+        cardTestFactory.createCard(DESTINATION_NUMBER, userId, "ACTIVE", 500);
+    }
+
+    @Test
+    void submit_AppliedAsynchronously_ResolvesToAppliedOrRejected() throws Exception {
+        var accepted = transactionJournalService.submit(transferDto(600), userId);
+        var overdraft = transactionJournalService.submit(transferDto(600), userId);
+
+        assertEquals(TransactionJournalStatus.PENDING, accepted.getStatus());
+        assertNotNull(accepted.getUuid());
+
+        var applied = await(accepted.getUuid());
+        var rejected = await(overdraft.getUuid());
+
+        assertEquals(TransactionJournalStatus.APPLIED, applied.getStatus());
+        assertEquals(accepted.getUuid(), applied.getTransaction().getUuid());
+        assertEquals(TransactionJournalStatus.REJECTED, rejected.getStatus());
+        assertEquals("Недостаточно средств для совершения операции", rejected.getMessage());
+
+        var cards = cardRepository.findByOwnerId(userId);
+        var source = cards.stream().filter(card -> card.getMaskNumber().endsWith("4030")).findFirst().orElseThrow();
+        var destination = cards.stream().filter(card -> card.getMaskNumber().endsWith("4108")).findFirst().orElseThrow();
+        assertEquals(400, source.getBalance());
+        assertEquals(1100, destination.getBalance());
+    }
+
+    @Test
+    void getStatus_OtherUserOrUnknownUuid_ThrowsNotFound() throws Exception {
+        var accepted = transactionJournalService.submit(transferDto(100), userId);
+        await(accepted.getUuid());
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> transactionJournalService.getStatus(accepted.getUuid(), userId + 1));
+        assertThrows(ResourceNotFoundException.class,
+                () -> transactionJournalService.getStatus(UUID.randomUUID(), userId));
+    }
+
+    @Test
+    void getStatus_Rejected_StoredWithMaskedCardNumberAndVisibleOnlyToOwner() throws Exception {
+        var dto = transferDto(100);
+        dto.setSourceNumber("4111111111111111");
+        var submitted = transactionJournalService.submit(dto, userId);
+
+        var rejected = await(submitted.getUuid());
+
+        assertEquals(TransactionJournalStatus.REJECTED, rejected.getStatus());
+        assertTrue(rejected.getMessage().contains("4111****1111"));
+        assertFalse(rejected.getMessage().contains("4111111111111111"));
+        assertTrue(transactionRejectionRepository.findByUuidAndUserId(submitted.getUuid(), userId).isPresent());
+        assertThrows(ResourceNotFoundException.class,
+                () -> transactionJournalService.getStatus(submitted.getUuid(), userId + 1));
+    }
+
+    @Test
+    void apply_PoisonEntry_RejectedWithoutBlockingOthers() throws Exception {
+        doAnswer(invocation -> {
+            List<TransactionCreateDto> transactions = invocation.getArgument(0);
+            if (transactions.stream().anyMatch(dto -> dto.getAmount() == 13)) {
+                throw new IllegalStateException("Поврежденная запись");
+            }
+            return invocation.callRealMethod();
+        }).when(transactionBatchService).apply(anyList(), anyLong(), any());
+
+        var first = transactionJournalService.submit(transferDto(100), userId);
+        var poison = transactionJournalService.submit(transferDto(13), userId);
+        var last = transactionJournalService.submit(transferDto(200), userId);
+
+        assertEquals(TransactionJournalStatus.APPLIED, await(first.getUuid()).getStatus());
+        assertEquals(TransactionJournalStatus.REJECTED, await(poison.getUuid()).getStatus());
+        assertEquals(TransactionJournalStatus.APPLIED, await(last.getUuid()).getStatus());
+    }
+
+    @Test
+    void submit_ForceFailed_ReportedPendingAndIntakeStopped() throws Exception {
+        var journal = spy((TransactionJournal) ReflectionTestUtils.getField(transactionJournalService, "journal"));
+        doThrow(new UncheckedIOException(new IOException("Диск недоступен"))).when(journal).force();
+        ReflectionTestUtils.setField(transactionJournalService, "journal", journal);
+
+        var journaled = transactionJournalService.submit(transferDto(100), userId);
+        var direct = transactionJournalService.submit(transferDto(200), userId);
+
+        assertEquals(TransactionJournalStatus.PENDING, journaled.getStatus());
+        assertEquals(TransactionJournalStatus.APPLIED, await(journaled.getUuid()).getStatus());
+        assertEquals(TransactionJournalStatus.APPLIED, direct.getStatus());
+        assertNotNull(direct.getTransaction());
+    }
+
+    private TransactionJournalStatusDto await(UUID uuid) throws InterruptedException {
+        var deadline = System.currentTimeMillis() + 30_000;
+        var status = transactionJournalService.getStatus(uuid, userId);
+        while (status.getStatus() == TransactionJournalStatus.PENDING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            status = transactionJournalService.getStatus(uuid, userId);
+        }
+        return status;
+    }
+
+    private static TransactionCreateDto transferDto(int amount) {
+        var dto = new TransactionCreateDto();
+        dto.setSourceNumber(SOURCE_NUMBER);
+        dto.setDestinationNumber(DESTINATION_NUMBER);
+        dto.setTransactionType("TRANSFER");
+        dto.setAmount(amount);
+        return dto;
+    }
+}
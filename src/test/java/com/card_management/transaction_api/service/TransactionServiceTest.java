@@ -3,13 +3,13 @@ package com.card_management.transaction_api.service;
 import com.card_management.cards_api.model.Card;
 import com.card_management.cards_api.service.CardService;
 import com.card_management.controllers.common.TransactionValidator;
-import com.card_management.limits_api.enumeration.LimitType;
+import com.card_management.ledger_api.service.LedgerService;
 import com.card_management.limits_api.exception.ExceedingLimitException;
-import com.card_management.limits_api.model.Limit;
-import com.card_management.limits_api.repository.LimitRepository;
 import com.card_management.limits_api.service.LimitService;
 import com.card_management.technical.exception.FieldsValidationException;
 import com.card_management.technical.exception.ResourceNotFoundException;
+import com.card_management.technical.util.CursorUtils;
+import com.card_management.technical.util.DtoProjector;
 import com.card_management.transaction_api.dto.TransactionCreateDto;
 import com.card_management.transaction_api.dto.TransactionDto;
 import com.card_management.transaction_api.dto.TransactionEnvelopDto;
@@ -39,6 +39,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -60,18 +61,21 @@ public class TransactionServiceTest {
     @Mock
     private LimitService limitService;
 
-    @Mock
-    private LimitRepository limitRepository;
-
     @Mock
     private TransactionValidator transactionValidator;
 
     @Mock
     private CardService cardService;
 
+    @Mock
+    private LedgerService ledgerService;
+
     @Mock
     private UserService userService;
 
+    @Mock
+    private DtoProjector dtoProjector;
+
     @InjectMocks
     private TransactionService transactionService;
 
@@ -131,27 +135,33 @@ public class TransactionServiceTest {
         var size = 2;
         var sort = "amount";
 
-        var transactionList = List.of(transaction1, transaction2);
-        var transactionPage = new PageImpl<>(
-                transactionList,
-                PageRequest.of(0, size, Sort.by(sort)), 1);
+        var pageRequest = PageRequest.of(0, size, Sort.by(sort));
+        var transactionPage = new PageImpl<>(List.of(transactionDto1, transactionDto2), pageRequest, 1);
 
-        when(transactionRepository.findAll(
-                PageRequest.of(0, size, Sort.by(sort)))).thenReturn(transactionPage);
-        when(transactionMapper.map(transaction1)).thenReturn(transactionDto1);
-        when(transactionMapper.map(transaction2)).thenReturn(transactionDto2);
+        when(dtoProjector.findPage(
+                eq(Transaction.class),
+                ArgumentMatchers.<Specification<Transaction>>isNull(),
+                eq(pageRequest),
+                eq(TransactionDto.class),
+                any(),
+                any())
+        ).thenReturn(transactionPage);
 
-        TransactionEnvelopDto result = transactionService.getTransactions(page, size, sort);
+        TransactionEnvelopDto result = transactionService.getTransactions(page, size, sort, null, null);
 
         assertNotNull(result);
-        assertEquals(2, result.getTransactions().size());
+        assertEquals(List.of(transactionDto1, transactionDto2), result.getTransactions());
         assertEquals(2, result.getTotalElements());
         assertEquals(1, result.getTotalPages());
 
-        verify(transactionRepository, times(1))
-                .findAll(PageRequest.of(0, size, Sort.by(sort)));
-        verify(transactionMapper, times(1)).map(transaction1);
-        verify(transactionMapper, times(1)).map(transaction2);
+        verify(dtoProjector, times(1)).findPage(
+                eq(Transaction.class),
+                ArgumentMatchers.<Specification<Transaction>>isNull(),
+                eq(pageRequest),
+                eq(TransactionDto.class),
+                any(),
+                any());
+        verifyNoInteractions(transactionMapper);
     }
 
     @Test
@@ -165,7 +175,7 @@ public class TransactionServiceTest {
 
         var exception = assertThrows(
                 FieldsValidationException.class,
-                () -> transactionService.getTransactions(page, size, invalidSortField)
+                () -> transactionService.getTransactions(page, size, invalidSortField, null, null)
         );
 
         assertEquals("Недопустимое поле сортировки: " + invalidSortField, exception.getMessage());
@@ -216,6 +226,8 @@ public class TransactionServiceTest {
         when(cardService.findMatchByNumberCard("1234567812341002", 1L)).thenReturn(card2);
         doNothing().when(cardService).checkCardStatus(card1);
         doNothing().when(cardService).checkCardStatus(card2);
+        when(cardService.debitBalance(card1, 100)).thenReturn(true);
+        when(cardService.creditBalance(card2, 100)).thenReturn(true);
         when(transactionMapper.map(transactionCreateDto, 1L)).thenReturn(transaction1);
         when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction1);
         when(transactionMapper.map(transaction1)).thenReturn(transactionDto1);
@@ -230,6 +242,8 @@ public class TransactionServiceTest {
 
         verify(cardService).checkCardStatus(card1);
         verify(cardService).checkCardStatus(card2);
+        verify(cardService).debitBalance(card1, 100);
+        verify(cardService).creditBalance(card2, 100);
         verify(transactionRepository).save(transaction1);
     }
 
@@ -241,55 +255,88 @@ public class TransactionServiceTest {
 
         when(userService.findById(1L)).thenReturn(userDto);
         when(cardService.findMatchByNumberCard("1234567812341001", 1L)).thenReturn(card1);
+        when(cardService.findMatchByNumberCard("1234567812341002", 1L)).thenReturn(card2);
         doNothing().when(cardService).checkCardStatus(card1);
+        doNothing().when(cardService).checkCardStatus(card2);
+        when(cardService.debitBalance(card1, 2000)).thenReturn(false);
 
         var exception = assertThrows(InsufficientFundsForTransactionException.class, () ->
                 transactionService.create(transactionCreateDto, 1L)
         );
 
         assertEquals("Недостаточно средств для совершения операции", exception.getMessage());
+        verify(cardService, never()).creditBalance(any(), anyInt());
         verify(transactionMapper, never()).map(any(Transaction.class));
         verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
     @Test
     void createTransaction_exceedsLimit_throwsExceedingLimitException() {
-        Limit exceededDailyLimit = new Limit();
-        exceededDailyLimit.setLimitType(LimitType.DAILY);
-        exceededDailyLimit.setTransactionType(TransactionType.TRANSFER);
-        exceededDailyLimit.setLimitAmount(500);
-        exceededDailyLimit.setCurrentExpensesAmount(400);
-
-        Limit monthlyLimit = new Limit();
-        monthlyLimit.setLimitType(LimitType.MONTHLY);
-        monthlyLimit.setTransactionType(TransactionType.TRANSFER);
-        monthlyLimit.setLimitAmount(10000);
-        monthlyLimit.setCurrentExpensesAmount(1000);
-
         transactionCreateDto.setAmount(1000);
 
-        when(limitRepository.getLimitByUserIdAndLimitTypeAndTransactionType(user.getId(),
-                LimitType.DAILY, TransactionType.TRANSFER)).thenReturn(exceededDailyLimit);
-        when(limitRepository.getLimitByUserIdAndLimitTypeAndTransactionType(user.getId(),
-                LimitType.MONTHLY, TransactionType.TRANSFER)).thenReturn(monthlyLimit);
-
         doThrow(new ExceedingLimitException("Превышен дневной лимит"))
-                .when(limitService).canTransaction(eq(exceededDailyLimit), eq(1000));
+                .when(limitService).reserve(user.getId(), TransactionType.TRANSFER, 1000);
 
         assertThrows(ExceedingLimitException.class,
                 () -> transactionService.create(transactionCreateDto, user.getId()));
 
-        verify(limitRepository, times(1))
-                .getLimitByUserIdAndLimitTypeAndTransactionType(user.getId(),
-                LimitType.DAILY, TransactionType.TRANSFER);
-        verify(limitRepository, times(1))
-                .getLimitByUserIdAndLimitTypeAndTransactionType(user.getId(),
-                LimitType.MONTHLY, TransactionType.TRANSFER);
+        verify(limitService, times(1)).reserve(user.getId(), TransactionType.TRANSFER, 1000);
+        verifyNoInteractions(cardService);
+        verify(transactionRepository, never()).save(any());
+    }
 
-        verify(limitService, times(1)).canTransaction(eq(exceededDailyLimit), eq(1000));
-        verify(limitService, never()).registerTransaction(any(), anyInt());
+    @Test
+    void getUserCardHistory_moreRowsThanSize_returnsPageWithNextCursor() {
+        var userId = 1L;
+        var createdAt = LocalDateTime.of(2025, 5, 18, 12, 0);
+        transaction1.setCreatedAt(createdAt.plusMinutes(1));
+        transaction2.setCreatedAt(createdAt);
+
+        when(cardService.findUserCardByLastFourDigits(userId, "1001")).thenReturn(card1);
+        when(transactionRepository.findCardHistoryIds(userId, card1.getId(), CursorUtils.FIRST.createdAt(),
+                CursorUtils.FIRST.id(), 2))
+                .thenReturn(List.of(transaction1.getId(), transaction2.getId()));
+        when(transactionRepository.findByIdIn(eq(List.of(transaction1.getId(), transaction2.getId())), any()))
+                .thenReturn(List.of(transaction1, transaction2));
+        when(transactionMapper.map(transaction1)).thenReturn(transactionDto1);
 
-        verify(transactionRepository, never()).save(any());
+        var result = transactionService.getUserCardHistory(userId, "1001", null, 1, false);
+
+        assertEquals(List.of(transactionDto1), result.getTransactions());
+        assertEquals(CursorUtils.encode(transaction1.getCreatedAt(), transaction1.getId()), result.getNextCursor());
+        assertNull(result.getTotalElements());
+        verify(transactionRepository, never()).countCardHistory(anyLong(), anyLong());
+    }
+
+    @Test
+    void getUserCardHistory_lastPageWithTotal_returnsCountWithoutCursor() {
+        var userId = 1L;
+        var cursor = CursorUtils.encode(LocalDateTime.of(2025, 5, 18, 12, 0), 5L);
+
+        when(cardService.findUserCardByLastFourDigits(userId, "1001")).thenReturn(card1);
+        when(transactionRepository.findCardHistoryIds(userId, card1.getId(), LocalDateTime.of(2025, 5, 18, 12, 0),
+                5L, 11))
+                .thenReturn(List.of(transaction2.getId()));
+        when(transactionRepository.findByIdIn(eq(List.of(transaction2.getId())), any()))
+                .thenReturn(List.of(transaction2));
+        when(transactionRepository.countCardHistory(userId, card1.getId())).thenReturn(6L);
+        when(transactionMapper.map(transaction2)).thenReturn(transactionDto2);
+
+        var result = transactionService.getUserCardHistory(userId, "1001", cursor, 10, true);
+
+        assertEquals(List.of(transactionDto2), result.getTransactions());
+        assertNull(result.getNextCursor());
+        assertEquals(6L, result.getTotalElements());
+    }
+
+    @Test
+    void getUserCardHistory_invalidCursor_throwsFieldsValidationException() {
+        when(cardService.findUserCardByLastFourDigits(1L, "1001")).thenReturn(card1);
+
+        assertThrows(FieldsValidationException.class,
+                () -> transactionService.getUserCardHistory(1L, "1001", "not-a-cursor", 10, false));
+
+        verifyNoInteractions(transactionRepository);
     }
 
     @Test
@@ -321,15 +368,17 @@ public class TransactionServiceTest {
         var page = 1;
         var size = 10;
         var sort = "amount";
-        var transactionPage = new PageImpl<>(List.of(transaction1, transaction2));
+        var transactionPage = new PageImpl<>(List.of(transactionDto1, transactionDto2));
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(transactionRepository.findByUserId(
-                userId,
-                PageRequest.of(page - 1, size, Sort.by(sort))))
-                .thenReturn(transactionPage);
-        when(transactionMapper.map(transaction1)).thenReturn(transactionDto1);
-        when(transactionMapper.map(transaction2)).thenReturn(transactionDto2);
+        when(dtoProjector.findPage(
+                eq(Transaction.class),
+                ArgumentMatchers.<Specification<Transaction>>any(),
+                eq(PageRequest.of(page - 1, size, Sort.by(sort))),
+                eq(TransactionDto.class),
+                any(),
+                any())
+        ).thenReturn(transactionPage);
 
         TransactionEnvelopDto result = transactionService.getUserTransactions(userId, page, size, sort);
 
@@ -339,8 +388,7 @@ public class TransactionServiceTest {
         assertEquals(1, result.getTotalPages());
 
         verify(userRepository, times(1)).findById(userId);
-        verify(transactionRepository, times(1))
-                .findByUserId(userId, PageRequest.of(page - 1, size, Sort.by(sort)));
+        verifyNoInteractions(transactionMapper);
     }
 
     @Test
@@ -356,7 +404,7 @@ public class TransactionServiceTest {
                 () -> transactionService.getUserTransactions(userId, page, size, sort));
 
         verify(userRepository, times(1)).findById(userId);
-        verify(transactionRepository, never()).findByUserId(anyLong(), any(PageRequest.class));
+        verifyNoInteractions(dtoProjector);
     }
 
     @Test
@@ -370,13 +418,10 @@ public class TransactionServiceTest {
 
         var pageResult = new PageImpl<>(List.of(transaction1, transaction2));
 
-        when(transactionRepository.findByUserId(userId, PageRequest.of(0, size, Sort.by(sort))))
+        when(transactionRepository.findByUserIdAndCardLastFour(userId, lastFour,
+                PageRequest.of(0, size, Sort.by(sort))))
                 .thenReturn(pageResult);
 
-        when(cardService.getCardLastFourDigits(transaction1.getSource())).thenReturn("1001");
-        when(cardService.getCardLastFourDigits(transaction2.getSource())).thenReturn("1001");
-        when(cardService.getCardLastFourDigits(transaction2.getDestination())).thenReturn("1002");
-
         when(transactionMapper.map(transaction1)).thenReturn(transactionDto1);
         when(transactionMapper.map(transaction2)).thenReturn(transactionDto2);
 
@@ -391,7 +436,8 @@ public class TransactionServiceTest {
         assertEquals(1, result.getTotalPages());
 
         verify(transactionRepository, times(1))
-                .findByUserId(userId, PageRequest.of(0, size, Sort.by(sort)));
+                .findByUserIdAndCardLastFour(userId, lastFour, PageRequest.of(0, size, Sort.by(sort)));
+        verifyNoInteractions(dtoProjector);
     }
 
     @Test
@@ -402,14 +448,12 @@ public class TransactionServiceTest {
         var size = 10;
         var sort = "amount";
 
-        var pageResult = new PageImpl<>(List.of(transaction1));
+        var pageResult = new PageImpl<Transaction>(List.of());
 
-        when(transactionRepository.findByUserId(userId, PageRequest.of(0, size, Sort.by(sort))))
+        when(transactionRepository.findByUserIdAndCardLastFour(userId, lastFour,
+                PageRequest.of(0, size, Sort.by(sort))))
                 .thenReturn(pageResult);
 
-        when(cardService.getCardLastFourDigits(transaction1.getSource())).thenReturn("1001");
-        when(cardService.getCardLastFourDigits(transaction1.getDestination())).thenReturn("1002");
-
         TransactionEnvelopDto result = transactionService
                 .getUserTransactionsByCard(userId, lastFour, page, size, sort);
 
@@ -419,7 +463,7 @@ public class TransactionServiceTest {
         assertEquals(1, result.getTotalPages());
 
         verify(transactionRepository, times(1))
-                .findByUserId(userId, PageRequest.of(0, size, Sort.by(sort)));
+                .findByUserIdAndCardLastFour(userId, lastFour, PageRequest.of(0, size, Sort.by(sort)));
     }
 
     @Test
@@ -432,17 +476,21 @@ public class TransactionServiceTest {
         filterDto.setTransactionType("TRANSFER");
 
         var userId = 1L;
-        var page = new PageImpl<>(List.of(transaction1, transaction2));
+        var page = new PageImpl<>(List.of(transactionDto1, transactionDto2));
         var expectedPageable = PageRequest.of(
                 0,
                 10,
                 Sort.by(Sort.Direction.DESC, "amount")
         );
 
-        when(transactionRepository.findAll(ArgumentMatchers.<Specification<Transaction>>any(), eq(expectedPageable)))
-                .thenReturn(page);
-        when(transactionMapper.map(transaction1)).thenReturn(transactionDto1);
-        when(transactionMapper.map(transaction2)).thenReturn(transactionDto2);
+        when(dtoProjector.findPage(
+                eq(Transaction.class),
+                ArgumentMatchers.<Specification<Transaction>>any(),
+                eq(expectedPageable),
+                eq(TransactionDto.class),
+                any(),
+                any())
+        ).thenReturn(page);
 
         TransactionEnvelopDto result = transactionService.filterTransactions(filterDto, userId);
 
@@ -451,9 +499,7 @@ public class TransactionServiceTest {
         assertEquals(2, result.getTotalElements());
         assertEquals(1, result.getTotalPages());
 
-        verify(transactionRepository).findAll(ArgumentMatchers.<Specification<Transaction>>any(), eq(expectedPageable));
-        verify(transactionMapper).map(transaction1);
-        verify(transactionMapper).map(transaction2);
+        verifyNoInteractions(transactionMapper);
     }
 
     @Test
@@ -465,14 +511,20 @@ public class TransactionServiceTest {
         filterDto.setSortDirection("DESC");
 
         var userId = 1L;
-        Page<Transaction> emptyPage = new PageImpl<>(List.of());
+        Page<TransactionDto> emptyPage = new PageImpl<>(List.of());
         var expectedPageable = PageRequest.of(
                 0,
                 5,
                 Sort.by(Sort.Direction.DESC, "createdAt"));
 
-        when(transactionRepository.findAll(ArgumentMatchers.<Specification<Transaction>>any(), eq(expectedPageable)))
-                .thenReturn(emptyPage);
+        when(dtoProjector.findPage(
+                eq(Transaction.class),
+                ArgumentMatchers.<Specification<Transaction>>any(),
+                eq(expectedPageable),
+                eq(TransactionDto.class),
+                any(),
+                any())
+        ).thenReturn(emptyPage);
 
         TransactionEnvelopDto result = transactionService.filterTransactions(filterDto, userId);
 
@@ -481,7 +533,6 @@ public class TransactionServiceTest {
         assertEquals(0, result.getTotalElements());
         assertEquals(1, result.getTotalPages());
 
-        verify(transactionRepository).findAll(ArgumentMatchers.<Specification<Transaction>>any(), eq(expectedPageable));
-        verify(transactionMapper, never()).map(any());
+        verifyNoInteractions(transactionMapper);
     }
 }
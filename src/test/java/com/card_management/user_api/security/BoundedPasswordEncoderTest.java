@@ -0,0 +1,81 @@
+package com.card_management.user_api.security;
+
+import com.card_management.users_api.exception.AuthenticationThrottledException;
+import com.card_management.users_api.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    @Test
+    void matches_PoolAndQueueBusy_RejectsImmediately() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+        var encoder = new BoundedPasswordEncoder(blocking, 1, 1, Duration.ofSeconds(2), new SimpleMeterRegistry());
+        var callers = Executors.newFixedThreadPool(2);
+        try {
+            var first = callers.submit(() -> encoder.encode("first"));
+            started.await();
+            var second = callers.submit(() -> encoder.matches("second", "second"));
+            while (!second.isDone() && queueIsEmpty(encoder)) {
+                Thread.sleep(5);
+            }
+
+            var exception = assertThrows(AuthenticationThrottledException.class, () ->
+                    encoder.matches("third", "third"));
+            assertEquals(2, exception.getRetryAfterSeconds());
+
+            release.countDown();
+            assertEquals("first", first.get());
+            assertTrue(second.get());
+        } finally {
+            release.countDown();
+            callers.shutdown();
+            encoder.destroy();
+        }
+    }
+
+    @Test
+    void upgradeEncoding_WeakerStoredHash_ReturnsTrue() {
+        var encoder = new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(6), 1, 1, Duration.ofSeconds(1), new SimpleMeterRegistry());
+        var weakHash = new BCryptPasswordEncoder(4).encode("password123");
+
+        assertTrue(encoder.upgradeEncoding(weakHash));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("password123")));
+        assertTrue(encoder.matches("password123", weakHash));
+        encoder.destroy();
+    }
+
+    private static boolean queueIsEmpty(BoundedPasswordEncoder encoder) {
+        var executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(encoder, "executor");
+        return executor.getQueue().isEmpty();
+    }
+}
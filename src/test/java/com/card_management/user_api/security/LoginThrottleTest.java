@@ -0,0 +1,45 @@
+package com.card_management.user_api.security;
+
+import com.card_management.application.configuration.AuthConfig;
+import com.card_management.users_api.exception.AuthenticationThrottledException;
+import com.card_management.users_api.security.LoginThrottle;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    @Test
+    void acquireLogin_AccountAttemptsExhausted_ThrowsWithRetryAfter() {
+        var config = new AuthConfig();
+        config.setAccountAttempts(3);
+        config.setAccountRefillInterval(Duration.ofSeconds(30));
+        var loginThrottle = new LoginThrottle(config);
+
+        for (var i = 0; i < 3; i++) {
+            loginThrottle.acquireLogin("user1@example.com", "10.0.0.1");
+        }
+        var exception = assertThrows(AuthenticationThrottledException.class, () ->
+                loginThrottle.acquireLogin("USER1@example.com", "10.0.0.2"));
+
+        assertTrue(exception.getRetryAfterSeconds() > 0 && exception.getRetryAfterSeconds() <= 30);
+        assertDoesNotThrow(() -> loginThrottle.acquireLogin("user2@example.com", "10.0.0.1"));
+    }
+
+    @Test
+    void acquireIp_IpAttemptsExhausted_ThrowsForAnyAccount() {
+        var config = new AuthConfig();
+        config.setIpAttempts(2);
+        config.setIpRefillInterval(Duration.ofMinutes(1));
+        var loginThrottle = new LoginThrottle(config);
+
+        loginThrottle.acquireIp("10.0.0.1");
+        loginThrottle.acquireLogin("user1@example.com", "10.0.0.1");
+
+        assertThrows(AuthenticationThrottledException.class, () ->
+                loginThrottle.acquireLogin("user2@example.com", "10.0.0.1"));
+        assertDoesNotThrow(() -> loginThrottle.acquireIp("10.0.0.2"));
+    }
+}
@@ -10,6 +10,7 @@ import com.card_management.users_api.exception.DuplicateEmailException;
 import com.card_management.users_api.mapper.UserMapper;
 import com.card_management.users_api.model.User;
 import com.card_management.users_api.repository.UserRepository;
+import com.card_management.users_api.security.TokenDenyList;
 import com.card_management.users_api.service.UserService;
 import com.card_management.factory.unit.UserTestFactory;
 import org.junit.jupiter.api.BeforeEach;
@@ -46,6 +47,9 @@ class UserServiceTest {
     @Mock
     private LimitService limitService;
 
+    @Mock
+    private TokenDenyList tokenDenyList;
+
     @InjectMocks
     private UserService userService;
 
@@ -89,7 +93,7 @@ class UserServiceTest {
         when(userMapper.map(user1)).thenReturn(userDto1);
         when(userMapper.map(user2)).thenReturn(userDto2);
 
-        UserEnvelopDto result = userService.getUsers(page, size, sort);
+        UserEnvelopDto result = userService.getUsers(page, size, sort, null, null);
 
         assertEquals(2, result.getUsers().size());
         assertEquals(2, result.getTotalElements());
@@ -104,7 +108,7 @@ class UserServiceTest {
         var invalidSort = "invalidField";
 
         FieldsValidationException exception = assertThrows(FieldsValidationException.class, () ->
-                userService.getUsers(page, size, invalidSort)
+                userService.getUsers(page, size, invalidSort, null, null)
         );
 
         assertEquals("Недопустимое поле сортировки: invalidField", exception.getMessage());
@@ -196,6 +200,7 @@ class UserServiceTest {
 
         verify(userRepository).findById(userId);
         verify(userRepository).delete(user1);
+        verify(tokenDenyList).revoke(userId);
     }
 
     @Test
@@ -209,6 +214,7 @@ class UserServiceTest {
         );
 
         assertEquals("Пользователь с ID 999 не найден", exception.getMessage());
-        verify(userRepository, never()).delete(any());
+        verify(userRepository, never()).delete(any(User.class));
+        verify(tokenDenyList, never()).revoke(any());
     }
 }